@@ -1,8 +1,54 @@
 import chess.*;
+import dataAccess.DataAccessException;
+import dataAccess.FileGameDAO;
+import dataAccess.GameDAO;
+import dataAccess.MemoryGameDAO;
+import server.Server;
+import server.cluster.Cluster;
+import service.GameService;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public class Main {
-    public static void main(String[] args) {
+    /**
+     * Usage: {@code Main [port] [data directory] [--cluster host:port,...] [--node host:port] [--redirect]}.
+     * Without a data directory games are only kept in memory. With
+     * {@code --cluster} the server is one node of a cluster of the listed
+     * nodes, and is known to them as {@code --node}, or localhost and its
+     * port by default; requests for other nodes' games are forwarded unless
+     * {@code --redirect} is given. Every node of a cluster must be given the
+     * same secret in the {@code CHESS_CLUSTER_SECRET} environment variable.
+     */
+    public static void main(String[] args) throws DataAccessException {
+        List<String> positional = new ArrayList<>();
+        List<String> nodes = null;
+        String self = null;
+        Cluster.Mode mode = Cluster.Mode.FORWARD;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--cluster" -> nodes = List.of(args[++i].split(","));
+                case "--node" -> self = args[++i];
+                case "--redirect" -> mode = Cluster.Mode.REDIRECT;
+                default -> positional.add(args[i]);
+            }
+        }
+        int port = positional.size() > 0 ? Integer.parseInt(positional.get(0)) : 8080;
+        GameDAO gameDAO = positional.size() > 1
+                ? new FileGameDAO(Path.of(positional.get(1)), FileGameDAO.DEFAULT_FLUSH_INTERVAL)
+                : new MemoryGameDAO();
         var piece = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        System.out.println("♕ 240 Chess Server: " + piece);
+        var gameService = new GameService(gameDAO);
+        Cluster cluster = nodes == null ? null
+                : new Cluster(self != null ? self : "localhost:" + port, nodes, mode,
+                System.getenv("CHESS_CLUSTER_SECRET"), gameService);
+        var server = new Server(gameService, cluster);
+        port = server.run(port);
+        int webSocketPort = server.runWebSocket(port + 1);
+        int metricsPort = server.runMetrics(port + 2);
+        System.out.println("♕ 240 Chess Server: " + piece + " listening on port " + port
+                + ", WebSockets on port " + webSocketPort + ", metrics on localhost:" + metricsPort
+                + (cluster == null ? "" : ", in cluster " + cluster.membership().nodes()));
     }
-}
\ No newline at end of file
+}
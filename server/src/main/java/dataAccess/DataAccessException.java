@@ -0,0 +1,15 @@
+package dataAccess;
+
+/**
+ * Indicates there was an error connecting to or using the store of games
+ */
+public class DataAccessException extends Exception {
+
+    public DataAccessException(String message) {
+        super(message);
+    }
+
+    public DataAccessException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
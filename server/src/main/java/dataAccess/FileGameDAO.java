@@ -0,0 +1,709 @@
+package dataAccess;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.FastBoard;
+import chess.notation.Fen;
+import model.GameData;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps games in memory and stores them as an event log plus periodic
+ * binary snapshots in a directory.
+ * <p>
+ * Every change is an event appended to the current log segment,
+ * {@code log-NNNNNN.dat}: {@code int length, byte type, int gameID} followed
+ * by the name and FEN of a created game, a seat change, one packed move, or
+ * the hashes of the positions before a put game's current one; a removed
+ * game's event has no body.
+ * Events go through a {@link WriteBehindLog}, so making a move never waits
+ * for the disk; a change is durable within about one flush interval, or as
+ * soon as {@link #flush()} returns.
+ * <p>
+ * Once a segment grows past the snapshot threshold, or when
+ * {@link #snapshot()} is called, later events go to a new segment and every
+ * game's board, recent positions and players at that point are written to
+ * {@code snapshot-NNNNNN.dat}, numbered after the first segment it doesn't
+ * cover. Older segments and snapshots are then deleted. Opening the store
+ * maps the newest snapshot and scans the segments after it, so recovery
+ * replays only the moves made since the last snapshot, straight from mapped
+ * memory. An event cut short by a crash is dropped when the store is opened.
+ */
+public class FileGameDAO implements GameDAO, Closeable {
+
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(50);
+    public static final long DEFAULT_SNAPSHOT_THRESHOLD = 64L << 20;
+
+    private static final int LOG_MAGIC = 0x4348474C;
+    private static final int SNAPSHOT_MAGIC = 0x4348534E;
+    /**
+     * Version 2 added castling rights and the en passant square to
+     * snapshots, and full FEN records to created games; version 3 added the
+     * halfmove clock to snapshots; version 4 added the positions since the
+     * last pawn move or capture to snapshots and put games, so repetitions
+     * survive a restart. Older files are still read, with every castling
+     * right the pieces allow, the clock at 0 and no earlier positions.
+     */
+    private static final int VERSION = 4;
+    private static final int HEADER_SIZE = 8;
+    private static final int QUEUE_CAPACITY = 1 << 16;
+    private static final Pattern LOG_NAME = Pattern.compile("log-(\\d{6})\\.dat");
+    private static final Pattern SNAPSHOT_NAME = Pattern.compile("snapshot-(\\d{6})\\.dat");
+
+    private static final byte CREATE = 1;
+    private static final byte PLAYER = 2;
+    private static final byte MOVE = 3;
+    private static final byte REMOVE = 4;
+    private static final byte POSITIONS = 5;
+
+    /**
+     * A game's players plus the store's own copy of its position, which is
+     * what snapshots are taken from
+     */
+    private static final class StoredGame {
+        private volatile GameData data;
+        private final FastBoard board;
+
+        private StoredGame(GameData data, FastBoard board) {
+            this.data = data;
+            this.board = board;
+        }
+    }
+
+    private final Path dir;
+    private final long snapshotThreshold;
+    private final Map<Integer, StoredGame> games = new ConcurrentHashMap<>();
+    private final AtomicInteger nextGameID = new AtomicInteger(1);
+    /**
+     * Events take the read lock so they can run in parallel; taking a
+     * snapshot takes the write lock to get a consistent cut
+     */
+    private final ReadWriteLock cut = new ReentrantReadWriteLock();
+    private final AtomicLong segmentBytes = new AtomicLong();
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    /**
+     * Held for a whole snapshot, so an explicit one and a background one
+     * can't write and clean up files at the same time
+     */
+    private final Lock snapshotLock = new ReentrantLock();
+    private volatile boolean closed;
+    private final WriteBehindLog log;
+    private FileChannel channel;
+    private int segment;
+
+    public FileGameDAO(Path dir, Duration flushInterval) throws DataAccessException {
+        this(dir, flushInterval, DEFAULT_SNAPSHOT_THRESHOLD);
+    }
+
+    /**
+     * Opens the store, creating the directory if needed, and recovers its games
+     *
+     * @param flushInterval     how long a change may wait before it is forced to disk
+     * @param snapshotThreshold how many bytes of events a segment may hold before a snapshot is taken
+     */
+    public FileGameDAO(Path dir, Duration flushInterval, long snapshotThreshold) throws DataAccessException {
+        this.dir = dir;
+        this.snapshotThreshold = snapshotThreshold;
+        try {
+            Files.createDirectories(dir);
+            recover();
+        } catch (IOException e) {
+            throw new DataAccessException("can't open game store " + dir, e);
+        }
+        log = new WriteBehindLog(channel, flushInterval, QUEUE_CAPACITY);
+    }
+
+    // ----- recovery -----
+
+    private void recover() throws IOException {
+        int first = 0;
+        List<Integer> snapshots = numbered(SNAPSHOT_NAME);
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            if (loadSnapshot(snapshotPath(snapshots.get(i)))) {
+                first = snapshots.get(i);
+                break;
+            }
+            games.clear();
+        }
+
+        segment = first;
+        long end = HEADER_SIZE;
+        for (int number : numbered(LOG_NAME)) {
+            if (number >= first) {
+                segment = number;
+                end = replay(logPath(number));
+            }
+        }
+        if (logVersion(logPath(segment)) != VERSION) {
+            // leave an older segment as it is and append to a new one
+            segment++;
+            end = HEADER_SIZE;
+        }
+        for (StoredGame stored : games.values()) {
+            GameData data = stored.data;
+            stored.data = new GameData(data.gameID(), data.whiteUsername(), data.blackUsername(), data.gameName(),
+                    stored.board.toChessGame());
+        }
+
+        channel = FileChannel.open(logPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        if (channel.size() < HEADER_SIZE) {
+            writeHeader(channel);
+            end = HEADER_SIZE;
+        }
+        channel.truncate(end);
+        channel.position(end);
+        segmentBytes.set(end);
+    }
+
+    private List<Integer> numbered(Pattern pattern) throws IOException {
+        List<Integer> numbers = new ArrayList<>();
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Integer.parseInt(matcher.group(1)));
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    /**
+     * @return false if the snapshot is incomplete or damaged
+     */
+    private boolean loadSnapshot(Path file) throws IOException {
+        ByteBuffer in = map(file);
+        try {
+            if (in.getInt() != SNAPSHOT_MAGIC) {
+                return false;
+            }
+            int version = in.getInt();
+            if (version < 1 || version > VERSION) {
+                return false;
+            }
+            int nextID = in.getInt();
+            int count = in.getInt();
+            for (int i = 0; i < count; i++) {
+                int gameID = in.getInt();
+                String name = getString(in);
+                String white = in.get() == 0 ? null : getString(in);
+                String black = in.get() == 0 ? null : getString(in);
+                FastBoard board = new FastBoard();
+                for (int sq = 0; sq < 64; sq += 2) {
+                    int pair = in.get() & 0xFF;
+                    if ((pair & 15) != 0) {
+                        board.put(sq, pair & 15);
+                    }
+                    if (pair >>> 4 != 0) {
+                        board.put(sq + 1, pair >>> 4);
+                    }
+                }
+                board.setSideToMove(in.get());
+                if (version == 1) {
+                    board.setCastlingRights(ChessBoard.ALL_CASTLING);
+                } else {
+                    board.setCastlingRights(in.get());
+                    board.setEnPassantSquare(in.get());
+                }
+                if (version >= 3) {
+                    board.setHalfmoveClock(in.getShort() & 0xFFFF);
+                }
+                if (version >= 4) {
+                    board.setEarlierPositions(getPositions(in));
+                }
+                games.put(gameID, new StoredGame(new GameData(gameID, white, black, name, null), board));
+            }
+            if (in.getInt() != SNAPSHOT_MAGIC) {
+                return false;
+            }
+            nextGameID.set(nextID);
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Applies every complete event in a segment
+     *
+     * @return the offset just past the last complete event
+     */
+    private long replay(Path file) throws IOException {
+        ByteBuffer in = map(file);
+        if (in.limit() < HEADER_SIZE || in.getInt(0) != LOG_MAGIC || in.getInt(4) < 1 || in.getInt(4) > VERSION) {
+            return HEADER_SIZE;
+        }
+        int version = in.getInt(4);
+        int position = HEADER_SIZE;
+        while (position + 4 <= in.limit()) {
+            int length = in.getInt(position);
+            if (length < 5 || position + 4 + length > in.limit()) {
+                break;
+            }
+            apply(in.slice(position + 4, length), version);
+            position += 4 + length;
+        }
+        return position;
+    }
+
+    /**
+     * @return the version in a log segment's header, or the current version
+     * if the segment is new or empty
+     */
+    private static int logVersion(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return VERSION;
+        }
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && in.read(header) >= 0) {
+            }
+            return header.hasRemaining() ? VERSION : header.getInt(4);
+        }
+    }
+
+    private void apply(ByteBuffer event, int version) throws IOException {
+        byte type = event.get();
+        int gameID = event.getInt();
+        switch (type) {
+            case CREATE -> {
+                String name = getString(event);
+                String fen = getString(event);
+                if (version == 1) {
+                    // the castling and en passant fields were always written empty
+                    fen = fen.substring(0, fen.indexOf(' ', fen.indexOf(' ') + 1));
+                }
+                ChessGame game = Fen.parseGame(fen);
+                games.put(gameID, new StoredGame(new GameData(gameID, null, null, name, null), FastBoard.of(game)));
+                nextGameID.accumulateAndGet(gameID + 1, Math::max);
+            }
+            case PLAYER -> {
+                ChessGame.TeamColor color = ChessGame.TeamColor.values()[event.get()];
+                String username = event.get() == 0 ? null : getString(event);
+                StoredGame stored = games.get(gameID);
+                if (stored != null) {
+                    stored.data = stored.data.withPlayer(color, username);
+                }
+            }
+            case MOVE -> {
+                StoredGame stored = games.get(gameID);
+                if (stored != null) {
+                    stored.board.make(event.getShort() & 0xFFFF);
+                }
+            }
+            case REMOVE -> games.remove(gameID);
+            case POSITIONS -> {
+                StoredGame stored = games.get(gameID);
+                if (stored != null) {
+                    stored.board.setEarlierPositions(getPositions(event));
+                }
+            }
+            default -> throw new IOException("unknown event type " + type);
+        }
+    }
+
+    private static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            return in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+        }
+    }
+
+    // ----- GameDAO -----
+
+    @Override
+    public int createGame(String gameName, ChessGame game) throws DataAccessException {
+        byte[] name = utf8(gameName);
+        byte[] fen = utf8(Fen.toFen(game));
+        cut.readLock().lock();
+        try {
+            int gameID = nextGameID.getAndIncrement();
+            games.put(gameID, new StoredGame(new GameData(gameID, null, null, gameName, game), FastBoard.of(game)));
+            append(CREATE, gameID, 4 + name.length + fen.length, event -> putString(putString(event, name), fen));
+            return gameID;
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    @Override
+    public GameData getGame(int gameID) {
+        StoredGame stored = games.get(gameID);
+        return stored == null ? null : stored.data;
+    }
+
+    @Override
+    public void putGame(GameData game) throws DataAccessException {
+        byte[] name = utf8(game.gameName());
+        byte[] fen = utf8(Fen.toFen(game.game()));
+        byte[] white = game.whiteUsername() == null ? null : utf8(game.whiteUsername());
+        byte[] black = game.blackUsername() == null ? null : utf8(game.blackUsername());
+        long[] positions = game.game().getEarlierPositions();
+        FastBoard board = FastBoard.of(game.game());
+        board.setEarlierPositions(positions);
+        cut.readLock().lock();
+        try {
+            games.put(game.gameID(), new StoredGame(game, board));
+            nextGameID.accumulateAndGet(game.gameID() + 1, Math::max);
+            append(CREATE, game.gameID(), 4 + name.length + fen.length, event -> putString(putString(event, name), fen));
+            if (positions.length > 0) {
+                append(POSITIONS, game.gameID(), 2 + 8 * positions.length, event -> putPositions(event, positions));
+            }
+            if (white != null) {
+                appendPlayer(game.gameID(), ChessGame.TeamColor.WHITE, white);
+            }
+            if (black != null) {
+                appendPlayer(game.gameID(), ChessGame.TeamColor.BLACK, black);
+            }
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void removeGame(int gameID) throws DataAccessException {
+        cut.readLock().lock();
+        try {
+            if (games.remove(gameID) != null) {
+                append(REMOVE, gameID, 0, event -> {
+                });
+            }
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        List<GameData> list = new ArrayList<>(games.size());
+        for (StoredGame stored : games.values()) {
+            list.add(stored.data);
+        }
+        return list;
+    }
+
+    @Override
+    public void setPlayer(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+        byte[] name = username == null ? null : utf8(username);
+        cut.readLock().lock();
+        try {
+            StoredGame stored = getStored(gameID);
+            stored.data = stored.data.withPlayer(color, username);
+            appendPlayer(gameID, color, name);
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    /**
+     * Records a move. Moves for one game must come from one thread at a time,
+     * as they do from the server's game actors.
+     */
+    @Override
+    public void addMove(int gameID, ChessMove move) throws DataAccessException {
+        int packed = FastBoard.pack(move);
+        cut.readLock().lock();
+        try {
+            StoredGame stored = getStored(gameID);
+            // the board only takes the move once it's logged, so a failed append leaves no trace of it
+            append(MOVE, gameID, 2, event -> event.putShort((short) packed));
+            stored.board.make(packed);
+        } finally {
+            cut.readLock().unlock();
+        }
+    }
+
+    /**
+     * Empties the store, leaving one empty snapshot. Don't call this while
+     * other threads are still changing games.
+     */
+    @Override
+    public void clear() throws DataAccessException {
+        cut.writeLock().lock();
+        try {
+            games.clear();
+            nextGameID.set(1);
+        } finally {
+            cut.writeLock().unlock();
+        }
+        snapshot();
+    }
+
+    /**
+     * Waits until every change made so far is on disk
+     */
+    public void flush() throws DataAccessException {
+        try {
+            log.flush();
+        } catch (IOException e) {
+            throw new DataAccessException("can't write game log", e);
+        }
+    }
+
+    // ----- snapshots -----
+
+    private record SnapshotEntry(GameData data, byte[] squares, int sideToMove, int castling, int enPassant,
+                                 int halfmoveClock, long[] positions) {
+    }
+
+    /**
+     * Starts a new log segment and writes a snapshot of every game as of the
+     * end of the previous one, then deletes the files the snapshot replaces
+     */
+    public void snapshot() throws DataAccessException {
+        snapshotLock.lock();
+        try {
+            if (closed) {
+                throw new DataAccessException("game store is closed");
+            }
+            takeSnapshot();
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    private void takeSnapshot() throws DataAccessException {
+        int covered;
+        int nextID;
+        List<SnapshotEntry> entries = new ArrayList<>(games.size());
+        cut.writeLock().lock();
+        try {
+            log.flush();
+            covered = segment + 1;
+            FileChannel next = FileChannel.open(logPath(covered), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            writeHeader(next);
+            next.position(HEADER_SIZE);
+            log.switchTo(next);
+            channel.close();
+            channel = next;
+            segment = covered;
+            segmentBytes.set(HEADER_SIZE);
+            nextID = nextGameID.get();
+            for (StoredGame stored : games.values()) {
+                FastBoard board = stored.board;
+                byte[] squares = new byte[64];
+                for (int sq = 0; sq < 64; sq++) {
+                    squares[sq] = (byte) board.pieceAt(sq);
+                }
+                entries.add(new SnapshotEntry(stored.data, squares, board.sideToMove(), board.castlingRights(),
+                        board.enPassantSquare(), board.halfmoveClock(), board.earlierPositions()));
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("can't start a new log segment", e);
+        } finally {
+            cut.writeLock().unlock();
+        }
+
+        try {
+            writeSnapshot(covered, nextID, entries);
+            for (int number : numbered(LOG_NAME)) {
+                if (number < covered) {
+                    Files.deleteIfExists(logPath(number));
+                }
+            }
+            for (int number : numbered(SNAPSHOT_NAME)) {
+                if (number < covered) {
+                    Files.deleteIfExists(snapshotPath(number));
+                }
+            }
+        } catch (IOException e) {
+            throw new DataAccessException("can't write snapshot", e);
+        }
+    }
+
+    private void writeSnapshot(int number, int nextID, List<SnapshotEntry> entries) throws IOException {
+        Path temp = dir.resolve("snapshot.tmp");
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putInt(nextID).putInt(entries.size());
+            for (SnapshotEntry entry : entries) {
+                GameData data = entry.data();
+                byte[] name = data.gameName().getBytes(StandardCharsets.UTF_8);
+                byte[] white = data.whiteUsername() == null ? null : data.whiteUsername().getBytes(StandardCharsets.UTF_8);
+                byte[] black = data.blackUsername() == null ? null : data.blackUsername().getBytes(StandardCharsets.UTF_8);
+                int size = 4 + 2 + name.length + 2 + (white == null ? 0 : 2 + white.length)
+                        + (black == null ? 0 : 2 + black.length) + 32 + 5 + 2 + 8 * entry.positions().length;
+                if (buffer.remaining() < size) {
+                    drain(out, buffer);
+                    if (buffer.capacity() < size) {
+                        //names can be up to 64 KiB each
+                        buffer = ByteBuffer.allocate(size);
+                    }
+                }
+                buffer.putInt(data.gameID());
+                putString(buffer, name);
+                buffer.put((byte) (white == null ? 0 : 1));
+                if (white != null) {
+                    putString(buffer, white);
+                }
+                buffer.put((byte) (black == null ? 0 : 1));
+                if (black != null) {
+                    putString(buffer, black);
+                }
+                byte[] squares = entry.squares();
+                for (int sq = 0; sq < 64; sq += 2) {
+                    buffer.put((byte) (squares[sq] | squares[sq + 1] << 4));
+                }
+                buffer.put((byte) entry.sideToMove());
+                buffer.put((byte) entry.castling());
+                buffer.put((byte) entry.enPassant());
+                buffer.putShort((short) entry.halfmoveClock());
+                putPositions(buffer, entry.positions());
+            }
+            if (buffer.remaining() < 4) {
+                drain(out, buffer);
+            }
+            buffer.putInt(SNAPSHOT_MAGIC);
+            drain(out, buffer);
+            out.force(true);
+        }
+        Files.move(temp, snapshotPath(number), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Waits for a snapshot in progress, then writes what is queued and closes the log
+     */
+    @Override
+    public void close() throws IOException {
+        snapshotLock.lock();
+        try {
+            closed = true;
+            try {
+                log.close();
+            } finally {
+                channel.close();
+            }
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
+
+    // ----- events -----
+
+    private interface EventWriter {
+        void write(ByteBuffer event);
+    }
+
+    /**
+     * Queues an event; call with the read lock held
+     */
+    private void append(byte type, int gameID, int size, EventWriter writer) throws DataAccessException {
+        ByteBuffer event = ByteBuffer.allocate(4 + 5 + size);
+        event.putInt(5 + size).put(type).putInt(gameID);
+        writer.write(event);
+        try {
+            log.append(event.array());
+        } catch (IOException e) {
+            throw new DataAccessException("can't write game log", e);
+        }
+        if (segmentBytes.addAndGet(event.capacity()) > snapshotThreshold && snapshotting.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("game-snapshot").start(() -> {
+                try {
+                    snapshot();
+                } catch (DataAccessException e) {
+                    if (!closed) {
+                        System.err.println("Snapshot failed, will retry after more moves: " + e.getMessage());
+                    }
+                } finally {
+                    snapshotting.set(false);
+                }
+            });
+        }
+    }
+
+    private void appendPlayer(int gameID, ChessGame.TeamColor color, byte[] name) throws DataAccessException {
+        append(PLAYER, gameID, 2 + (name == null ? 0 : 2 + name.length), event -> {
+            event.put((byte) color.ordinal());
+            event.put((byte) (name == null ? 0 : 1));
+            if (name != null) {
+                putString(event, name);
+            }
+        });
+    }
+
+    private StoredGame getStored(int gameID) throws DataAccessException {
+        StoredGame stored = games.get(gameID);
+        if (stored == null) {
+            throw new DataAccessException("no game " + gameID);
+        }
+        return stored;
+    }
+
+    private Path logPath(int number) {
+        return dir.resolve(String.format("log-%06d.dat", number));
+    }
+
+    private Path snapshotPath(int number) {
+        return dir.resolve(String.format("snapshot-%06d.dat", number));
+    }
+
+    private static void writeHeader(FileChannel out) throws IOException {
+        out.write(ByteBuffer.allocate(HEADER_SIZE).putInt(LOG_MAGIC).putInt(VERSION).flip(), 0);
+    }
+
+    private static byte[] utf8(String text) throws DataAccessException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new DataAccessException("too long to store: " + text.substring(0, 20) + "...");
+        }
+        return bytes;
+    }
+
+    private static ByteBuffer putString(ByteBuffer out, byte[] utf8) {
+        return out.putShort((short) utf8.length).put(utf8);
+    }
+
+    private static void putPositions(ByteBuffer out, long[] positions) {
+        out.putShort((short) positions.length);
+        for (long position : positions) {
+            out.putLong(position);
+        }
+    }
+
+    private static long[] getPositions(ByteBuffer in) {
+        long[] positions = new long[in.getShort() & 0xFFFF];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = in.getLong();
+        }
+        return positions;
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
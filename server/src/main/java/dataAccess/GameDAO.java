@@ -0,0 +1,54 @@
+package dataAccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import model.GameData;
+
+import java.util.Collection;
+
+/**
+ * Stores games, their players and the moves made in them.
+ * <p>
+ * The {@link ChessGame} held in a stored {@link GameData} is the live game
+ * the server moves in; {@link #addMove} only records a move that has already
+ * been validated and made on it, so stores never re-check moves.
+ */
+public interface GameDAO {
+
+    /**
+     * Stores a new game in its starting position
+     *
+     * @return the new game's ID
+     */
+    int createGame(String gameName, ChessGame game) throws DataAccessException;
+
+    /**
+     * @return the game, or null if there is no game with that ID
+     */
+    GameData getGame(int gameID) throws DataAccessException;
+
+    /**
+     * Stores a game under a chosen ID, e.g. one handed over by another
+     * server. The game's current position is stored as its starting position.
+     */
+    void putGame(GameData game) throws DataAccessException;
+
+    /**
+     * Forgets a game; removing a game that isn't stored does nothing
+     */
+    void removeGame(int gameID) throws DataAccessException;
+
+    Collection<GameData> listGames() throws DataAccessException;
+
+    /**
+     * Seats a player, or empties the seat when username is null
+     */
+    void setPlayer(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException;
+
+    /**
+     * Records a move that was just made on the stored game
+     */
+    void addMove(int gameID, ChessMove move) throws DataAccessException;
+
+    void clear() throws DataAccessException;
+}
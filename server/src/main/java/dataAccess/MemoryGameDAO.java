@@ -0,0 +1,67 @@
+package dataAccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import model.GameData;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps games in a concurrent map for as long as the server runs
+ */
+public class MemoryGameDAO implements GameDAO {
+
+    private final AtomicInteger nextGameID = new AtomicInteger(1);
+    private final Map<Integer, GameData> games = new ConcurrentHashMap<>();
+
+    @Override
+    public int createGame(String gameName, ChessGame game) {
+        int gameID = nextGameID.getAndIncrement();
+        games.put(gameID, new GameData(gameID, null, null, gameName, game));
+        return gameID;
+    }
+
+    @Override
+    public GameData getGame(int gameID) {
+        return games.get(gameID);
+    }
+
+    @Override
+    public void putGame(GameData game) {
+        games.put(game.gameID(), game);
+        nextGameID.accumulateAndGet(game.gameID() + 1, Math::max);
+    }
+
+    @Override
+    public void removeGame(int gameID) {
+        games.remove(gameID);
+    }
+
+    @Override
+    public Collection<GameData> listGames() {
+        return new ArrayList<>(games.values());
+    }
+
+    @Override
+    public void setPlayer(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+        if (games.computeIfPresent(gameID, (id, data) -> data.withPlayer(color, username)) == null) {
+            throw new DataAccessException("no game " + gameID);
+        }
+    }
+
+    @Override
+    public void addMove(int gameID, ChessMove move) throws DataAccessException {
+        if (!games.containsKey(gameID)) {
+            throw new DataAccessException("no game " + gameID);
+        }
+    }
+
+    @Override
+    public void clear() {
+        games.clear();
+    }
+}
@@ -0,0 +1,165 @@
+package dataAccess;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends records to a file from a background thread.
+ * <p>
+ * {@link #append} only queues a record, so callers never wait for the disk.
+ * Once per flush interval the flusher takes everything queued, writes it with
+ * one gathering write and forces it to disk once, so a record is durable at
+ * most about one interval after it was appended and the cost of an fsync is
+ * shared by every record in the batch. {@link #flush()} waits for everything
+ * appended so far and cuts the current interval short. When the queue is
+ * full, appends wait for the flusher rather than letting memory grow without
+ * bound.
+ */
+final class WriteBehindLog {
+
+    private final long flushIntervalNanos;
+    private final int capacity;
+    private final Thread flusher;
+
+    private FileChannel channel;
+    private List<byte[]> pending = new ArrayList<>();
+    private long appended;
+    private long durable;
+    private boolean closed;
+    private IOException failure;
+
+    /**
+     * @param channel  the file to append to, positioned at its end
+     * @param capacity the most records that may wait to be written
+     */
+    WriteBehindLog(FileChannel channel, Duration flushInterval, int capacity) {
+        this.channel = channel;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.capacity = capacity;
+        this.flusher = Thread.ofPlatform().daemon().name("write-behind-flusher").start(this::run);
+    }
+
+    synchronized void append(byte[] record) throws IOException {
+        while (pending.size() >= capacity && failure == null && !closed) {
+            LockSupport.unpark(flusher);
+            waitForFlusher();
+        }
+        checkUsable();
+        pending.add(record);
+        appended++;
+    }
+
+    /**
+     * Waits until every record appended so far is on disk
+     */
+    synchronized void flush() throws IOException {
+        long target = appended;
+        while (durable < target && failure == null) {
+            LockSupport.unpark(flusher);
+            waitForFlusher();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Sends later records to another file. Call {@link #flush()} first, and
+     * make sure nothing is appended until this returns, or records appended in
+     * between may go to either file.
+     */
+    synchronized void switchTo(FileChannel next) {
+        channel = next;
+    }
+
+    /**
+     * Writes whatever is queued and stops the flusher; the channel is left open
+     */
+    void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+        }
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted closing the log");
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private void checkUsable() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (closed) {
+            throw new IOException("log is closed");
+        }
+    }
+
+    private void waitForFlusher() throws InterruptedIOException {
+        try {
+            wait(flushIntervalNanos / 1_000_000 + 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted waiting for the log");
+        }
+    }
+
+    private void run() {
+        List<byte[]> batch = new ArrayList<>();
+        boolean stopping = false;
+        while (!stopping) {
+            LockSupport.parkNanos(this, flushIntervalNanos);
+            FileChannel target;
+            synchronized (this) {
+                List<byte[]> swap = pending;
+                pending = batch;
+                batch = swap;
+                stopping = closed;
+                target = channel;
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+            try {
+                write(target, batch);
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                return;
+            }
+            synchronized (this) {
+                durable += batch.size();
+                notifyAll();
+            }
+            batch.clear();
+        }
+    }
+
+    private static void write(FileChannel channel, List<byte[]> batch) throws IOException {
+        ByteBuffer[] buffers = new ByteBuffer[batch.size()];
+        long remaining = 0;
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = ByteBuffer.wrap(batch.get(i));
+            remaining += buffers[i].remaining();
+        }
+        while (remaining > 0) {
+            remaining -= channel.write(buffers);
+        }
+        channel.force(false);
+    }
+}
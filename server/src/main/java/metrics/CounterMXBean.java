@@ -0,0 +1,9 @@
+package metrics;
+
+/**
+ * How a {@link Counter} appears over JMX
+ */
+public interface CounterMXBean {
+
+    long getCount();
+}
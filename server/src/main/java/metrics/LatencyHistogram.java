@@ -0,0 +1,140 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies in nanoseconds, bucketed the way HdrHistogram does it: every
+ * power of two is split into 32 equal buckets, so any recorded value is
+ * known to within about 3% while the whole range up to over an hour fits in
+ * about 1,200 counters. Recording is a bucket index computed from the
+ * value's leading zeros plus a few atomic increments, with no locks and no
+ * allocation.
+ * <p>
+ * Percentiles are read from the live counts, so a summary taken while
+ * values are recorded may be off by those few values.
+ */
+public final class LatencyHistogram implements LatencyHistogramMXBean {
+
+    /**
+     * A histogram's statistics at one moment
+     */
+    public record Summary(long count, long meanNanos, long p50Nanos, long p90Nanos, long p99Nanos, long p999Nanos,
+                          long maxNanos) {
+    }
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_BITS = 42;
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKETS = (MAX_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        buckets.incrementAndGet(index(value));
+        count.increment();
+        total.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Records the time since a {@link System#nanoTime()} reading
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public Summary summary() {
+        long[] counts = new long[BUCKETS];
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            seen += counts[i];
+        }
+        long sum = total.sum();
+        long largest = max.get();
+        return new Summary(seen, seen == 0 ? 0 : sum / seen, percentile(counts, seen, 0.5, largest),
+                percentile(counts, seen, 0.9, largest), percentile(counts, seen, 0.99, largest),
+                percentile(counts, seen, 0.999, largest), largest);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public long getMeanNanos() {
+        return summary().meanNanos();
+    }
+
+    @Override
+    public long getP50Nanos() {
+        return summary().p50Nanos();
+    }
+
+    @Override
+    public long getP90Nanos() {
+        return summary().p90Nanos();
+    }
+
+    @Override
+    public long getP99Nanos() {
+        return summary().p99Nanos();
+    }
+
+    @Override
+    public long getP999Nanos() {
+        return summary().p999Nanos();
+    }
+
+    @Override
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Values below 64 get a bucket each; above that, a value's top six bits
+     * pick one of the 32 buckets of its power of two
+     */
+    static int index(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return shift * SUB_BUCKETS + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the largest value that falls in a bucket
+     */
+    static long highestValue(int index) {
+        int shift = Math.max(0, index / SUB_BUCKETS - 1);
+        long top = index - (long) shift * SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+
+    /**
+     * @return the top of the bucket holding the percentile, but no more than
+     * the largest value actually recorded
+     */
+    private static long percentile(long[] counts, long seen, double fraction, long largest) {
+        if (seen == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(seen * fraction));
+        long running = 0;
+        for (int i = 0; i < counts.length; i++) {
+            running += counts[i];
+            if (running >= rank) {
+                return Math.min(highestValue(i), largest);
+            }
+        }
+        return largest;
+    }
+}
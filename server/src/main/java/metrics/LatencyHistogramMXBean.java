@@ -0,0 +1,21 @@
+package metrics;
+
+/**
+ * How a {@link LatencyHistogram} appears over JMX
+ */
+public interface LatencyHistogramMXBean {
+
+    long getCount();
+
+    long getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP90Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+}
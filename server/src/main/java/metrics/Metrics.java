@@ -0,0 +1,63 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The server's counters and latency histograms, by name.
+ * <p>
+ * Each metric is created on first use and registered with the platform
+ * MBean server as {@code chess:type=Latency,name=...} or
+ * {@code chess:type=Counter,name=...}, so it can be watched with JConsole or
+ * any JMX client. Code on a hot path should look its metrics up once and
+ * keep them in a field, which leaves recording free of map lookups.
+ */
+public final class Metrics {
+
+    /**
+     * Every metric at one moment, in name order
+     */
+    public record Report(Map<String, LatencyHistogram.Summary> latencies, Map<String, Long> counters) {
+    }
+
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+
+    private Metrics() {
+    }
+
+    public static LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = HISTOGRAMS.get(name);
+        return histogram != null ? histogram
+                : HISTOGRAMS.computeIfAbsent(name, key -> register("Latency", key, new LatencyHistogram()));
+    }
+
+    public static Counter counter(String name) {
+        Counter counter = COUNTERS.get(name);
+        return counter != null ? counter
+                : COUNTERS.computeIfAbsent(name, key -> register("Counter", key, new Counter()));
+    }
+
+    public static Report report() {
+        Map<String, LatencyHistogram.Summary> latencies = new TreeMap<>();
+        HISTOGRAMS.forEach((name, histogram) -> latencies.put(name, histogram.summary()));
+        Map<String, Long> counters = new TreeMap<>();
+        COUNTERS.forEach((name, counter) -> counters.put(name, counter.getCount()));
+        return new Report(latencies, counters);
+    }
+
+    private static <T> T register(String type, String name, T metric) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metric,
+                    new ObjectName("chess:type=" + type + ",name=" + ObjectName.quote(name)));
+        } catch (JMException e) {
+            // the metric still works over HTTP
+            System.err.println("Can't register " + name + " with JMX: " + e.getMessage());
+        }
+        return metric;
+    }
+}
@@ -0,0 +1,22 @@
+package model;
+
+import chess.ChessGame;
+
+/**
+ * A game hosted by the server along with who is playing each side
+ *
+ * @param whiteUsername the white player, or null while the seat is open
+ * @param blackUsername the black player, or null while the seat is open
+ */
+public record GameData(int gameID, String whiteUsername, String blackUsername, String gameName, ChessGame game) {
+
+    public String username(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? whiteUsername : blackUsername;
+    }
+
+    public GameData withPlayer(ChessGame.TeamColor color, String username) {
+        return color == ChessGame.TeamColor.WHITE
+                ? new GameData(gameID, username, blackUsername, gameName, game)
+                : new GameData(gameID, whiteUsername, username, gameName, game);
+    }
+}
@@ -0,0 +1,214 @@
+package model;
+
+import chess.*;
+import chess.notation.Fen;
+import com.google.gson.annotations.JsonAdapter;
+
+/**
+ * An immutable picture of a game after some move, which any number of
+ * threads can read and serialize without locking the game.
+ * <p>
+ * The board is kept as eight rows of {@link FastBoard} piece codes. A new
+ * snapshot only copies the rows that changed since the previous one and
+ * shares the rest, so most moves copy one or two rows. The Zobrist hash is
+ * carried forward the same way, along with the castling rights and en
+ * passant square, and equals {@link FastBoard#hash()} for the same position.
+ */
+@JsonAdapter(GameSnapshotAdapter.class)
+public final class GameSnapshot {
+
+    private static final byte[] EMPTY_ROW = new byte[8];
+    private static final GameSnapshot EMPTY = new GameSnapshot(
+            new byte[][]{EMPTY_ROW, EMPTY_ROW, EMPTY_ROW, EMPTY_ROW, EMPTY_ROW, EMPTY_ROW, EMPTY_ROW, EMPTY_ROW},
+            ChessGame.TeamColor.WHITE, 0, -1, 0, GameStatus.ACTIVE, 0);
+
+    private final byte[][] rows;
+    private final ChessGame.TeamColor turn;
+    private final int castling;
+    private final int enPassant;
+    private final int halfmoveClock;
+    private final GameStatus status;
+    private final long hash;
+    private String placement;
+    private AttackMap attackMap;
+
+    private GameSnapshot(byte[][] rows, ChessGame.TeamColor turn, int castling, int enPassant, int halfmoveClock,
+                         GameStatus status, long hash) {
+        this.rows = rows;
+        this.turn = turn;
+        this.castling = castling;
+        this.enPassant = enPassant;
+        this.halfmoveClock = halfmoveClock;
+        this.status = status;
+        this.hash = hash;
+    }
+
+    public static GameSnapshot of(ChessGame game, GameStatus status) {
+        return EMPTY.next(game, status);
+    }
+
+    /**
+     * @return a snapshot of the game as it is now, sharing every row that
+     * hasn't changed since this snapshot
+     */
+    public GameSnapshot next(ChessGame game, GameStatus status) {
+        ChessBoard board = game.getBoard();
+        byte[][] nextRows = new byte[8][];
+        long nextHash = hash;
+        for (int r = 0; r < 8; r++) {
+            byte[] row = rows[r];
+            byte[] copy = null;
+            for (int c = 0; c < 8; c++) {
+                ChessPiece piece = board.getPiece(r + 1, c + 1);
+                int code = piece == null ? 0 : FastBoard.code(piece);
+                if (code != row[c]) {
+                    if (copy == null) {
+                        copy = row.clone();
+                    }
+                    copy[c] = (byte) code;
+                    nextHash ^= Zobrist.piece(row[c], r * 8 + c) ^ Zobrist.piece(code, r * 8 + c);
+                }
+            }
+            nextRows[r] = copy == null ? row : copy;
+        }
+        if (game.getTeamTurn() != turn) {
+            nextHash ^= Zobrist.blackToMove();
+        }
+        int nextCastling = board.getCastlingRights();
+        int nextEnPassant = board.getEnPassantSquare();
+        nextHash ^= Zobrist.castling(castling) ^ Zobrist.castling(nextCastling)
+                ^ Zobrist.enPassant(enPassant) ^ Zobrist.enPassant(nextEnPassant);
+        return new GameSnapshot(nextRows, game.getTeamTurn(), nextCastling, nextEnPassant, game.getHalfmoveClock(),
+                status, nextHash);
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return turn;
+    }
+
+    public GameStatus getStatus() {
+        return status;
+    }
+
+    /**
+     * @return the castling rights still held, as a mask of {@link ChessBoard#WHITE_KINGSIDE} and the others
+     */
+    public int castlingRights() {
+        return castling;
+    }
+
+    /**
+     * @return the rights the kings and rooks on their home squares would allow
+     * @see ChessBoard#castlingAvailable()
+     */
+    public int castlingAvailable() {
+        int rights = 0;
+        if (rows[0][4] == (FastBoard.WHITE << 3 | FastBoard.KING)) {
+            rights |= (rows[0][7] == (FastBoard.WHITE << 3 | FastBoard.ROOK) ? ChessBoard.WHITE_KINGSIDE : 0)
+                    | (rows[0][0] == (FastBoard.WHITE << 3 | FastBoard.ROOK) ? ChessBoard.WHITE_QUEENSIDE : 0);
+        }
+        if (rows[7][4] == (FastBoard.BLACK << 3 | FastBoard.KING)) {
+            rights |= (rows[7][7] == (FastBoard.BLACK << 3 | FastBoard.ROOK) ? ChessBoard.BLACK_KINGSIDE : 0)
+                    | (rows[7][0] == (FastBoard.BLACK << 3 | FastBoard.ROOK) ? ChessBoard.BLACK_QUEENSIDE : 0);
+        }
+        return rights;
+    }
+
+    /**
+     * @return the square a pawn can be taken on en passant, or -1 if there is none
+     */
+    public int enPassantSquare() {
+        return enPassant;
+    }
+
+    /**
+     * @return the number of moves since the last pawn move or capture
+     */
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the Zobrist hash of the pieces, side to move and rights
+     */
+    public long hash() {
+        return hash;
+    }
+
+    public ChessPiece getPiece(ChessPosition position) {
+        return FastBoard.piece(rows[position.getRow() - 1][position.getColumn() - 1]);
+    }
+
+    /**
+     * @return a new mutable board holding the same pieces and rights
+     */
+    public ChessBoard toBoard() {
+        ChessBoard board = new ChessBoard();
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                if (rows[r][c] != 0) {
+                    board.addPiece(new ChessPosition(r + 1, c + 1), FastBoard.piece(rows[r][c]));
+                }
+            }
+        }
+        board.setCastlingRights(castling);
+        board.setEnPassant(enPassant < 0 ? null : FastBoard.position(enPassant));
+        return board;
+    }
+
+    /**
+     * @return a new {@link FastBoard} in this position, a much cheaper copy
+     * than {@link #toGame()} for generating moves
+     */
+    public FastBoard toFastBoard() {
+        FastBoard board = new FastBoard();
+        for (int r = 0; r < 8; r++) {
+            for (int c = 0; c < 8; c++) {
+                if (rows[r][c] != 0) {
+                    board.put(r * 8 + c, rows[r][c]);
+                }
+            }
+        }
+        board.setSideToMove(FastBoard.color(turn));
+        board.setCastlingRights(castling);
+        board.setEnPassantSquare(enPassant);
+        board.setHalfmoveClock(halfmoveClock);
+        return board;
+    }
+
+    /**
+     * @return a new mutable game in this position, e.g. for analysis; it
+     * knows none of the positions before this one
+     */
+    public ChessGame toGame() {
+        ChessGame game = new ChessGame();
+        game.setBoard(toBoard());
+        game.setTeamTurn(turn);
+        game.setHalfmoveClock(halfmoveClock);
+        return game;
+    }
+
+    /**
+     * @return the squares each side attacks, worked out once per snapshot
+     */
+    public AttackMap attackMap() {
+        AttackMap result = attackMap;
+        if (result == null) {
+            result = toBoard().getAttackMap();
+            attackMap = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return the FEN piece placement, worked out once per snapshot
+     */
+    public String placement() {
+        String result = placement;
+        if (result == null) {
+            result = Fen.placement(toBoard());
+            placement = result;
+        }
+        return result;
+    }
+}
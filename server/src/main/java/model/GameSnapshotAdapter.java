@@ -0,0 +1,46 @@
+package model;
+
+import chess.ChessGame;
+import chess.FastBoard;
+import chess.notation.Fen;
+import chess.notation.Uci;
+import chess.serialization.ChessGson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link GameSnapshot} in the same shape as a {@link ChessGame}, so
+ * clients read either one the same way
+ */
+public class GameSnapshotAdapter extends TypeAdapter<GameSnapshot> {
+
+    @Override
+    public void write(JsonWriter out, GameSnapshot snapshot) throws IOException {
+        if (snapshot == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginObject();
+        out.name("board").value(snapshot.placement());
+        out.name("turn").value(snapshot.getTeamTurn().name());
+        if (snapshot.castlingRights() != snapshot.castlingAvailable()) {
+            out.name("castling").value(Fen.castling(snapshot.castlingRights()));
+        }
+        if (snapshot.enPassantSquare() >= 0) {
+            out.name("enPassant").value(Uci.square(FastBoard.position(snapshot.enPassantSquare())));
+        }
+        if (snapshot.halfmoveClock() != 0) {
+            out.name("halfmoveClock").value(snapshot.halfmoveClock());
+        }
+        out.endObject();
+    }
+
+    @Override
+    public GameSnapshot read(JsonReader in) throws IOException {
+        ChessGame game = ChessGson.gson().getAdapter(ChessGame.class).read(in);
+        return game == null ? null : GameSnapshot.of(game, GameStatus.of(game));
+    }
+}
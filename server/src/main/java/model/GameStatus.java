@@ -0,0 +1,47 @@
+package model;
+
+import chess.ChessGame;
+
+/**
+ * Where a game stands for the team whose turn it is
+ */
+public enum GameStatus {
+    ACTIVE,
+    CHECK,
+    CHECKMATE,
+    STALEMATE,
+    /**
+     * Drawn because the same position occurred five times
+     */
+    FIVEFOLD_REPETITION,
+    /**
+     * Drawn because seventy-five moves each passed without a pawn move or capture
+     */
+    SEVENTY_FIVE_MOVE_RULE;
+
+    public boolean isOver() {
+        return this != ACTIVE && this != CHECK;
+    }
+
+    /**
+     * Works out a game's status; a checkmate or stalemate stands even on a
+     * move that also draws by repetition or the move rule. Only the draws
+     * that need no claim end a game: there is no way to claim a draw yet, so
+     * threefold repetition and the fifty-move rule, which merely let a player
+     * claim one, play on until fivefold repetition or seventy-five moves.
+     */
+    public static GameStatus of(ChessGame game) {
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        boolean check = game.isInCheck(turn);
+        if (check ? game.isInCheckmate(turn) : game.isInStalemate(turn)) {
+            return check ? CHECKMATE : STALEMATE;
+        }
+        if (game.isDrawByFivefoldRepetition()) {
+            return FIVEFOLD_REPETITION;
+        }
+        if (game.isDrawBySeventyFiveMoveRule()) {
+            return SEVENTY_FIVE_MOVE_RULE;
+        }
+        return check ? CHECK : ACTIVE;
+    }
+}
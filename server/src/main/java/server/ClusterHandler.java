@@ -0,0 +1,66 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import server.cluster.Cluster;
+import service.GameService;
+import service.ServiceException;
+
+import java.io.IOException;
+
+import static service.Requests.*;
+
+/**
+ * Routes the {@code /cluster} endpoints of a server that is part of a {@link Cluster}:
+ * <ul>
+ *     <li>{@code GET /cluster} returns this node and every node in the cluster</li>
+ *     <li>{@code PUT /cluster} sets the cluster's nodes on every old and new node,
+ *     which then hand off the games that hash elsewhere</li>
+ *     <li>{@code POST /cluster/games} takes over games handed off by another node</li>
+ * </ul>
+ * Every request must carry the cluster's secret.
+ */
+public class ClusterHandler extends JsonHandler {
+
+    private static final Endpoint MEMBERSHIP = new Endpoint("/cluster");
+    private static final Endpoint GAMES = new Endpoint("/cluster/games");
+
+    private final GameService gameService;
+    private final Cluster cluster;
+
+    public ClusterHandler(GameService gameService, Cluster cluster) {
+        this.gameService = gameService;
+        this.cluster = cluster;
+    }
+
+    @Override
+    Endpoint endpoint(String[] path) {
+        return path.length == 1 ? MEMBERSHIP : GAMES;
+    }
+
+    @Override
+    Object route(HttpExchange exchange) throws ServiceException, IOException {
+        if (!cluster.isTrusted(exchange)) {
+            throw new ServiceException(401, "unauthorized");
+        }
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals("/cluster")) {
+            if (method.equals("GET")) {
+                return cluster.membership();
+            }
+            requireMethod(method, "PUT");
+            Cluster.MembershipRequest request = readBody(exchange, Cluster.MembershipRequest.class);
+            return cluster.setNodes(request == null ? null : request.nodes(), !cluster.isFromPeer(exchange));
+        }
+        if (path.equals("/cluster/games")) {
+            requireMethod(method, "POST");
+            MoveGamesRequest request = readBody(exchange, MoveGamesRequest.class);
+            if (request == null || request.games() == null) {
+                throw new ServiceException(400, "bad request");
+            }
+            gameService.adopt(request.games());
+            return new MoveGamesResult(request.games().size());
+        }
+        throw new ServiceException(404, "not found");
+    }
+}
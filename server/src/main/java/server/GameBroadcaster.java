@@ -0,0 +1,153 @@
+package server;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.notation.Uci;
+import chess.serialization.ChessGson;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.GameSnapshot;
+import model.GameStatus;
+import server.websocket.WebSocketConnection;
+import server.websocket.WebSocketHandler;
+import service.GameListener;
+import service.GameService;
+import service.ServiceException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static service.Requests.GameStatusResult;
+
+/**
+ * Pushes game updates to everyone watching a game over a WebSocket opened on
+ * {@code /game/{id}}, players and spectators alike.
+ * <p>
+ * A new subscriber is sent a {@code LOAD_GAME} update with the current board,
+ * then a {@code MOVE} update after every move. Each update is serialized and
+ * framed once and the same frame is queued on every subscriber, so the cost of
+ * a move doesn't grow with JSON work per spectator, and a subscriber that
+ * can't keep up is dropped by its connection instead of delaying the others.
+ * Subscribing and broadcasting both run on the game's actor, so a subscriber
+ * sees each move exactly once after its {@code LOAD_GAME}.
+ */
+public class GameBroadcaster implements WebSocketHandler, GameListener {
+
+    /**
+     * @param type    {@code LOAD_GAME} or {@code MOVE}
+     * @param move    the move just made, or null for {@code LOAD_GAME}
+     * @param message a human-readable description of the update
+     */
+    public record GameUpdate(String type, int gameID, ChessMove move, GameSnapshot game, GameStatus status,
+                             String message) {
+    }
+
+    private static final LatencyHistogram SERIALIZE = Metrics.histogram("serialize.update");
+
+    private final GameService gameService;
+    private final Map<Integer, Set<WebSocketConnection>> subscribers = new ConcurrentHashMap<>();
+
+    public GameBroadcaster(GameService gameService) {
+        this.gameService = gameService;
+        gameService.addListener(this);
+    }
+
+    @Override
+    public boolean onOpen(WebSocketConnection connection, String path) {
+        if (!path.startsWith("/game/")) {
+            return false;
+        }
+        int gameID;
+        try {
+            gameID = Integer.parseInt(path.substring("/game/".length()));
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        connection.setAttachment(gameID);
+        try {
+            //the subscriber set is only made once the game is known to exist
+            gameService.withStatus(gameID, status -> {
+                subscribers.compute(gameID, (id, watchers) -> {
+                    Set<WebSocketConnection> set = watchers == null ? ConcurrentHashMap.newKeySet() : watchers;
+                    set.add(connection);
+                    return set;
+                });
+                connection.send(frame(new GameUpdate("LOAD_GAME", gameID, null, status.game(), status.status(),
+                        loaded(gameID, status.game(), status.status()))));
+            });
+        } catch (ServiceException e) {
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void onText(WebSocketConnection connection, String text) {
+        // subscribers only listen; moves are made through the HTTP API
+    }
+
+    @Override
+    public void onClose(WebSocketConnection connection) {
+        if (connection.getAttachment() instanceof Integer gameID) {
+            unsubscribe(gameID, connection);
+        }
+    }
+
+    /**
+     * Removes a subscriber, and the game's set along with its last one
+     */
+    private void unsubscribe(int gameID, WebSocketConnection connection) {
+        subscribers.computeIfPresent(gameID, (id, watchers) -> {
+            watchers.remove(connection);
+            return watchers.isEmpty() ? null : watchers;
+        });
+    }
+
+    @Override
+    public void moveMade(int gameID, ChessMove move, GameStatusResult status) {
+        Set<WebSocketConnection> watchers = subscribers.get(gameID);
+        if (watchers == null || watchers.isEmpty()) {
+            return;
+        }
+        ChessGame.TeamColor mover = status.game().getTeamTurn() == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        byte[] frame = frame(new GameUpdate("MOVE", gameID, move, status.game(), status.status(),
+                mover + " played " + Uci.move(move) + describe(status.game(), status.status())));
+        for (WebSocketConnection connection : watchers) {
+            if (!connection.send(frame)) {
+                unsubscribe(gameID, connection);
+            }
+        }
+    }
+
+    /**
+     * @return e.g. "Game 7, BLACK to move, BLACK is in check" or "Game 7 is over, drawn by fivefold repetition"
+     */
+    private static String loaded(int gameID, GameSnapshot game, GameStatus status) {
+        String state = status.isOver() ? " is over" : ", " + game.getTeamTurn() + " to move";
+        return "Game " + gameID + state + describe(game, status);
+    }
+
+    /**
+     * @return how a move left the game, starting with ", ", or nothing while it simply goes on
+     */
+    private static String describe(GameSnapshot game, GameStatus status) {
+        ChessGame.TeamColor turn = game.getTeamTurn();
+        return switch (status) {
+            case ACTIVE -> "";
+            case CHECK -> ", " + turn + " is in check";
+            case CHECKMATE -> ", " + turn + " is checkmated";
+            case STALEMATE -> ", " + turn + " is stalemated";
+            case FIVEFOLD_REPETITION -> ", drawn by fivefold repetition";
+            case SEVENTY_FIVE_MOVE_RULE -> ", drawn by the seventy-five-move rule";
+        };
+    }
+
+    private static byte[] frame(GameUpdate update) {
+        long start = System.nanoTime();
+        byte[] frame = WebSocketConnection.textFrame(ChessGson.gson().toJson(update));
+        SERIALIZE.recordSince(start);
+        return frame;
+    }
+}
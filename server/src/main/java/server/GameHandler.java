@@ -0,0 +1,131 @@
+package server;
+
+import chess.ChessPosition;
+import chess.notation.Uci;
+import com.sun.net.httpserver.HttpExchange;
+import server.cluster.Cluster;
+import service.GameService;
+import service.ServiceException;
+
+import java.io.IOException;
+
+import static service.Requests.*;
+
+/**
+ * Routes the {@code /game} endpoints to the {@link GameService}:
+ * <ul>
+ *     <li>{@code POST /game} creates a game</li>
+ *     <li>{@code GET /game/{id}} returns the board and status</li>
+ *     <li>{@code POST /game/{id}/join} takes a seat and returns a player token</li>
+ *     <li>{@code POST /game/{id}/move} makes a move for the player whose token is in the Authorization header</li>
+ *     <li>{@code GET /game/{id}/moves[?from=e2]} lists the legal moves of the side to move</li>
+ *     <li>{@code GET /game/{id}/threats} lists the squares each side attacks and the side to move's attacked pieces</li>
+ * </ul>
+ * Bodies are JSON, and failures are answered with {@code {"message": "Error: ..."}}.
+ * In a {@link Cluster}, requests for games hosted on other nodes are passed on to them.
+ */
+public class GameHandler extends JsonHandler {
+
+    private static final Endpoint CREATE = new Endpoint("/game");
+    private static final Endpoint STATUS = new Endpoint("/game/{id}");
+    private static final Endpoint JOIN = new Endpoint("/game/{id}/join");
+    private static final Endpoint MOVE = new Endpoint("/game/{id}/move");
+    private static final Endpoint MOVES = new Endpoint("/game/{id}/moves");
+    private static final Endpoint THREATS = new Endpoint("/game/{id}/threats");
+    private static final Endpoint OTHER = new Endpoint("/game/other");
+
+    private final GameService gameService;
+    private final Cluster cluster;
+
+    public GameHandler(GameService gameService) {
+        this(gameService, null);
+    }
+
+    /**
+     * @param cluster the cluster this server is part of, or null if it runs alone
+     */
+    public GameHandler(GameService gameService, Cluster cluster) {
+        this.gameService = gameService;
+        this.cluster = cluster;
+    }
+
+    @Override
+    Endpoint endpoint(String[] path) {
+        return switch (path.length) {
+            case 1 -> CREATE;
+            case 2 -> STATUS;
+            case 3 -> switch (path[2]) {
+                case "join" -> JOIN;
+                case "move" -> MOVE;
+                case "moves" -> MOVES;
+                case "threats" -> THREATS;
+                default -> OTHER;
+            };
+            default -> OTHER;
+        };
+    }
+
+    @Override
+    Object route(HttpExchange exchange) throws ServiceException, IOException {
+        if (cluster != null && cluster.relay(exchange)) {
+            return null;
+        }
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+        if (path.length == 1) {
+            requireMethod(method, "POST");
+            CreateGameRequest request = readBody(exchange, CreateGameRequest.class);
+            return cluster == null
+                    ? gameService.createGame(request)
+                    : gameService.createGame(request, cluster.newGameID());
+        }
+        int gameID = parseGameID(path[1]);
+        if (path.length == 2) {
+            requireMethod(method, "GET");
+            return gameService.getStatus(gameID);
+        }
+        if (path.length == 3) {
+            switch (path[2]) {
+                case "join" -> {
+                    requireMethod(method, "POST");
+                    return gameService.joinGame(gameID, readBody(exchange, JoinGameRequest.class));
+                }
+                case "move" -> {
+                    requireMethod(method, "POST");
+                    return gameService.makeMove(gameID, exchange.getRequestHeaders().getFirst("Authorization"),
+                            readBody(exchange, MoveRequest.class));
+                }
+                case "moves" -> {
+                    requireMethod(method, "GET");
+                    return gameService.legalMoves(gameID, parseFrom(exchange.getRequestURI().getRawQuery()));
+                }
+                case "threats" -> {
+                    requireMethod(method, "GET");
+                    return gameService.threats(gameID);
+                }
+                default -> {
+                }
+            }
+        }
+        throw new ServiceException(404, "not found");
+    }
+
+    private static int parseGameID(String text) throws ServiceException {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw new ServiceException(404, "no game " + text);
+        }
+    }
+
+    private static ChessPosition parseFrom(String query) {
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("from=")) {
+                    return Uci.parseSquare(parameter.substring(5));
+                }
+            }
+        }
+        return null;
+    }
+}
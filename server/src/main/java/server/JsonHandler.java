@@ -0,0 +1,127 @@
+package server;
+
+import chess.serialization.ChessGson;
+import com.google.gson.JsonParseException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import service.ServiceException;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Answers requests with JSON bodies, turning failures into
+ * {@code {"message": "Error: ..."}} with a fitting status code.
+ * <p>
+ * Each request is timed against its endpoint's latency histogram, and
+ * failures are counted per endpoint.
+ */
+abstract class JsonHandler implements HttpHandler {
+
+    /**
+     * The metrics of one route, looked up once so requests only record
+     */
+    static final class Endpoint {
+        private final LatencyHistogram latency;
+        private final Counter errors;
+
+        Endpoint(String path) {
+            latency = Metrics.histogram("http." + path);
+            errors = Metrics.counter("http." + path + ".errors");
+        }
+    }
+
+    private record ErrorResult(String message) {
+    }
+
+    private static final LatencyHistogram SERIALIZE = Metrics.histogram("serialize.response");
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        Endpoint endpoint = endpoint(exchange.getRequestURI().getPath().substring(1).split("/"));
+        try {
+            if (!respond(exchange)) {
+                endpoint.errors.increment();
+            }
+        } finally {
+            endpoint.latency.recordSince(start);
+        }
+    }
+
+    /**
+     * @return whether the request succeeded
+     */
+    private boolean respond(HttpExchange exchange) throws IOException {
+        int status = 200;
+        Object result;
+        try {
+            result = route(exchange);
+            if (result == null) {
+                return true;
+            }
+        } catch (ServiceException e) {
+            status = e.getStatusCode();
+            if (e.getCause() != null) {
+                logInternalError(exchange, e.getCause());
+            }
+            result = new ErrorResult("Error: " + e.getMessage());
+        } catch (JsonParseException | IllegalArgumentException e) {
+            status = 400;
+            result = new ErrorResult("Error: bad request");
+        } catch (RuntimeException e) {
+            logInternalError(exchange, e);
+            status = 500;
+            result = new ErrorResult("Error: internal error");
+        }
+        long start = System.nanoTime();
+        byte[] body = ChessGson.gson().toJson(result).getBytes(StandardCharsets.UTF_8);
+        SERIALIZE.recordSince(start);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+        return status < 400;
+    }
+
+    /**
+     * Writes a failure to the server's log, where its details stay rather
+     * than going to the client
+     */
+    private static void logInternalError(HttpExchange exchange, Throwable e) {
+        System.err.println("Internal error in " + exchange.getRequestMethod() + " " + exchange.getRequestURI());
+        e.printStackTrace();
+    }
+
+    /**
+     * @param path the request path's segments
+     * @return the endpoint a request is timed against
+     */
+    abstract Endpoint endpoint(String[] path);
+
+    /**
+     * @return the response body, or null if the response has already been sent
+     */
+    abstract Object route(HttpExchange exchange) throws ServiceException, IOException;
+
+    static void requireMethod(String method, String expected) throws ServiceException {
+        if (!method.equals(expected)) {
+            throw new ServiceException(405, "method not allowed");
+        }
+    }
+
+    static <T> T readBody(HttpExchange exchange, Class<T> type) {
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            return ChessGson.gson().fromJson(reader, type);
+        } catch (IOException e) {
+            throw new JsonParseException(e);
+        }
+    }
+}
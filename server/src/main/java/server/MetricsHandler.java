@@ -0,0 +1,25 @@
+package server;
+
+import com.sun.net.httpserver.HttpExchange;
+import metrics.Metrics;
+import service.ServiceException;
+
+/**
+ * Serves {@code GET /metrics}: every counter, and the count, mean,
+ * percentiles and maximum of every latency histogram in nanoseconds
+ */
+public class MetricsHandler extends JsonHandler {
+
+    private static final Endpoint METRICS = new Endpoint("/metrics");
+
+    @Override
+    Endpoint endpoint(String[] path) {
+        return METRICS;
+    }
+
+    @Override
+    Object route(HttpExchange exchange) throws ServiceException {
+        requireMethod(exchange.getRequestMethod(), "GET");
+        return Metrics.report();
+    }
+}
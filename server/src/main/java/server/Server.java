@@ -0,0 +1,120 @@
+package server;
+
+import com.sun.net.httpserver.HttpServer;
+import server.cluster.Cluster;
+import server.websocket.WebSocketServer;
+import service.GameService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The chess game service, served by the JDK's built-in {@link HttpServer}.
+ * <p>
+ * Every request runs on its own virtual thread, so a request blocked on a
+ * lock or on I/O costs a little heap rather than a platform thread, and the
+ * number of requests in flight isn't capped by a pool size. Game updates are
+ * pushed over WebSockets, which are accepted on a second port.
+ * <p>
+ * A server can be one node of a {@link Cluster}, in which case it hosts only
+ * the games that hash to it and passes other requests on.
+ * <p>
+ * Metrics are served on a third port that only accepts local connections,
+ * and are also registered with JMX.
+ */
+public class Server {
+
+    private static final int BACKLOG = 4096;
+    private static final int SEND_QUEUE_CAPACITY = 64;
+
+    private final GameService gameService;
+    private final GameBroadcaster broadcaster;
+    private final Cluster cluster;
+    private HttpServer httpServer;
+    private ExecutorService executor;
+    private WebSocketServer webSocketServer;
+    private HttpServer metricsServer;
+
+    public Server() {
+        this(new GameService());
+    }
+
+    public Server(GameService gameService) {
+        this(gameService, null);
+    }
+
+    /**
+     * @param cluster the cluster this server is a node of, or null if it runs alone
+     */
+    public Server(GameService gameService, Cluster cluster) {
+        this.gameService = gameService;
+        this.broadcaster = new GameBroadcaster(gameService);
+        this.cluster = cluster;
+    }
+
+    /**
+     * Starts listening
+     *
+     * @param desiredPort the port to listen on, or 0 for any free port
+     * @return the port the server is listening on
+     */
+    public int run(int desiredPort) {
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(desiredPort), BACKLOG);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        httpServer.setExecutor(executor);
+        httpServer.createContext("/game", new GameHandler(gameService, cluster));
+        if (cluster != null) {
+            httpServer.createContext("/cluster", new ClusterHandler(gameService, cluster));
+        }
+        httpServer.start();
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Starts accepting WebSockets that subscribe to game updates
+     *
+     * @param desiredPort the port to listen on, or 0 for any free port
+     * @return the port WebSockets are accepted on
+     */
+    public int runWebSocket(int desiredPort) {
+        webSocketServer = new WebSocketServer(broadcaster, SEND_QUEUE_CAPACITY);
+        return webSocketServer.run(desiredPort);
+    }
+
+    /**
+     * Starts serving {@code GET /metrics} on the loopback interface
+     *
+     * @param desiredPort the port to listen on, or 0 for any free port
+     * @return the port metrics are served on
+     */
+    public int runMetrics(int desiredPort) {
+        try {
+            metricsServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), desiredPort), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        metricsServer.setExecutor(executor);
+        metricsServer.createContext("/metrics", new MetricsHandler());
+        metricsServer.start();
+        return metricsServer.getAddress().getPort();
+    }
+
+    public void stop() {
+        if (metricsServer != null) {
+            metricsServer.stop(0);
+        }
+        if (webSocketServer != null) {
+            webSocketServer.stop();
+        }
+        httpServer.stop(0);
+        executor.close();
+    }
+}
@@ -0,0 +1,321 @@
+package server.cluster;
+
+import chess.serialization.ChessGson;
+import com.sun.net.httpserver.HttpExchange;
+import service.GameService;
+import service.ServiceException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static service.Requests.*;
+
+/**
+ * One server's view of a cluster of servers that share out games by
+ * consistent hashing.
+ * <p>
+ * Each game is hosted by the node its ID hashes to on the {@link HashRing}.
+ * A request for a game this node doesn't hold is forwarded to the game's
+ * node, or answered with a 307 redirect to it. A game still held here is
+ * always served here, which keeps it reachable while it moves between
+ * nodes. New games get random IDs that hash to this node, so nodes never
+ * need to agree on the next ID.
+ * <p>
+ * When the node list changes, every node hands the games that now hash
+ * elsewhere to their new node. A node given a list without itself hands
+ * off all its games and can then be stopped.
+ * <p>
+ * Nodes share a secret, sent in the {@link #SECRET} header. The
+ * {@code /cluster} endpoints refuse requests without it, and only a request
+ * carrying it is trusted as forwarded by another node, so clients can't
+ * change the node list, inject games or skip forwarding.
+ */
+public class Cluster {
+
+    /**
+     * How requests for games on other nodes are answered
+     */
+    public enum Mode {
+        FORWARD,
+        REDIRECT
+    }
+
+    public record Membership(String self, List<String> nodes) {
+    }
+
+    public record MembershipRequest(List<String> nodes) {
+    }
+
+    /**
+     * Marks requests sent by another node, which are never passed on again
+     */
+    public static final String FORWARDED = "X-Chess-Forwarded";
+
+    /**
+     * Carries the cluster's shared secret on requests between nodes and
+     * from operators
+     */
+    public static final String SECRET = "X-Chess-Cluster-Secret";
+
+    private static final int HAND_OFF_BATCH = 256;
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final String self;
+    private final Mode mode;
+    private final String secret;
+    private final int virtualNodes;
+    private final GameService gameService;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    /**
+     * Held while the node list changes; a lock rather than synchronized so a
+     * virtual thread waiting on other nodes doesn't pin its carrier
+     */
+    private final Lock membershipLock = new ReentrantLock();
+    private volatile HashRing ring;
+
+    /**
+     * @param self  this node's {@code host:port}, as the other nodes reach it
+     * @param nodes  every node's {@code host:port}, including this one
+     * @param secret the secret every node of the cluster shares
+     */
+    public Cluster(String self, Collection<String> nodes, Mode mode, String secret, GameService gameService) {
+        if (secret == null || secret.isBlank()) {
+            throw new IllegalArgumentException("a cluster needs a shared secret");
+        }
+        this.self = self;
+        this.mode = mode;
+        this.secret = secret;
+        this.virtualNodes = HashRing.DEFAULT_VIRTUAL_NODES;
+        this.gameService = gameService;
+        this.ring = new HashRing(nodes, virtualNodes);
+    }
+
+    /**
+     * @return whether a request carries the cluster's secret
+     */
+    public boolean isTrusted(HttpExchange exchange) {
+        String given = exchange.getRequestHeaders().getFirst(SECRET);
+        // compared in constant time, so response times don't give the secret away
+        return given != null && MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                given.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return whether a request was passed on by another node of the cluster
+     */
+    public boolean isFromPeer(HttpExchange exchange) {
+        return exchange.getRequestHeaders().containsKey(FORWARDED) && isTrusted(exchange);
+    }
+
+    public Membership membership() {
+        return new Membership(self, ring.nodes());
+    }
+
+    /**
+     * @return a new game ID that hashes to this node and isn't in use here
+     */
+    public int newGameID() throws ServiceException {
+        HashRing current = ring;
+        if (!current.contains(self)) {
+            throw new ServiceException(503, "this server is leaving the cluster");
+        }
+        while (true) {
+            int gameID = ThreadLocalRandom.current().nextInt(1, Integer.MAX_VALUE);
+            if (current.nodeFor(gameID).equals(self) && !gameService.hasGame(gameID)) {
+                return gameID;
+            }
+        }
+    }
+
+    /**
+     * Passes a {@code /game} request on to the node that should serve it
+     *
+     * @return whether the request was answered, or false if it should be served here
+     */
+    public boolean relay(HttpExchange exchange) throws ServiceException, IOException {
+        if (isFromPeer(exchange)) {
+            return false;
+        }
+        HashRing current = ring;
+        String[] path = exchange.getRequestURI().getPath().substring(1).split("/");
+        String node;
+        if (path.length == 1) {
+            // any member can create a game, but one that's leaving shouldn't
+            if (current.contains(self)) {
+                return false;
+            }
+            node = current.nodeFor(ThreadLocalRandom.current().nextInt());
+        } else {
+            int gameID;
+            try {
+                gameID = Integer.parseInt(path[1]);
+            } catch (NumberFormatException e) {
+                return false;
+            }
+            node = current.nodeFor(gameID);
+            if (node.equals(self) || gameService.hasGame(gameID)) {
+                return false;
+            }
+        }
+        if (mode == Mode.REDIRECT) {
+            exchange.getResponseHeaders().set("Location", "http://" + node + exchange.getRequestURI());
+            exchange.sendResponseHeaders(307, -1);
+            exchange.close();
+        } else {
+            forward(exchange, node);
+        }
+        return true;
+    }
+
+    private void forward(HttpExchange exchange, String node) throws ServiceException, IOException {
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://" + node + exchange.getRequestURI()))
+                .method(exchange.getRequestMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body))
+                .header(FORWARDED, self)
+                .header(SECRET, secret)
+                .timeout(TIMEOUT);
+        for (String header : List.of("Authorization", "Content-Type")) {
+            String value = exchange.getRequestHeaders().getFirst(header);
+            if (value != null) {
+                request.header(header, value);
+            }
+        }
+        HttpResponse<byte[]> response = send(node, request.build());
+        byte[] responseBody = response.body();
+        exchange.getResponseHeaders().set("Content-Type",
+                response.headers().firstValue("Content-Type").orElse("application/json"));
+        exchange.sendResponseHeaders(response.statusCode(), responseBody.length == 0 ? -1 : responseBody.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(responseBody);
+        }
+    }
+
+    /**
+     * Replaces the node list, then hands off the games that now hash to
+     * other nodes. Unless the list came from another node, it's first passed
+     * to every old and new node, which do the same.
+     */
+    public Membership setNodes(List<String> nodes, boolean propagate) throws ServiceException {
+        if (nodes == null || nodes.isEmpty() || nodes.contains(null)) {
+            throw new ServiceException(400, "bad request");
+        }
+        membershipLock.lock();
+        try {
+            return changeNodes(nodes, propagate);
+        } finally {
+            membershipLock.unlock();
+        }
+    }
+
+    private Membership changeNodes(List<String> nodes, boolean propagate) throws ServiceException {
+        HashRing previous = ring;
+        ring = new HashRing(nodes, virtualNodes);
+        List<String> failed = new ArrayList<>();
+        if (propagate) {
+            Set<String> peers = new TreeSet<>(previous.nodes());
+            peers.addAll(ring.nodes());
+            peers.remove(self);
+            String body = ChessGson.gson().toJson(new MembershipRequest(ring.nodes()));
+            Map<String, CompletableFuture<HttpResponse<byte[]>>> replies = new TreeMap<>();
+            for (String peer : peers) {
+                replies.put(peer, client.sendAsync(HttpRequest.newBuilder(URI.create("http://" + peer + "/cluster"))
+                        .PUT(HttpRequest.BodyPublishers.ofString(body))
+                        .header(FORWARDED, self)
+                        .header(SECRET, secret)
+                        .header("Content-Type", "application/json")
+                        .build(), HttpResponse.BodyHandlers.ofByteArray()));
+            }
+            replies.forEach((peer, reply) -> {
+                try {
+                    if (reply.join().statusCode() != 200) {
+                        failed.add(peer);
+                    }
+                } catch (CompletionException e) {
+                    failed.add(peer);
+                }
+            });
+        }
+        List<String> problems = new ArrayList<>();
+        if (!failed.isEmpty()) {
+            problems.add("couldn't update " + String.join(", ", failed));
+        }
+        problems.addAll(rebalance());
+        if (!problems.isEmpty()) {
+            throw new ServiceException(502, String.join("; ", problems));
+        }
+        return membership();
+    }
+
+    /**
+     * Hands off every game that hashes to another node. A batch that fails
+     * stays here, where it's still served, and doesn't stop the others.
+     *
+     * @return why each failed batch couldn't be handed off
+     */
+    private List<String> rebalance() {
+        HashRing current = ring;
+        Map<String, List<Integer>> leaving = new TreeMap<>();
+        for (int gameID : gameService.gameIDs()) {
+            String node = current.nodeFor(gameID);
+            if (!node.equals(self)) {
+                leaving.computeIfAbsent(node, n -> new ArrayList<>()).add(gameID);
+            }
+        }
+        List<String> failures = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> entry : leaving.entrySet()) {
+            List<Integer> gameIDs = entry.getValue();
+            for (int from = 0; from < gameIDs.size(); from += HAND_OFF_BATCH) {
+                List<Integer> batch = gameIDs.subList(from, Math.min(gameIDs.size(), from + HAND_OFF_BATCH));
+                try {
+                    gameService.handOff(batch, games -> sendGames(entry.getKey(), games));
+                } catch (ServiceException e) {
+                    failures.add(batch.size() + " games kept for " + entry.getKey() + ": " + e.getMessage());
+                }
+            }
+        }
+        return failures;
+    }
+
+    private void sendGames(String node, List<MovedGame> games) throws ServiceException {
+        HttpResponse<byte[]> response = send(node, HttpRequest.newBuilder(URI.create("http://" + node + "/cluster/games"))
+                .POST(HttpRequest.BodyPublishers.ofString(ChessGson.gson().toJson(new MoveGamesRequest(games))))
+                .header(FORWARDED, self)
+                .header(SECRET, secret)
+                .header("Content-Type", "application/json")
+                .timeout(TIMEOUT)
+                .build());
+        if (response.statusCode() != 200) {
+            throw new ServiceException(502, node + " refused games: " + new String(response.body(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private HttpResponse<byte[]> send(String node, HttpRequest request) throws ServiceException {
+        try {
+            return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (IOException e) {
+            throw new ServiceException(502, "can't reach " + node + ": " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(503, "interrupted");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package server.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Maps game IDs to nodes by consistent hashing.
+ * <p>
+ * Each node is placed at many points (virtual nodes) on a ring of 64-bit
+ * hashes, and a game belongs to the first point at or after its ID's hash.
+ * Many small arcs per node spread games evenly, and adding or removing a
+ * node only moves the games on the arcs it gains or loses, about 1/n of
+ * them. The ring depends only on the set of node names, so every node
+ * given the same names agrees on where each game lives.
+ */
+public final class HashRing {
+
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final List<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    /**
+     * @param nodes the nodes' {@code host:port} addresses
+     */
+    public HashRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty() || virtualNodes < 1) {
+            throw new IllegalArgumentException("a ring needs at least one node and one point per node");
+        }
+        this.nodes = List.copyOf(new TreeSet<>(nodes));
+        int size = this.nodes.size() * virtualNodes;
+        long[] unsorted = new long[size];
+        Integer[] order = new Integer[size];
+        for (int n = 0; n < this.nodes.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int index = n * virtualNodes + v;
+                unsorted[index] = hash(this.nodes.get(n) + "#" + v);
+                order[index] = index;
+            }
+        }
+        // ties go to the node that sorts first, so every node builds the same ring
+        Arrays.sort(order, Comparator.<Integer>comparingLong(i -> unsorted[i]).thenComparingInt(i -> i));
+        points = new long[size];
+        owners = new String[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = unsorted[order[i]];
+            owners[i] = this.nodes.get(order[i] / virtualNodes);
+        }
+    }
+
+    public String nodeFor(int gameID) {
+        int index = Arrays.binarySearch(points, mix(gameID));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * @return the nodes in name order
+     */
+    public List<String> nodes() {
+        return nodes;
+    }
+
+    public boolean contains(String node) {
+        return nodes.contains(node);
+    }
+
+    private static long hash(String text) {
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * SplitMix64's finalizer, which spreads sequential IDs over the whole ring
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
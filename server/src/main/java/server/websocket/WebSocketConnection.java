@@ -0,0 +1,330 @@
+package server.websocket;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.BufferedInputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One accepted WebSocket connection.
+ * <p>
+ * Frames are sent by putting them on a bounded queue that a dedicated writer
+ * thread drains, so {@link #send(byte[])} never blocks the caller. A peer
+ * that reads too slowly lets the queue fill up and is disconnected rather
+ * than holding up whoever is sending. Frames are plain byte arrays built by
+ * {@link #textFrame(String)}, so one frame can be queued on any number of
+ * connections without copying.
+ */
+public class WebSocketConnection {
+
+    private static final String ACCEPT_GUID = "258EAFA5-E914-47DA-95CA-C5AB0DC85B11";
+    private static final int MAX_PAYLOAD = 64 * 1024;
+    private static final int MAX_HEADER_LINE = 8 * 1024;
+    private static final byte[] END_OF_STREAM = new byte[0];
+
+    private static final int CONTINUATION = 0x0;
+    private static final int TEXT = 0x1;
+    private static final int BINARY = 0x2;
+    private static final int CLOSE = 0x8;
+    private static final int PING = 0x9;
+    private static final int PONG = 0xA;
+
+    public static final int NORMAL_CLOSURE = 1000;
+    public static final int PROTOCOL_ERROR = 1002;
+    public static final int UNSUPPORTED_DATA = 1003;
+    public static final int POLICY_VIOLATION = 1008;
+    public static final int MESSAGE_TOO_BIG = 1009;
+
+    private final Socket socket;
+    private final WebSocketHandler handler;
+    private final BlockingQueue<byte[]> outbound;
+    private final Executor executor;
+    private final AtomicBoolean closing = new AtomicBoolean();
+    private volatile Object attachment;
+
+    WebSocketConnection(Socket socket, WebSocketHandler handler, int sendQueueCapacity, Executor executor) {
+        this.socket = socket;
+        this.handler = handler;
+        this.outbound = new ArrayBlockingQueue<>(sendQueueCapacity + 1);
+        this.executor = executor;
+    }
+
+    /**
+     * @return whatever the handler attached to this connection, e.g. the game it watches
+     */
+    public Object getAttachment() {
+        return attachment;
+    }
+
+    public void setAttachment(Object attachment) {
+        this.attachment = attachment;
+    }
+
+    /**
+     * Queues a frame to be written, dropping the connection if its queue is full
+     *
+     * @return false if the connection is closed or was just dropped
+     */
+    public boolean send(byte[] frame) {
+        if (closing.get()) {
+            return false;
+        }
+        if (!outbound.offer(frame)) {
+            abort();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Sends a close frame once everything already queued has been written
+     */
+    public void close(int code) {
+        if (closing.compareAndSet(false, true)) {
+            byte[] payload = {(byte) (code >>> 8), (byte) code};
+            if (!outbound.offer(frame(CLOSE, payload)) || !outbound.offer(END_OF_STREAM)) {
+                closeSocket();
+            }
+        }
+    }
+
+    private void abort() {
+        closing.set(true);
+        closeSocket();
+        outbound.clear();
+        outbound.offer(END_OF_STREAM);
+    }
+
+    public static byte[] textFrame(String text) {
+        return frame(TEXT, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] frame(int opcode, byte[] payload) {
+        int length = payload.length;
+        int header = length < 126 ? 2 : length < 65536 ? 4 : 10;
+        byte[] frame = new byte[header + length];
+        frame[0] = (byte) (0x80 | opcode);
+        if (length < 126) {
+            frame[1] = (byte) length;
+        } else if (length < 65536) {
+            frame[1] = 126;
+            frame[2] = (byte) (length >>> 8);
+            frame[3] = (byte) length;
+        } else {
+            frame[1] = 127;
+            for (int i = 0; i < 8; i++) {
+                frame[2 + i] = (byte) ((long) length >>> (56 - 8 * i));
+            }
+        }
+        System.arraycopy(payload, 0, frame, header, length);
+        return frame;
+    }
+
+    // ----- serving -----
+
+    void serve() {
+        boolean opened = false;
+        try {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            String path = handshake(in, socket.getOutputStream());
+            if (path == null) {
+                return;
+            }
+            executor.execute(this::writeLoop);
+            opened = true;
+            if (!handler.onOpen(this, path)) {
+                close(POLICY_VIOLATION);
+                return;
+            }
+            readLoop(in);
+        } catch (IOException ignored) {
+            // the peer went away; nothing left to do but clean up
+        } finally {
+            if (opened) {
+                closing.set(true);
+                outbound.offer(END_OF_STREAM);
+                handler.onClose(this);
+            } else {
+                closeSocket();
+            }
+        }
+    }
+
+    /**
+     * @return the request path, or null if the request wasn't a WebSocket upgrade
+     */
+    private static String handshake(InputStream in, OutputStream out) throws IOException {
+        String requestLine = readLine(in);
+        String key = null;
+        boolean upgrade = false;
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            String name = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            if (name.equals("sec-websocket-key")) {
+                key = value;
+            } else if (name.equals("upgrade")) {
+                upgrade = value.equalsIgnoreCase("websocket");
+            }
+        }
+        String[] parts = requestLine.split(" ");
+        if (parts.length != 3 || !parts[0].equals("GET") || !upgrade || key == null) {
+            out.write("HTTP/1.1 400 Bad Request\r\nContent-Length: 0\r\nConnection: close\r\n\r\n"
+                    .getBytes(StandardCharsets.ISO_8859_1));
+            out.flush();
+            return null;
+        }
+        out.write(("HTTP/1.1 101 Switching Protocols\r\nUpgrade: websocket\r\nConnection: Upgrade\r\n"
+                + "Sec-WebSocket-Accept: " + acceptKey(key) + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+        return parts[1];
+    }
+
+    private static String acceptKey(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1")
+                    .digest((key + ACCEPT_GUID).getBytes(StandardCharsets.ISO_8859_1));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            if (c < 0) {
+                throw new EOFException();
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+            if (line.length() > MAX_HEADER_LINE) {
+                throw new IOException("header line too long");
+            }
+        }
+        return line.toString();
+    }
+
+    private void readLoop(InputStream in) throws IOException {
+        ByteArrayOutputStream message = new ByteArrayOutputStream();
+        boolean fragmented = false;
+        while (true) {
+            int first = in.read();
+            if (first < 0) {
+                return;
+            }
+            int second = readByte(in);
+            int opcode = first & 0x0F;
+            boolean fin = (first & 0x80) != 0;
+            long length = second & 0x7F;
+            if (length == 126) {
+                length = readByte(in) << 8 | readByte(in);
+            } else if (length == 127) {
+                length = 0;
+                for (int i = 0; i < 8; i++) {
+                    length = length << 8 | readByte(in);
+                }
+            }
+            //clients must mask, no extension is agreed so the RSV bits must be clear,
+            //a 64-bit length must leave the top bit clear, and control frames are short and whole
+            boolean control = (opcode & 0x8) != 0;
+            if ((second & 0x80) == 0 || (first & 0x70) != 0 || length < 0
+                    || (control && (length > 125 || !fin))) {
+                close(PROTOCOL_ERROR);
+                return;
+            }
+            if (opcode == BINARY) {
+                // updates and commands are JSON text only
+                close(UNSUPPORTED_DATA);
+                return;
+            }
+            if (opcode != TEXT && opcode != CONTINUATION && opcode != CLOSE && opcode != PING && opcode != PONG) {
+                close(PROTOCOL_ERROR);
+                return;
+            }
+            if (length > MAX_PAYLOAD || message.size() + length > MAX_PAYLOAD) {
+                close(MESSAGE_TOO_BIG);
+                return;
+            }
+            byte[] mask = in.readNBytes(4);
+            byte[] payload = in.readNBytes((int) length);
+            if (payload.length != length) {
+                return;
+            }
+            for (int i = 0; i < payload.length; i++) {
+                payload[i] ^= mask[i & 3];
+            }
+            switch (opcode) {
+                case TEXT, CONTINUATION -> {
+                    //a continuation needs an unfinished message, and a new message can't start inside one
+                    if (fragmented != (opcode == CONTINUATION)) {
+                        close(PROTOCOL_ERROR);
+                        return;
+                    }
+                    message.write(payload);
+                    fragmented = !fin;
+                    if (!fragmented) {
+                        handler.onText(this, message.toString(StandardCharsets.UTF_8));
+                        message.reset();
+                    }
+                }
+                case CLOSE -> {
+                    close(NORMAL_CLOSURE);
+                    return;
+                }
+                case PING -> send(frame(PONG, payload));
+                default -> {
+                    // an unsolicited pong needs no answer
+                }
+            }
+        }
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException();
+        }
+        return b;
+    }
+
+    private void writeLoop() {
+        try (OutputStream out = socket.getOutputStream()) {
+            while (true) {
+                byte[] frame = outbound.take();
+                if (frame == END_OF_STREAM) {
+                    return;
+                }
+                out.write(frame);
+            }
+        } catch (IOException | InterruptedException ignored) {
+            // the socket is gone; the reader will notice too
+        } finally {
+            closing.set(true);
+            closeSocket();
+        }
+    }
+
+    private void closeSocket() {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package server.websocket;
+
+/**
+ * Receives the events of every connection accepted by a {@link WebSocketServer}
+ */
+public interface WebSocketHandler {
+
+    /**
+     * Called once the handshake has completed
+     *
+     * @param path the request path of the handshake, e.g. "/game/7"
+     * @return false to close the connection right away
+     */
+    boolean onOpen(WebSocketConnection connection, String path);
+
+    void onText(WebSocketConnection connection, String text);
+
+    /**
+     * Called once when the connection closes for any reason
+     */
+    void onClose(WebSocketConnection connection);
+}
@@ -0,0 +1,71 @@
+package server.websocket;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A minimal RFC 6455 WebSocket server. The JDK's HttpServer can't hand a
+ * connection over to another protocol, so WebSockets are accepted on their
+ * own port. Each connection is read by one virtual thread and written by
+ * another.
+ */
+public class WebSocketServer {
+
+    private static final int BACKLOG = 4096;
+
+    private final WebSocketHandler handler;
+    private final int sendQueueCapacity;
+    private ServerSocket serverSocket;
+    private ExecutorService executor;
+
+    /**
+     * @param sendQueueCapacity how many frames may wait to be written to one
+     *                          connection before it is dropped as too slow
+     */
+    public WebSocketServer(WebSocketHandler handler, int sendQueueCapacity) {
+        this.handler = handler;
+        this.sendQueueCapacity = sendQueueCapacity;
+    }
+
+    /**
+     * @param desiredPort the port to listen on, or 0 for any free port
+     * @return the port the server is listening on
+     */
+    public int run(int desiredPort) {
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.bind(new InetSocketAddress(desiredPort), BACKLOG);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        executor.execute(this::acceptLoop);
+        return serverSocket.getLocalPort();
+    }
+
+    public void stop() {
+        try {
+            serverSocket.close();
+        } catch (IOException ignored) {
+        }
+        executor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                executor.execute(() -> new WebSocketConnection(socket, handler, sendQueueCapacity, executor).serve());
+            } catch (IOException e) {
+                if (serverSocket.isClosed()) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package service;
+
+import chess.ChessGame;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.GameSnapshot;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The only writer of one {@link ChessGame}.
+ * <p>
+ * Work for the game is queued on a mailbox and run one item at a time by a
+ * single drainer, which is started on the shared executor when work arrives
+ * and exits once the mailbox is empty. Requests for the same game therefore
+ * run in order without locks, and an idle game holds no thread at all.
+ * <p>
+ * After each change the actor publishes a new {@link GameSnapshot}, which
+ * readers pick up with {@link #snapshot()} without queueing behind moves.
+ * <p>
+ * When its game is handed to another server the actor is retired, and any
+ * work still queued for it fails as if the game didn't exist.
+ */
+final class GameActor {
+
+    /**
+     * Work done against the game, on the actor's thread
+     */
+    interface Action<T> {
+        T run(ChessGame game) throws ServiceException;
+    }
+
+    private static final LatencyHistogram QUEUE_WAIT = Metrics.histogram("actor.queueWait");
+
+    private final ChessGame game;
+    private final Executor executor;
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicReference<GameSnapshot> snapshot;
+    private volatile boolean retired;
+
+    GameActor(ChessGame game, GameSnapshot snapshot, Executor executor) {
+        this.game = game;
+        this.snapshot = new AtomicReference<>(snapshot);
+        this.executor = executor;
+    }
+
+    /**
+     * @return the game as of the last published change
+     */
+    GameSnapshot snapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Replaces the published snapshot; only call this from an action
+     */
+    void publish(GameSnapshot next) {
+        snapshot.set(next);
+    }
+
+    /**
+     * Refuses all later actions, or accepts them again if a hand-off failed
+     */
+    void retire(boolean retired) {
+        this.retired = retired;
+    }
+
+    /**
+     * Queues an action and waits for its result. Never call this from inside
+     * another action for the same game, as it would wait on itself.
+     */
+    <T> T ask(Action<T> action) throws ServiceException {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queued = System.nanoTime();
+        mailbox.add(() -> {
+            QUEUE_WAIT.recordSince(queued);
+            if (retired) {
+                result.completeExceptionally(ServiceException.notFound("game moved to another server"));
+                return;
+            }
+            try {
+                result.complete(action.run(game));
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        schedule();
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceException(503, "interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ServiceException serviceException) {
+                throw serviceException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private void schedule() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        for (Runnable task = mailbox.poll(); task != null; task = mailbox.poll()) {
+            task.run();
+        }
+        draining.set(false);
+        // work queued after the last poll but before the flag was cleared
+        if (!mailbox.isEmpty()) {
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package service;
+
+import chess.ChessMove;
+
+/**
+ * Told about every move {@link GameService} applies, e.g. to push it to the
+ * players and spectators of that game
+ */
+public interface GameListener {
+
+    /**
+     * Called after a move is made, in the order moves are made for a given game
+     *
+     * @param status the game right after the move
+     */
+    void moveMade(int gameID, ChessMove move, Requests.GameStatusResult status);
+}
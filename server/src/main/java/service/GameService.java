@@ -0,0 +1,377 @@
+package service;
+
+import chess.*;
+import chess.notation.Uci;
+import dataAccess.DataAccessException;
+import dataAccess.GameDAO;
+import dataAccess.MemoryGameDAO;
+import metrics.LatencyHistogram;
+import metrics.Metrics;
+import model.GameData;
+import model.GameSnapshot;
+import model.GameStatus;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static service.Requests.*;
+
+/**
+ * Creates games, seats players and applies their moves.
+ * <p>
+ * Games are kept in concurrent maps, so requests for different games never
+ * contend. A {@link ChessGame} itself is not thread safe, so each one is
+ * owned by a {@link GameActor} that runs every read and move of that game in
+ * turn. Listeners are called on the actor, so they see a game's moves in order.
+ * Status and legal-move requests only read the game's latest
+ * {@link GameSnapshot}, so they never wait for a move to finish. Games,
+ * seats and moves are stored through a {@link GameDAO}.
+ * <p>
+ * When games are spread over several servers, games can be handed off to
+ * and adopted from other servers along with their player tokens.
+ */
+public class GameService {
+
+    /**
+     * The game and side a player token was issued for
+     */
+    private record Seat(int gameID, ChessGame.TeamColor color, String username) {
+    }
+
+    private static final LatencyHistogram VALID_MOVES = Metrics.histogram("engine.validMoves");
+    private static final LatencyHistogram MAKE_MOVE = Metrics.histogram("engine.makeMove");
+    private static final LatencyHistogram STATUS = Metrics.histogram("engine.status");
+    private static final LatencyHistogram STORE_MOVE = Metrics.histogram("store.addMove");
+
+    private final GameDAO gameDAO;
+    private final Map<Integer, GameActor> actors = new ConcurrentHashMap<>();
+    private final ExecutorService actorExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, Seat> seats = new ConcurrentHashMap<>();
+    private final List<GameListener> listeners = new CopyOnWriteArrayList<>();
+
+    public GameService() {
+        this(new MemoryGameDAO());
+    }
+
+    /**
+     * Serves the games already in a store as well as new ones
+     */
+    public GameService(GameDAO gameDAO) {
+        this.gameDAO = gameDAO;
+        try {
+            for (GameData data : gameDAO.listGames()) {
+                ChessGame game = data.game();
+                actors.put(data.gameID(), new GameActor(game, GameSnapshot.of(game, GameStatus.of(game)), actorExecutor));
+            }
+        } catch (DataAccessException e) {
+            throw new IllegalStateException("can't load games", e);
+        }
+    }
+
+    public void addListener(GameListener listener) {
+        listeners.add(listener);
+    }
+
+    public CreateGameResult createGame(CreateGameRequest request) throws ServiceException {
+        ChessGame game = newGame(request);
+        int gameID;
+        try {
+            gameID = gameDAO.createGame(request.gameName(), game);
+        } catch (DataAccessException e) {
+            throw ServiceException.storage(e);
+        }
+        actors.put(gameID, new GameActor(game, GameSnapshot.of(game, GameStatus.ACTIVE), actorExecutor));
+        return new CreateGameResult(gameID);
+    }
+
+    /**
+     * Creates a game under an ID chosen by the caller, such as one that
+     * hashes to this server
+     */
+    public CreateGameResult createGame(CreateGameRequest request, int gameID) throws ServiceException {
+        ChessGame game = newGame(request);
+        if (actors.containsKey(gameID)) {
+            throw new ServiceException(409, "game " + gameID + " already exists");
+        }
+        try {
+            gameDAO.putGame(new GameData(gameID, null, null, request.gameName(), game));
+        } catch (DataAccessException e) {
+            throw ServiceException.storage(e);
+        }
+        actors.put(gameID, new GameActor(game, GameSnapshot.of(game, GameStatus.ACTIVE), actorExecutor));
+        return new CreateGameResult(gameID);
+    }
+
+    private static ChessGame newGame(CreateGameRequest request) throws ServiceException {
+        if (request == null || request.gameName() == null || request.gameName().isBlank()) {
+            throw ServiceException.badRequest("bad request");
+        }
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        return game;
+    }
+
+    public boolean hasGame(int gameID) {
+        return actors.containsKey(gameID);
+    }
+
+    public Set<Integer> gameIDs() {
+        return Set.copyOf(actors.keySet());
+    }
+
+    /**
+     * Hands games over to another server. Each game is frozen in line with
+     * its moves, so a move either makes it into the copy that is sent or is
+     * refused as if the game didn't exist, and can be retried against the
+     * game's new server. Once the copies are delivered the games and their
+     * player tokens are dropped here; if delivery fails the games carry on
+     * here as before. A delivered game the store fails to drop is only
+     * logged, since it's already served by its new server.
+     */
+    public void handOff(Collection<Integer> gameIDs, GameTransfer transfer) throws ServiceException {
+        List<GameActor> frozen = new ArrayList<>();
+        List<GameData> data = new ArrayList<>();
+        List<MovedGame> moved = new ArrayList<>();
+        try {
+            for (int gameID : gameIDs) {
+                GameActor actor = actors.get(gameID);
+                if (actor == null) {
+                    continue;
+                }
+                data.add(actor.ask(game -> {
+                    GameData stored;
+                    try {
+                        stored = gameDAO.getGame(gameID);
+                    } catch (DataAccessException e) {
+                        throw ServiceException.storage(e);
+                    }
+                    //only freeze once nothing can fail before the actor is on the frozen list
+                    actor.retire(true);
+                    frozen.add(actor);
+                    ChessGame copy = actor.snapshot().toGame();
+                    copy.setEarlierPositions(game.getEarlierPositions());
+                    return new GameData(gameID, stored.whiteUsername(), stored.blackUsername(),
+                            stored.gameName(), copy);
+                }));
+            }
+            Map<Integer, Map<String, ChessGame.TeamColor>> tokens = new HashMap<>();
+            for (GameData game : data) {
+                tokens.put(game.gameID(), new HashMap<>());
+            }
+            seats.forEach((token, seat) -> {
+                Map<String, ChessGame.TeamColor> gameTokens = tokens.get(seat.gameID());
+                if (gameTokens != null) {
+                    gameTokens.put(token, seat.color());
+                }
+            });
+            for (GameData game : data) {
+                moved.add(new MovedGame(game.gameID(), game.gameName(), game.whiteUsername(), game.blackUsername(),
+                        game.game(), game.game().getEarlierPositions(), tokens.get(game.gameID())));
+            }
+            transfer.send(moved);
+        } catch (ServiceException | RuntimeException e) {
+            for (GameActor actor : frozen) {
+                actor.retire(false);
+            }
+            throw e;
+        }
+        Set<Integer> movedIDs = new HashSet<>();
+        for (MovedGame game : moved) {
+            movedIDs.add(game.gameID());
+            actors.remove(game.gameID());
+        }
+        seats.values().removeIf(seat -> movedIDs.contains(seat.gameID()));
+        for (int gameID : movedIDs) {
+            try {
+                gameDAO.removeGame(gameID);
+            } catch (DataAccessException e) {
+                System.err.println("Couldn't remove handed off game " + gameID + " from the store: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Takes over games handed off by another server, along with their
+     * players' tokens
+     */
+    public void adopt(List<MovedGame> games) throws ServiceException {
+        for (MovedGame moved : games) {
+            if (moved == null || moved.game() == null || moved.gameName() == null || moved.seats() == null) {
+                throw ServiceException.badRequest("bad request");
+            }
+            if (actors.containsKey(moved.gameID())) {
+                throw new ServiceException(409, "game " + moved.gameID() + " already exists");
+            }
+        }
+        for (MovedGame moved : games) {
+            ChessGame game = moved.game();
+            if (moved.positions() != null) {
+                game.setEarlierPositions(moved.positions());
+            }
+            GameData data = new GameData(moved.gameID(), moved.whiteUsername(), moved.blackUsername(),
+                    moved.gameName(), game);
+            try {
+                gameDAO.putGame(data);
+            } catch (DataAccessException e) {
+                throw ServiceException.storage(e);
+            }
+            actors.put(moved.gameID(), new GameActor(game, GameSnapshot.of(game, GameStatus.of(game)), actorExecutor));
+            moved.seats().forEach((token, color) ->
+                    seats.put(token, new Seat(moved.gameID(), color, data.username(color))));
+        }
+    }
+
+    public JoinGameResult joinGame(int gameID, JoinGameRequest request) throws ServiceException {
+        if (request == null || request.playerColor() == null || request.username() == null
+                || request.username().isBlank()) {
+            throw ServiceException.badRequest("bad request");
+        }
+        //the token is stored on the actor, so a hand-off of the game can't miss it
+        return getActor(gameID).ask(game -> {
+            try {
+                String seated = gameDAO.getGame(gameID).username(request.playerColor());
+                if (seated == null) {
+                    gameDAO.setPlayer(gameID, request.playerColor(), request.username());
+                } else if (!seated.equals(request.username())) {
+                    // the seated player may join again, e.g. after a restart lost their token
+                    throw ServiceException.forbidden("already taken");
+                }
+            } catch (DataAccessException e) {
+                throw ServiceException.storage(e);
+            }
+            String playerToken = UUID.randomUUID().toString();
+            seats.put(playerToken, new Seat(gameID, request.playerColor(), request.username()));
+            return new JoinGameResult(playerToken);
+        });
+    }
+
+    public GameStatusResult makeMove(int gameID, String playerToken, MoveRequest request) throws ServiceException {
+        if (request == null || request.move() == null) {
+            throw ServiceException.badRequest("bad request");
+        }
+        Seat seat = playerToken == null ? null : seats.get(playerToken);
+        if (seat == null || seat.gameID() != gameID) {
+            throw ServiceException.unauthorized();
+        }
+        ChessMove move = request.move();
+        GameActor actor = getActor(gameID);
+        return actor.ask(game -> {
+            if (actor.snapshot().getStatus().isOver()) {
+                throw ServiceException.forbidden("game is over");
+            }
+            if (game.getTeamTurn() != seat.color()) {
+                throw ServiceException.forbidden("not your turn");
+            }
+            ChessPiece piece = game.getBoard().getPiece(move.getStartPosition());
+            if (piece == null || piece.getTeamColor() != seat.color()) {
+                throw ServiceException.badRequest("no piece of yours on " + Uci.square(move.getStartPosition()));
+            }
+            long start = System.nanoTime();
+            try {
+                game.makeMove(move);
+            } catch (InvalidMoveException e) {
+                throw ServiceException.badRequest(e.getMessage());
+            }
+            MAKE_MOVE.recordSince(start);
+            start = System.nanoTime();
+            try {
+                gameDAO.addMove(gameID, move);
+            } catch (DataAccessException e) {
+                //the store and the published snapshot never saw the move, so the live game mustn't keep it
+                game.undoMove();
+                throw ServiceException.storage(e);
+            }
+            STORE_MOVE.recordSince(start);
+            start = System.nanoTime();
+            GameStatus status = GameStatus.of(game);
+            STATUS.recordSince(start);
+            actor.publish(actor.snapshot().next(game, status));
+            GameStatusResult result = status(gameID, actor.snapshot());
+            for (GameListener listener : listeners) {
+                listener.moveMade(gameID, move, result);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * @param from the square to list moves for, or null for every move of the side to move
+     */
+    public LegalMovesResult legalMoves(int gameID, ChessPosition from) throws ServiceException {
+        GameSnapshot snapshot = getActor(gameID).snapshot();
+        List<ChessMove> moves = new ArrayList<>();
+        ChessPiece piece = from == null ? null : snapshot.getPiece(from);
+        if (from == null || (piece != null && piece.getTeamColor() == snapshot.getTeamTurn())) {
+            long start = System.nanoTime();
+            //a FastBoard of the snapshot's rows is enough to generate from, so no ChessGame is built
+            FastBoard board = snapshot.toFastBoard();
+            int[] generated = new int[256];
+            int count = from == null ? board.generatePseudoLegal(generated)
+                    : board.generateFrom(FastBoard.square(from), generated, 0);
+            for (int i = 0; i < count; i++) {
+                if (board.isLegalPseudoMove(generated[i])) {
+                    moves.add(FastBoard.unpack(generated[i]));
+                }
+            }
+            VALID_MOVES.recordSince(start);
+        }
+        return new LegalMovesResult(moves);
+    }
+
+    public ThreatsResult threats(int gameID) throws ServiceException {
+        GameSnapshot snapshot = getActor(gameID).snapshot();
+        AttackMap attacks = snapshot.attackMap();
+        return new ThreatsResult(attacks.attackedPositions(ChessGame.TeamColor.WHITE),
+                attacks.attackedPositions(ChessGame.TeamColor.BLACK),
+                attacks.threatenedPieces(snapshot.getTeamTurn()));
+    }
+
+    public GameStatusResult getStatus(int gameID) throws ServiceException {
+        return status(gameID, getActor(gameID).snapshot());
+    }
+
+    /**
+     * Runs an action with a game's current status in line with its moves, so
+     * a listener that subscribes in the action neither misses nor repeats a move
+     */
+    public void withStatus(int gameID, Consumer<GameStatusResult> action) throws ServiceException {
+        GameActor actor = getActor(gameID);
+        actor.ask(game -> {
+            action.accept(status(gameID, actor.snapshot()));
+            return null;
+        });
+    }
+
+    private GameStatusResult status(int gameID, GameSnapshot snapshot) throws ServiceException {
+        GameData data;
+        try {
+            data = gameDAO.getGame(gameID);
+        } catch (DataAccessException e) {
+            throw ServiceException.storage(e);
+        }
+        return new GameStatusResult(gameID, data.gameName(), data.whiteUsername(), data.blackUsername(),
+                snapshot, snapshot.getStatus());
+    }
+
+    private GameActor getActor(int gameID) throws ServiceException {
+        GameActor actor = actors.get(gameID);
+        if (actor == null) {
+            throw ServiceException.notFound("no game " + gameID);
+        }
+        return actor;
+    }
+
+}
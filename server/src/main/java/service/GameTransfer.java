@@ -0,0 +1,16 @@
+package service;
+
+import java.util.List;
+
+import static service.Requests.MovedGame;
+
+/**
+ * Delivers games to the server that hosts them from now on
+ */
+public interface GameTransfer {
+
+    /**
+     * Returns once the receiving server has stored the games
+     */
+    void send(List<MovedGame> games) throws ServiceException;
+}
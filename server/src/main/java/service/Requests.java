@@ -0,0 +1,68 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import model.GameSnapshot;
+import model.GameStatus;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The request and result bodies exchanged with {@link GameService}, which
+ * the server reads and writes as JSON
+ */
+public final class Requests {
+
+    private Requests() {
+    }
+
+    public record CreateGameRequest(String gameName) {
+    }
+
+    public record CreateGameResult(int gameID) {
+    }
+
+    public record JoinGameRequest(ChessGame.TeamColor playerColor, String username) {
+    }
+
+    public record JoinGameResult(String playerToken) {
+    }
+
+    public record MoveRequest(ChessMove move) {
+    }
+
+    public record LegalMovesResult(List<ChessMove> moves) {
+    }
+
+    /**
+     * @param attackedByWhite the squares white attacks, including ones its own pieces stand on
+     * @param attackedByBlack the squares black attacks, including ones its own pieces stand on
+     * @param threatened      the side to move's pieces that the other side attacks
+     */
+    public record ThreatsResult(List<ChessPosition> attackedByWhite, List<ChessPosition> attackedByBlack,
+                                List<ChessPosition> threatened) {
+    }
+
+    /**
+     * A game handed from one server to another
+     *
+     * @param positions the game's {@link ChessGame#getEarlierPositions()}, so
+     *                  its repetitions still count; may be left out
+     * @param seats     the team each of the game's player tokens plays for
+     */
+    public record MovedGame(int gameID, String gameName, String whiteUsername, String blackUsername, ChessGame game,
+                            long[] positions, Map<String, ChessGame.TeamColor> seats) {
+    }
+
+    public record MoveGamesRequest(List<MovedGame> games) {
+    }
+
+    public record MoveGamesResult(int games) {
+    }
+
+    public record GameStatusResult(int gameID, String gameName, String whiteUsername, String blackUsername,
+                                   GameSnapshot game, GameStatus status) {
+    }
+}
@@ -0,0 +1,45 @@
+package service;
+
+/**
+ * Indicates a request could not be carried out, along with the HTTP status
+ * code that best describes why
+ */
+public class ServiceException extends Exception {
+
+    private final int statusCode;
+
+    public ServiceException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    static ServiceException badRequest(String message) {
+        return new ServiceException(400, message);
+    }
+
+    static ServiceException unauthorized() {
+        return new ServiceException(401, "unauthorized");
+    }
+
+    static ServiceException forbidden(String message) {
+        return new ServiceException(403, message);
+    }
+
+    static ServiceException notFound(String message) {
+        return new ServiceException(404, message);
+    }
+
+    /**
+     * @param cause the storage failure, kept as the cause for the server's
+     *              log; clients only see that something went wrong
+     */
+    static ServiceException storage(Exception cause) {
+        ServiceException exception = new ServiceException(500, "internal error");
+        exception.initCause(cause);
+        return exception;
+    }
+}
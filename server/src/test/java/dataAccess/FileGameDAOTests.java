@@ -0,0 +1,237 @@
+package dataAccess;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+import chess.notation.Fen;
+import chess.notation.Uci;
+import model.GameData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class FileGameDAOTests {
+
+    private static final String[] OPENING = {"e2e4", "e7e5", "g1f3", "b8c6", "f1b5", "a7a6", "e1g1", "g8f6"};
+    private static final Duration FLUSH = Duration.ofMillis(10);
+
+    @Test
+    @DisplayName("Games, Players And Moves Survive A Restart")
+    public void reopen(@TempDir Path dir) throws Exception {
+        int gameID;
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            gameID = store.createGame("first", newGame());
+            int other = store.createGame("second", newGame());
+            store.setPlayer(gameID, ChessGame.TeamColor.WHITE, "alice");
+            store.setPlayer(gameID, ChessGame.TeamColor.BLACK, "bob");
+            store.setPlayer(gameID, ChessGame.TeamColor.BLACK, null);
+            play(store, gameID, OPENING.length);
+            store.removeGame(other);
+        }
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            Assertions.assertEquals(1, store.listGames().size());
+            var data = store.getGame(gameID);
+            Assertions.assertEquals("first", data.gameName());
+            Assertions.assertEquals("alice", data.whiteUsername());
+            Assertions.assertNull(data.blackUsername());
+            Assertions.assertEquals(expected(OPENING.length), Fen.toFen(data.game()));
+            Assertions.assertEquals(3, store.createGame("third", newGame()), "IDs carry on after the highest one");
+        }
+    }
+
+    @Test
+    @DisplayName("Recovery Loads The Snapshot And Replays The Log After It")
+    public void snapshotAndTail(@TempDir Path dir) throws Exception {
+        int gameID;
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            gameID = store.createGame("game", newGame());
+            store.setPlayer(gameID, ChessGame.TeamColor.WHITE, "alice");
+            play(store, gameID, 4);
+            store.snapshot();
+            store.setPlayer(gameID, ChessGame.TeamColor.BLACK, "bob");
+            for (int ply = 4; ply < OPENING.length; ply++) {
+                store.addMove(gameID, Uci.parseMove(OPENING[ply]));
+            }
+        }
+        Assertions.assertEquals(List.of("log-000001.dat", "snapshot-000001.dat"), files(dir),
+                "the snapshot replaces the segment before it");
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            var data = store.getGame(gameID);
+            Assertions.assertEquals("alice", data.whiteUsername());
+            Assertions.assertEquals("bob", data.blackUsername());
+            Assertions.assertEquals(expected(OPENING.length), Fen.toFen(data.game()));
+        }
+    }
+
+    @Test
+    @DisplayName("An Event Cut Short By A Crash Is Dropped")
+    public void truncatedLog(@TempDir Path dir) throws Exception {
+        int gameID;
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            gameID = store.createGame("game", newGame());
+            play(store, gameID, 6);
+        }
+        Path log = dir.resolve("log-000000.dat");
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            // half of the last move's event is lost
+            channel.truncate(channel.size() - 5);
+        }
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            Assertions.assertEquals(expected(5), Fen.toFen(store.getGame(gameID).game()));
+            store.addMove(gameID, Uci.parseMove(OPENING[5]));
+            store.addMove(gameID, Uci.parseMove(OPENING[6]));
+        }
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            Assertions.assertEquals(expected(7), Fen.toFen(store.getGame(gameID).game()),
+                    "moves after the torn event replace it");
+        }
+    }
+
+    @Test
+    @DisplayName("Snapshots Hold Names Longer Than The Write Buffer")
+    public void longNames(@TempDir Path dir) throws Exception {
+        String name = "n".repeat(60_000);
+        String white = "w".repeat(60_000);
+        String black = "b".repeat(60_000);
+        int gameID;
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            gameID = store.createGame(name, newGame());
+            store.setPlayer(gameID, ChessGame.TeamColor.WHITE, white);
+            store.setPlayer(gameID, ChessGame.TeamColor.BLACK, black);
+            store.snapshot();
+        }
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            var data = store.getGame(gameID);
+            Assertions.assertEquals(name, data.gameName());
+            Assertions.assertEquals(white, data.whiteUsername());
+            Assertions.assertEquals(black, data.blackUsername());
+            Assertions.assertThrows(DataAccessException.class, () -> store.createGame("x".repeat(70_000), newGame()));
+        }
+    }
+
+    @Test
+    @DisplayName("Explicit And Background Snapshots Don't Interfere")
+    public void concurrentSnapshots(@TempDir Path dir) throws Exception {
+        int games = 16;
+        List<Integer> ids = new ArrayList<>();
+        // a tiny threshold starts a background snapshot every few moves
+        try (var store = new FileGameDAO(dir, FLUSH, 256);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < games; i++) {
+                ids.add(store.createGame("game " + i, newGame()));
+            }
+            List<Future<?>> work = new ArrayList<>();
+            for (int gameID : ids) {
+                work.add(executor.submit(() -> {
+                    play(store, gameID, OPENING.length);
+                    return null;
+                }));
+            }
+            work.add(executor.submit(() -> {
+                for (int i = 0; i < 20; i++) {
+                    store.snapshot();
+                }
+                return null;
+            }));
+            for (Future<?> future : work) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+            store.snapshot();
+        }
+        Assertions.assertEquals(1L, files(dir).stream().filter(name -> name.startsWith("snapshot-")).count(),
+                files(dir).toString());
+        Assertions.assertFalse(files(dir).stream().anyMatch(name -> name.endsWith(".tmp")));
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            for (int gameID : ids) {
+                Assertions.assertEquals(expected(OPENING.length), Fen.toFen(store.getGame(gameID).game()));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Repeated Positions Survive Snapshots And Put Games")
+    public void repetitions(@TempDir Path dir) throws Exception {
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        ChessGame put = newGame();
+        for (String move : shuffle) {
+            put.makeMove(Uci.parseMove(move));
+        }
+        int gameID;
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            gameID = store.createGame("shuffled", newGame());
+            for (String move : shuffle) {
+                store.addMove(gameID, Uci.parseMove(move));
+            }
+            store.snapshot();
+            for (String move : shuffle) {
+                store.addMove(gameID, Uci.parseMove(move));
+            }
+            store.putGame(new GameData(10, null, null, "put", put));
+        }
+        for (int open = 0; open < 2; open++) {
+            try (var store = new FileGameDAO(dir, FLUSH)) {
+                Assertions.assertEquals(3, store.getGame(gameID).game().repetitions(), "open " + open);
+                Assertions.assertEquals(2, store.getGame(10).game().repetitions(), "open " + open);
+                store.snapshot();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Clear Leaves An Empty Store")
+    public void clear(@TempDir Path dir) throws Exception {
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            play(store, store.createGame("game", newGame()), 2);
+            store.clear();
+            Assertions.assertTrue(store.listGames().isEmpty());
+        }
+        try (var store = new FileGameDAO(dir, FLUSH)) {
+            Assertions.assertTrue(store.listGames().isEmpty());
+            Assertions.assertEquals(1, store.createGame("again", newGame()));
+        }
+    }
+
+    private static ChessGame newGame() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        return game;
+    }
+
+    private static void play(FileGameDAO store, int gameID, int plies) throws DataAccessException {
+        for (int ply = 0; ply < plies; ply++) {
+            store.addMove(gameID, Uci.parseMove(OPENING[ply]));
+        }
+    }
+
+    private static String expected(int plies) throws InvalidMoveException {
+        ChessGame game = newGame();
+        for (int ply = 0; ply < plies; ply++) {
+            ChessMove move = Uci.parseMove(OPENING[ply]);
+            game.makeMove(move);
+        }
+        return Fen.toFen(game);
+    }
+
+    private static List<String> files(Path dir) throws IOException {
+        try (var list = Files.list(dir)) {
+            return list.map(file -> file.getFileName().toString()).sorted().toList();
+        }
+    }
+}
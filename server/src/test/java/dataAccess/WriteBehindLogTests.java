@@ -0,0 +1,91 @@
+package dataAccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class WriteBehindLogTests {
+
+    @Test
+    @DisplayName("Appends Reach The File Within A Flush Interval")
+    public void flushesOnInterval(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("log");
+        try (FileChannel channel = open(file)) {
+            var log = new WriteBehindLog(channel, Duration.ofMillis(20), 16);
+            log.append(new byte[]{1, 2, 3});
+            log.append(new byte[]{4});
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (Files.size(file) < 4) {
+                Assertions.assertTrue(System.nanoTime() < deadline, "nothing was written");
+                Thread.sleep(5);
+            }
+            Assertions.assertArrayEquals(new byte[]{1, 2, 3, 4}, Files.readAllBytes(file));
+            log.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Flush Waits For Every Record, In Order, From Many Threads")
+    public void flushIsDurable(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("log");
+        try (FileChannel channel = open(file); ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            // a long interval, so only flush() can get the records out in time
+            var log = new WriteBehindLog(channel, Duration.ofSeconds(30), 64);
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < 4; writer++) {
+                byte id = (byte) writer;
+                writers.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        log.append(new byte[]{id, (byte) i});
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> writer : writers) {
+                writer.get(30, TimeUnit.SECONDS);
+            }
+            log.flush();
+            byte[] written = Files.readAllBytes(file);
+            Assertions.assertEquals(4 * 1000 * 2, written.length);
+            int[] next = new int[4];
+            for (int i = 0; i < written.length; i += 2) {
+                int id = written[i];
+                Assertions.assertEquals((byte) next[id]++, written[i + 1], "writer " + id + " out of order");
+            }
+
+            log.append(new byte[]{9});
+            log.close();
+            Assertions.assertEquals(written.length + 1, Files.size(file), "close writes what is queued");
+            Assertions.assertThrows(IOException.class, () -> log.append(new byte[]{10}));
+        }
+    }
+
+    @Test
+    @DisplayName("A Failed Write Is Reported To Later Callers")
+    public void failure(@TempDir Path dir) throws Exception {
+        FileChannel channel = open(dir.resolve("log"));
+        var log = new WriteBehindLog(channel, Duration.ofMillis(10), 16);
+        channel.close();
+        log.append(new byte[]{1});
+        Assertions.assertThrows(IOException.class, log::flush);
+        Assertions.assertThrows(IOException.class, () -> log.append(new byte[]{2}));
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+}
@@ -0,0 +1,76 @@
+package metrics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTests {
+
+    @Test
+    @DisplayName("Small Values Get A Bucket Each")
+    public void smallValuesExact() {
+        for (long value = 0; value < 64; value++) {
+            int index = LatencyHistogram.index(value);
+            Assertions.assertEquals(value, index);
+            Assertions.assertEquals(value, LatencyHistogram.highestValue(index));
+        }
+    }
+
+    @Test
+    @DisplayName("Every Value Falls In A Bucket Within 1/32 Of It")
+    public void bucketsCoverValues() {
+        int previous = LatencyHistogram.index(63);
+        for (long value = 64; value < 1L << 20; value++) {
+            int index = LatencyHistogram.index(value);
+            Assertions.assertTrue(index == previous || index == previous + 1, "buckets skip at " + value);
+            previous = index;
+            long highest = LatencyHistogram.highestValue(index);
+            Assertions.assertTrue(highest >= value, value + " is above its bucket's top " + highest);
+            Assertions.assertTrue(highest - value <= value / 32, value + " is too far below " + highest);
+            Assertions.assertEquals(index, LatencyHistogram.index(highest));
+            Assertions.assertEquals(index + 1, LatencyHistogram.index(highest + 1));
+        }
+        for (int shift = 20; shift < 42; shift++) {
+            long value = (1L << shift) + 12345;
+            long highest = LatencyHistogram.highestValue(LatencyHistogram.index(value));
+            Assertions.assertTrue(highest >= value && highest - value <= value / 32, "at 2^" + shift);
+        }
+    }
+
+    @Test
+    @DisplayName("Percentiles Of A Uniform Spread")
+    public void percentiles() {
+        var histogram = new LatencyHistogram();
+        Assertions.assertEquals(new LatencyHistogram.Summary(0, 0, 0, 0, 0, 0, 0), histogram.summary());
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1_000);
+        }
+        var summary = histogram.summary();
+        Assertions.assertEquals(10_000, summary.count());
+        Assertions.assertEquals(5_000_500, summary.meanNanos());
+        Assertions.assertEquals(10_000_000, summary.maxNanos());
+        assertNear(5_000_000, summary.p50Nanos());
+        assertNear(9_000_000, summary.p90Nanos());
+        assertNear(9_900_000, summary.p99Nanos());
+        assertNear(9_990_000, summary.p999Nanos());
+        Assertions.assertTrue(summary.p999Nanos() <= summary.maxNanos());
+    }
+
+    @Test
+    @DisplayName("Percentiles Never Exceed The Largest Value")
+    public void clampedToMax() {
+        var histogram = new LatencyHistogram();
+        histogram.record(1_000_001);
+        histogram.record(-5);
+        var summary = histogram.summary();
+        Assertions.assertEquals(2, summary.count());
+        Assertions.assertEquals(0, summary.p50Nanos(), "negative values count as 0");
+        Assertions.assertEquals(1_000_001, summary.p99Nanos());
+        Assertions.assertEquals(1_000_001, histogram.getMaxNanos());
+    }
+
+    private static void assertNear(long expected, long actual) {
+        Assertions.assertTrue(actual >= expected && actual - expected <= expected / 32,
+                "expected about " + expected + " but was " + actual);
+    }
+}
@@ -0,0 +1,116 @@
+package server;
+
+import chess.ChessGame;
+import chess.notation.Uci;
+import chess.serialization.ChessGson;
+import dataAccess.MemoryGameDAO;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.websocket.RawWebSocket;
+import server.websocket.WebSocketConnection;
+import service.GameService;
+
+import java.io.IOException;
+
+import static server.GameBroadcaster.GameUpdate;
+import static service.Requests.*;
+
+public class GameBroadcasterTests {
+
+    private static Server server;
+    private static int port;
+    private static int webSocketPort;
+
+    private int gameID;
+    private String white;
+
+    @BeforeAll
+    public static void startServer() {
+        server = new Server(new GameService(new MemoryGameDAO()));
+        port = server.run(0);
+        webSocketPort = server.runWebSocket(0);
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.stop();
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        gameID = ServerTests.read(ServerTests.send(port, "POST", "/game", "{\"gameName\":\"watched\"}", null),
+                CreateGameResult.class).gameID();
+        white = ServerTests.read(ServerTests.send(port, "POST", "/game/" + gameID + "/join",
+                "{\"playerColor\":\"WHITE\",\"username\":\"alice\"}", null), JoinGameResult.class).playerToken();
+    }
+
+    @Test
+    @DisplayName("Subscribers Get The Board, Then Every Move")
+    public void fanOut() throws Exception {
+        try (var first = RawWebSocket.connect(webSocketPort, "/game/" + gameID);
+             var second = RawWebSocket.connect(webSocketPort, "/game/" + gameID)) {
+            for (RawWebSocket socket : new RawWebSocket[]{first, second}) {
+                Assertions.assertEquals(101, socket.status());
+                GameUpdate load = update(socket);
+                Assertions.assertEquals("LOAD_GAME", load.type());
+                Assertions.assertEquals(gameID, load.gameID());
+                Assertions.assertNull(load.move());
+                Assertions.assertEquals(ChessGame.TeamColor.WHITE, load.game().getTeamTurn());
+                Assertions.assertEquals("Game " + gameID + ", WHITE to move", load.message());
+            }
+
+            move("e2e4");
+            for (RawWebSocket socket : new RawWebSocket[]{first, second}) {
+                GameUpdate moved = update(socket);
+                Assertions.assertEquals("MOVE", moved.type());
+                Assertions.assertEquals(Uci.parseMove("e2e4"), moved.move());
+                Assertions.assertEquals(ChessGame.TeamColor.BLACK, moved.game().getTeamTurn());
+                Assertions.assertEquals("WHITE played e2e4", moved.message());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("A Closed Subscriber Doesn't Stop The Others")
+    public void closedSubscriber() throws Exception {
+        try (var staying = RawWebSocket.connect(webSocketPort, "/game/" + gameID)) {
+            try (var leaving = RawWebSocket.connect(webSocketPort, "/game/" + gameID)) {
+                update(leaving);
+            }
+            update(staying);
+            move("d2d4");
+            Assertions.assertEquals(Uci.parseMove("d2d4"), update(staying).move());
+        }
+        try (var late = RawWebSocket.connect(webSocketPort, "/game/" + gameID)) {
+            GameUpdate load = update(late);
+            Assertions.assertEquals("LOAD_GAME", load.type());
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, load.game().getTeamTurn(),
+                    "a new subscriber starts from the current board");
+        }
+    }
+
+    @Test
+    @DisplayName("Unknown Games And Paths Are Refused")
+    public void refused() throws IOException {
+        for (String path : new String[]{"/game/" + (gameID + 1000), "/game/abc", "/other"}) {
+            try (var socket = RawWebSocket.connect(webSocketPort, path)) {
+                Assertions.assertEquals(WebSocketConnection.POLICY_VIOLATION, socket.read().closeCode(), path);
+            }
+        }
+    }
+
+    private void move(String move) throws Exception {
+        ServerTests.read(ServerTests.send(port, "POST", "/game/" + gameID + "/move",
+                "{\"move\":\"" + move + "\"}", white), GameStatusResult.class);
+    }
+
+    private static GameUpdate update(RawWebSocket socket) throws IOException {
+        var frame = socket.read();
+        Assertions.assertEquals(0x1, frame.opcode());
+        return ChessGson.gson().fromJson(frame.text(), GameUpdate.class);
+    }
+}
@@ -0,0 +1,173 @@
+package server;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.serialization.ChessGson;
+import dataAccess.DataAccessException;
+import dataAccess.MemoryGameDAO;
+import model.GameData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import service.GameService;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import static service.Requests.*;
+
+public class ServerTests {
+
+    private static final HttpClient CLIENT = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private static Server server;
+    private static int port;
+
+    private int gameID;
+    private String white;
+    private String black;
+
+    @BeforeAll
+    public static void startServer() {
+        server = new Server(new GameService(new MemoryGameDAO() {
+            @Override
+            public GameData getGame(int gameID) {
+                GameData data = super.getGame(gameID);
+                if (data != null && data.gameName().equals("broken")) {
+                    throw new IllegalStateException("secret internal detail");
+                }
+                return data;
+            }
+
+            @Override
+            public void setPlayer(int gameID, ChessGame.TeamColor color, String username)
+                    throws DataAccessException {
+                if (getGame(gameID).gameName().equals("unwritable")) {
+                    throw new DataAccessException("can't write game log /secret/path");
+                }
+                super.setPlayer(gameID, color, username);
+            }
+        }));
+        port = server.run(0);
+    }
+
+    @AfterAll
+    public static void stopServer() {
+        server.stop();
+    }
+
+    @BeforeEach
+    public void setup() throws Exception {
+        gameID = read(send("POST", "/game", "{\"gameName\":\"test\"}", null), CreateGameResult.class).gameID();
+        white = join("WHITE", "alice");
+        black = join("BLACK", "bob");
+    }
+
+    @Test
+    @DisplayName("Create, Join, Move And Read A Game")
+    public void playGame() throws Exception {
+        var moved = send("POST", "/game/" + gameID + "/move", "{\"move\":\"e2e4\"}", white);
+        Assertions.assertEquals(200, moved.statusCode());
+        Assertions.assertEquals("application/json", moved.headers().firstValue("Content-Type").orElse(null));
+        var status = read(moved, GameStatusResult.class);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, status.game().getTeamTurn());
+
+        status = read(send("GET", "/game/" + gameID, null, null), GameStatusResult.class);
+        Assertions.assertEquals("test", status.gameName());
+        Assertions.assertEquals("alice", status.whiteUsername());
+        Assertions.assertEquals("bob", status.blackUsername());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, status.game().getTeamTurn());
+
+        var moves = read(send("GET", "/game/" + gameID + "/moves", null, null), LegalMovesResult.class);
+        Assertions.assertEquals(20, moves.moves().size());
+        moves = read(send("GET", "/game/" + gameID + "/moves?from=g8", null, null), LegalMovesResult.class);
+        Assertions.assertEquals(2, moves.moves().size());
+        for (ChessMove move : moves.moves()) {
+            Assertions.assertEquals(8, move.getStartPosition().getRow());
+        }
+
+        var threats = read(send("GET", "/game/" + gameID + "/threats", null, null), ThreatsResult.class);
+        Assertions.assertTrue(threats.threatened().isEmpty());
+        Assertions.assertTrue(threats.attackedByBlack().contains(new ChessPosition(6, 6)));
+        Assertions.assertFalse(threats.attackedByWhite().contains(new ChessPosition(6, 6)));
+    }
+
+    @Test
+    @DisplayName("Failures Come Back As JSON With Fitting Status Codes")
+    public void errors() throws Exception {
+        String game = "/game/" + gameID;
+        assertError(400, send("POST", "/game", "{\"gameName\":", null));
+        assertError(400, send("POST", "/game", "{}", null));
+        assertError(400, send("POST", game + "/join", "{\"playerColor\":\"WHITE\"}", null));
+        assertError(400, send("POST", game + "/move", "{\"move\":\"e2e5\"}", white));
+        assertError(400, send("POST", game + "/move", "{\"move\":\"e2\"}", white));
+        assertError(401, send("POST", game + "/move", "{\"move\":\"e2e4\"}", null));
+        assertError(401, send("POST", game + "/move", "{\"move\":\"e2e4\"}", "not-a-token"));
+        assertError(403, send("POST", game + "/move", "{\"move\":\"e7e5\"}", black));
+        assertError(403, send("POST", game + "/join", "{\"playerColor\":\"WHITE\",\"username\":\"carol\"}", null));
+        assertError(404, send("GET", "/game/" + (gameID + 1000), null, null));
+        assertError(404, send("GET", "/game/abc", null, null));
+        assertError(404, send("GET", game + "/nothing", null, null));
+        assertError(405, send("GET", "/game", null, null));
+        assertError(405, send("DELETE", game, null, null));
+    }
+
+    @Test
+    @DisplayName("Unexpected Failures Don't Reveal Their Details")
+    public void internalError() throws Exception {
+        int broken = read(send("POST", "/game", "{\"gameName\":\"broken\"}", null), CreateGameResult.class).gameID();
+        assertInternalError(send("GET", "/game/" + broken, null, null));
+        int unwritable = read(send("POST", "/game", "{\"gameName\":\"unwritable\"}", null),
+                CreateGameResult.class).gameID();
+        assertInternalError(send("POST", "/game/" + unwritable + "/join",
+                "{\"playerColor\":\"WHITE\",\"username\":\"alice\"}", null));
+    }
+
+    private String join(String color, String username) throws Exception {
+        var response = send("POST", "/game/" + gameID + "/join",
+                "{\"playerColor\":\"" + color + "\",\"username\":\"" + username + "\"}", null);
+        return read(response, JoinGameResult.class).playerToken();
+    }
+
+    static HttpResponse<String> send(String method, String path, String body, String token)
+            throws IOException, InterruptedException {
+        return send(port, method, path, body, token);
+    }
+
+    public static HttpResponse<String> send(int port, String method, String path, String body, String token)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        if (token != null) {
+            request.header("Authorization", token);
+        }
+        return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    public static <T> T read(HttpResponse<String> response, Class<T> type) {
+        Assertions.assertEquals(200, response.statusCode(), response.body());
+        return ChessGson.gson().fromJson(response.body(), type);
+    }
+
+    private static void assertInternalError(HttpResponse<String> response) {
+        Assertions.assertEquals(500, response.statusCode());
+        Assertions.assertEquals("Error: internal error",
+                ChessGson.gson().fromJson(response.body(), Map.class).get("message"));
+        Assertions.assertFalse(response.body().contains("secret"), response.body());
+    }
+
+    private static void assertError(int expected, HttpResponse<String> response) {
+        Assertions.assertEquals(expected, response.statusCode(), response.body());
+        String message = (String) ChessGson.gson().fromJson(response.body(), Map.class).get("message");
+        Assertions.assertTrue(message.startsWith("Error: "), message);
+    }
+}
@@ -0,0 +1,236 @@
+package server.cluster;
+
+import chess.ChessGame;
+import dataAccess.MemoryGameDAO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import server.Server;
+import service.GameService;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static server.ServerTests.read;
+import static server.ServerTests.send;
+import static service.Requests.*;
+
+public class ClusterTests {
+
+    /**
+     * One node of a cluster running on localhost
+     */
+    private record Node(String address, int port, GameService gameService, Server server) {
+    }
+
+    private static final String SECRET = "test cluster secret";
+    private static final HttpClient CLIENT = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    private final List<Node> running = new ArrayList<>();
+
+    @AfterEach
+    public void stop() {
+        running.forEach(node -> node.server().stop());
+    }
+
+    @Test
+    @DisplayName("Any Node Forwards A Game's Requests To The Node That Holds It")
+    public void forward() throws Exception {
+        List<Node> nodes = start(Cluster.Mode.FORWARD, 2, 2);
+        Node first = nodes.get(0);
+        Node second = nodes.get(1);
+
+        int gameID = create(first, "forwarded");
+        Assertions.assertTrue(first.gameService().hasGame(gameID), "a node hosts the games it creates");
+        Assertions.assertFalse(second.gameService().hasGame(gameID));
+
+        String white = join(second, gameID, "WHITE", "alice");
+        String black = join(second, gameID, "BLACK", "bob");
+        read(send(second.port(), "POST", "/game/" + gameID + "/move", "{\"move\":\"e2e4\"}", white),
+                GameStatusResult.class);
+        var status = read(send(second.port(), "GET", "/game/" + gameID, null, null), GameStatusResult.class);
+        Assertions.assertEquals("forwarded", status.gameName());
+        Assertions.assertEquals("bob", status.blackUsername());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, status.game().getTeamTurn());
+
+        var refused = send(second.port(), "POST", "/game/" + gameID + "/move", "{\"move\":\"e7e5\"}", white);
+        Assertions.assertEquals(403, refused.statusCode(), "errors come back through the forwarding node");
+        Assertions.assertTrue(refused.body().contains("Error: "), refused.body());
+        read(send(second.port(), "POST", "/game/" + gameID + "/move", "{\"move\":\"e7e5\"}", black),
+                GameStatusResult.class);
+        Assertions.assertFalse(second.gameService().hasGame(gameID), "forwarding doesn't copy the game");
+    }
+
+    @Test
+    @DisplayName("In Redirect Mode Other Nodes Point To The Game's Node")
+    public void redirect() throws Exception {
+        List<Node> nodes = start(Cluster.Mode.REDIRECT, 2, 2);
+        Node first = nodes.get(0);
+        Node second = nodes.get(1);
+
+        int gameID = create(first, "redirected");
+        HttpResponse<String> response = send(second.port(), "GET", "/game/" + gameID + "/moves?from=e2", null, null);
+        Assertions.assertEquals(307, response.statusCode());
+        Assertions.assertEquals("http://" + first.address() + "/game/" + gameID + "/moves?from=e2",
+                response.headers().firstValue("Location").orElse(null));
+        Assertions.assertEquals(200, send(first.port(), "GET", "/game/" + gameID, null, null).statusCode());
+    }
+
+    @Test
+    @DisplayName("Changing The Nodes Moves Games And Their Players To Their New Node")
+    public void membership() throws Exception {
+        // the third node starts outside the cluster and joins through PUT /cluster
+        List<Node> nodes = start(Cluster.Mode.FORWARD, 3, 2);
+        Node first = nodes.get(0);
+        Node second = nodes.get(1);
+        Node third = nodes.get(2);
+        List<String> all = nodes.stream().map(Node::address).toList();
+        HashRing grown = new HashRing(all, HashRing.DEFAULT_VIRTUAL_NODES);
+
+        Map<Integer, String[]> players = new HashMap<>();
+        int toThird = 0;
+        while (players.size() < 12 || toThird == 0) {
+            Assertions.assertTrue(players.size() < 500, "no game ever hashed to the new node");
+            int gameID = create(players.size() % 2 == 0 ? first : second, "game");
+            players.put(gameID, new String[]{join(first, gameID, "WHITE", "alice"),
+                    join(second, gameID, "BLACK", "bob")});
+            if (grown.nodeFor(gameID).equals(third.address())) {
+                toThird++;
+            }
+        }
+
+        var membership = read(request(second, "PUT", "/cluster", "{\"nodes\":" + json(all) + "}",
+                Cluster.SECRET, SECRET), Cluster.Membership.class);
+        Assertions.assertEquals(all.stream().sorted().toList(), membership.nodes().stream().sorted().toList());
+        for (Node node : nodes) {
+            var seen = read(request(node, "GET", "/cluster", null, Cluster.SECRET, SECRET), Cluster.Membership.class);
+            Assertions.assertEquals(node.address(), seen.self());
+            Assertions.assertEquals(membership.nodes(), seen.nodes(), "every node has the new list");
+        }
+        assertPlacement(nodes, grown, players.keySet());
+        play(players, third, "e2e4", "e7e5");
+
+        // the first node leaves and hands off all of its games
+        List<String> shrunk = List.of(second.address(), third.address());
+        read(request(third, "PUT", "/cluster", "{\"nodes\":" + json(shrunk) + "}", Cluster.SECRET, SECRET),
+                Cluster.Membership.class);
+        Assertions.assertTrue(first.gameService().gameIDs().isEmpty(), "the leaving node kept games");
+        assertPlacement(nodes, new HashRing(shrunk, HashRing.DEFAULT_VIRTUAL_NODES), players.keySet());
+        play(players, second, "g1f3", "g8f6");
+        int late = create(first, "late");
+        Assertions.assertFalse(first.gameService().hasGame(late), "a node outside the cluster passes games on");
+        Assertions.assertTrue(second.gameService().hasGame(late) || third.gameService().hasGame(late));
+    }
+
+    @Test
+    @DisplayName("Only Holders Of The Secret Can Change Or Feed The Cluster")
+    public void secret() throws Exception {
+        List<Node> nodes = start(Cluster.Mode.FORWARD, 2, 2);
+        Node first = nodes.get(0);
+        Node second = nodes.get(1);
+        int gameID = create(first, "guarded");
+        String white = join(first, gameID, "WHITE", "alice");
+
+        String evil = "{\"nodes\":[\"localhost:1\"]}";
+        Assertions.assertEquals(401, request(first, "PUT", "/cluster", evil).statusCode());
+        Assertions.assertEquals(401, request(first, "PUT", "/cluster", evil, Cluster.SECRET, "guess").statusCode());
+        Assertions.assertEquals(401, request(first, "PUT", "/cluster", evil,
+                Cluster.FORWARDED, second.address()).statusCode());
+        Assertions.assertEquals(401, request(first, "GET", "/cluster", null).statusCode());
+        String injected = "{\"games\":[{\"gameID\":7,\"gameName\":\"fake\",\"seats\":{\"chosen\":\"WHITE\"}}]}";
+        Assertions.assertEquals(401, request(second, "POST", "/cluster/games", injected).statusCode());
+        Assertions.assertEquals(List.of(gameID), List.copyOf(first.gameService().gameIDs()), "the games stayed");
+        Assertions.assertTrue(second.gameService().gameIDs().isEmpty(), "nothing was injected");
+
+        // a client claiming to be a node is still forwarded rather than served where the game isn't
+        var forged = request(second, "POST", "/game/" + gameID + "/move", "{\"move\":\"e2e4\"}",
+                Cluster.FORWARDED, first.address(), "Authorization", white);
+        Assertions.assertEquals(200, forged.statusCode(), forged.body());
+    }
+
+    /**
+     * Starts nodes on free ports, the first {@code members} of which make up the cluster
+     */
+    private List<Node> start(Cluster.Mode mode, int count, int members) throws IOException {
+        List<String> addresses = new ArrayList<>();
+        List<Integer> ports = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            try (ServerSocket socket = new ServerSocket(0)) {
+                ports.add(socket.getLocalPort());
+                addresses.add("localhost:" + socket.getLocalPort());
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            GameService gameService = new GameService(new MemoryGameDAO());
+            Server server = new Server(gameService,
+                    new Cluster(addresses.get(i), addresses.subList(0, members), mode, SECRET, gameService));
+            server.run(ports.get(i));
+            running.add(new Node(addresses.get(i), ports.get(i), gameService, server));
+        }
+        return List.copyOf(running);
+    }
+
+    private static void assertPlacement(List<Node> nodes, HashRing ring, Iterable<Integer> gameIDs) {
+        for (int gameID : gameIDs) {
+            String owner = ring.nodeFor(gameID);
+            for (Node node : nodes) {
+                Assertions.assertEquals(node.address().equals(owner), node.gameService().hasGame(gameID),
+                        "game " + gameID + " on " + node.address() + ", owned by " + owner);
+            }
+        }
+    }
+
+    /**
+     * Makes a move in every game through one node, with the tokens handed out before the games moved
+     */
+    private static void play(Map<Integer, String[]> players, Node through, String white, String black)
+            throws Exception {
+        for (Map.Entry<Integer, String[]> game : players.entrySet()) {
+            String path = "/game/" + game.getKey() + "/move";
+            var status = read(send(through.port(), "POST", path, "{\"move\":\"" + white + "\"}",
+                    game.getValue()[0]), GameStatusResult.class);
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, status.game().getTeamTurn());
+            status = read(send(through.port(), "POST", path, "{\"move\":\"" + black + "\"}",
+                    game.getValue()[1]), GameStatusResult.class);
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, status.game().getTeamTurn());
+        }
+    }
+
+    private static int create(Node node, String name) throws Exception {
+        return read(send(node.port(), "POST", "/game", "{\"gameName\":\"" + name + "\"}", null),
+                CreateGameResult.class).gameID();
+    }
+
+    private static String join(Node node, int gameID, String color, String username) throws Exception {
+        return read(send(node.port(), "POST", "/game/" + gameID + "/join",
+                "{\"playerColor\":\"" + color + "\",\"username\":\"" + username + "\"}", null),
+                JoinGameResult.class).playerToken();
+    }
+
+    /**
+     * Sends a request with extra headers, given as names and values in turn
+     */
+    private static HttpResponse<String> request(Node node, String method, String path, String body,
+                                                String... headers) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://" + node.address() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body));
+        for (int i = 0; i < headers.length; i += 2) {
+            request.header(headers[i], headers[i + 1]);
+        }
+        return CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String json(List<String> nodes) {
+        return nodes.stream().map(node -> "\"" + node + "\"").toList().toString();
+    }
+}
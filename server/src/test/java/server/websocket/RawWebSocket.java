@@ -0,0 +1,153 @@
+package server.websocket;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A bare WebSocket client for tests, which writes frames byte by byte so
+ * tests can also send ones a real client never would
+ */
+public class RawWebSocket implements Closeable {
+
+    /**
+     * The key from RFC 6455's example handshake, whose accept value is known
+     */
+    public static final String KEY = "dGhlIHNhbXBsZSBub25jZQ==";
+    public static final String ACCEPT = "s3pPLMBiTxaQ9kYGzzhZRbK+xOo=";
+
+    public record Frame(int opcode, boolean fin, byte[] payload) {
+        public String text() {
+            return new String(payload, StandardCharsets.UTF_8);
+        }
+
+        public int closeCode() {
+            return (payload[0] & 0xFF) << 8 | payload[1] & 0xFF;
+        }
+    }
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private final int status;
+    private final Map<String, String> headers = new HashMap<>();
+
+    private RawWebSocket(Socket socket, String request) throws IOException {
+        this.socket = socket;
+        socket.setSoTimeout(10_000);
+        this.in = new DataInputStream(socket.getInputStream());
+        this.out = socket.getOutputStream();
+        out.write(request.getBytes(StandardCharsets.ISO_8859_1));
+        out.flush();
+        String statusLine = readLine();
+        status = Integer.parseInt(statusLine.split(" ")[1]);
+        for (String line = readLine(); !line.isEmpty(); line = readLine()) {
+            int colon = line.indexOf(':');
+            headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+        }
+    }
+
+    public static RawWebSocket connect(int port, String path) throws IOException {
+        return connect(new Socket(InetAddress.getLoopbackAddress(), port), path);
+    }
+
+    public static RawWebSocket connect(Socket socket, String path) throws IOException {
+        return new RawWebSocket(socket, "GET " + path + " HTTP/1.1\r\nHost: localhost\r\nUpgrade: websocket\r\n"
+                + "Connection: Upgrade\r\nSec-WebSocket-Key: " + KEY + "\r\nSec-WebSocket-Version: 13\r\n\r\n");
+    }
+
+    /**
+     * Sends a request that isn't an upgrade
+     */
+    public static RawWebSocket request(int port, String request) throws IOException {
+        return new RawWebSocket(new Socket(InetAddress.getLoopbackAddress(), port), request);
+    }
+
+    public int status() {
+        return status;
+    }
+
+    public String header(String name) {
+        return headers.get(name.toLowerCase(Locale.ROOT));
+    }
+
+    public void sendText(String text) throws IOException {
+        send(0x1, true, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends one masked frame
+     */
+    public void send(int opcode, boolean fin, byte[] payload) throws IOException {
+        byte[] mask = new byte[4];
+        ThreadLocalRandom.current().nextBytes(mask);
+        int length = payload.length;
+        byte[] header;
+        if (length < 126) {
+            header = new byte[]{(byte) ((fin ? 0x80 : 0) | opcode), (byte) (0x80 | length)};
+        } else {
+            header = new byte[]{(byte) ((fin ? 0x80 : 0) | opcode), (byte) (0x80 | 126),
+                    (byte) (length >>> 8), (byte) length};
+        }
+        byte[] masked = new byte[length];
+        for (int i = 0; i < length; i++) {
+            masked[i] = (byte) (payload[i] ^ mask[i & 3]);
+        }
+        out.write(header);
+        out.write(mask);
+        out.write(masked);
+        out.flush();
+    }
+
+    public void sendRaw(byte[] bytes) throws IOException {
+        out.write(bytes);
+        out.flush();
+    }
+
+    public Frame read() throws IOException {
+        int first = in.readUnsignedByte();
+        int second = in.readUnsignedByte();
+        long length = second & 0x7F;
+        if (length == 126) {
+            length = in.readUnsignedShort();
+        } else if (length == 127) {
+            length = in.readLong();
+        }
+        byte[] payload = new byte[(int) length];
+        in.readFully(payload);
+        return new Frame(first & 0x0F, (first & 0x80) != 0, payload);
+    }
+
+    /**
+     * @return true once the server has closed the connection
+     */
+    public boolean isClosedByPeer() throws IOException {
+        return in.read() < 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int c = in.read(); c != '\n'; c = in.read()) {
+            if (c < 0) {
+                throw new IOException("connection closed during the handshake");
+            }
+            if (c != '\r') {
+                line.append((char) c);
+            }
+        }
+        return line.toString();
+    }
+}
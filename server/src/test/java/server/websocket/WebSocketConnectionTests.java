@@ -0,0 +1,211 @@
+package server.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class WebSocketConnectionTests {
+
+    /**
+     * Echoes every text message back and remembers its connections
+     */
+    private static class EchoHandler implements WebSocketHandler {
+        final BlockingQueue<WebSocketConnection> opened = new LinkedBlockingQueue<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public boolean onOpen(WebSocketConnection connection, String path) {
+            opened.add(connection);
+            return !path.equals("/refuse");
+        }
+
+        @Override
+        public void onText(WebSocketConnection connection, String text) {
+            connection.send(WebSocketConnection.textFrame("echo " + text));
+        }
+
+        @Override
+        public void onClose(WebSocketConnection connection) {
+            closed.countDown();
+        }
+    }
+
+    private final EchoHandler handler = new EchoHandler();
+    private WebSocketServer server;
+    private int port;
+
+    private void start(int sendQueueCapacity) {
+        server = new WebSocketServer(handler, sendQueueCapacity);
+        port = server.run(0);
+    }
+
+    @AfterEach
+    public void stop() {
+        server.stop();
+    }
+
+    @Test
+    @DisplayName("Handshake Answers With The Accept Key")
+    public void handshake() throws IOException {
+        start(8);
+        try (var socket = RawWebSocket.connect(port, "/chat")) {
+            Assertions.assertEquals(101, socket.status());
+            Assertions.assertEquals(RawWebSocket.ACCEPT, socket.header("Sec-WebSocket-Accept"));
+            Assertions.assertEquals("websocket", socket.header("Upgrade"));
+        }
+        try (var socket = RawWebSocket.request(port, "GET /chat HTTP/1.1\r\nHost: localhost\r\n\r\n")) {
+            Assertions.assertEquals(400, socket.status(), "a plain GET isn't an upgrade");
+        }
+        try (var socket = RawWebSocket.connect(port, "/refuse")) {
+            Assertions.assertEquals(101, socket.status());
+            Assertions.assertEquals(WebSocketConnection.POLICY_VIOLATION, socket.read().closeCode());
+        }
+    }
+
+    @Test
+    @DisplayName("Masked Frames Are Unmasked And Fragments Joined")
+    public void frames() throws IOException {
+        start(8);
+        try (var socket = RawWebSocket.connect(port, "/chat")) {
+            socket.sendText("hello");
+            var echo = socket.read();
+            Assertions.assertEquals(0x1, echo.opcode());
+            Assertions.assertTrue(echo.fin());
+            Assertions.assertEquals("echo hello", echo.text());
+
+            String longText = "x".repeat(300);
+            socket.sendText(longText);
+            Assertions.assertEquals("echo " + longText, socket.read().text(), "16-bit lengths are read");
+
+            socket.send(0x1, false, "hel".getBytes(StandardCharsets.UTF_8));
+            socket.send(0x9, true, new byte[]{7});
+            socket.send(0x0, false, "lo ".getBytes(StandardCharsets.UTF_8));
+            socket.send(0x0, true, "again".getBytes(StandardCharsets.UTF_8));
+            var pong = socket.read();
+            Assertions.assertEquals(0xA, pong.opcode(), "a ping between fragments is answered at once");
+            Assertions.assertArrayEquals(new byte[]{7}, pong.payload());
+            Assertions.assertEquals("echo hello again", socket.read().text());
+
+            socket.send(0x8, true, new byte[]{0x03, (byte) 0xE8});
+            Assertions.assertEquals(WebSocketConnection.NORMAL_CLOSURE, socket.read().closeCode());
+            Assertions.assertTrue(socket.isClosedByPeer());
+        }
+    }
+
+    @Test
+    @DisplayName("Unmasked Frames Are A Protocol Error")
+    public void unmasked() throws IOException {
+        assertClosedWith(WebSocketConnection.PROTOCOL_ERROR, new byte[]{(byte) 0x81, 2, 'h', 'i'});
+    }
+
+    @Test
+    @DisplayName("A Length With Its Top Bit Set Is A Protocol Error")
+    public void negativeLength() throws IOException {
+        assertClosedWith(WebSocketConnection.PROTOCOL_ERROR, new byte[]{(byte) 0x81, (byte) (0x80 | 127),
+                (byte) 0x80, 0, 0, 0, 0, 0, 0, 5, 1, 2, 3, 4});
+    }
+
+    @Test
+    @DisplayName("Reserved Bits And Unknown Opcodes Are A Protocol Error")
+    public void reserved() throws IOException {
+        assertClosedWith(WebSocketConnection.PROTOCOL_ERROR, masked(0x80 | 0x40 | 0x1, new byte[]{'h', 'i'}));
+        assertClosedWith(WebSocketConnection.PROTOCOL_ERROR, masked(0x80 | 0x3, new byte[]{'h', 'i'}));
+        assertClosedWith(WebSocketConnection.PROTOCOL_ERROR, masked(0x80 | 0xB, new byte[0]));
+    }
+
+    @Test
+    @DisplayName("Binary Messages Are Refused As Unsupported")
+    public void binary() throws IOException {
+        assertClosedWith(WebSocketConnection.UNSUPPORTED_DATA, masked(0x80 | 0x2, new byte[]{1, 2}));
+    }
+
+    @Test
+    @DisplayName("Control Frames Must Be Short And Unfragmented")
+    public void controlFrames() throws IOException {
+        assertClosedWith(WebSocketConnection.PROTOCOL_ERROR, masked(0x9, new byte[]{7}));
+        byte[] longPing = new byte[2 + 2 + 4 + 126];
+        longPing[0] = (byte) (0x80 | 0x9);
+        longPing[1] = (byte) (0x80 | 126);
+        longPing[3] = (byte) 126;
+        assertClosedWith(WebSocketConnection.PROTOCOL_ERROR, longPing);
+    }
+
+    @Test
+    @DisplayName("Messages Over The Size Limit Are Refused")
+    public void tooBig() throws IOException {
+        assertClosedWith(WebSocketConnection.MESSAGE_TOO_BIG, new byte[]{(byte) 0x81, (byte) (0x80 | 127),
+                0, 0, 0, 0, 0, 2, 0, 0, 1, 2, 3, 4});
+    }
+
+    @Test
+    @DisplayName("Continuations Need An Unfinished Message And Can't Be Interrupted")
+    public void fragments() throws IOException {
+        start(8);
+        try (var socket = RawWebSocket.connect(port, "/chat")) {
+            socket.send(0x0, true, "stray".getBytes(StandardCharsets.UTF_8));
+            Assertions.assertEquals(WebSocketConnection.PROTOCOL_ERROR, socket.read().closeCode());
+        }
+        try (var socket = RawWebSocket.connect(port, "/chat")) {
+            socket.send(0x1, false, "one".getBytes(StandardCharsets.UTF_8));
+            socket.send(0x1, true, "two".getBytes(StandardCharsets.UTF_8));
+            Assertions.assertEquals(WebSocketConnection.PROTOCOL_ERROR, socket.read().closeCode());
+        }
+    }
+
+    @Test
+    @DisplayName("A Peer That Doesn't Read Is Dropped Instead Of Blocking Senders")
+    public void slowConsumer() throws Exception {
+        start(4);
+        Socket raw = new Socket();
+        raw.setReceiveBufferSize(4096);
+        raw.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        try (var socket = RawWebSocket.connect(raw, "/chat")) {
+            WebSocketConnection connection = handler.opened.poll(10, TimeUnit.SECONDS);
+            Assertions.assertNotNull(connection);
+            byte[] frame = WebSocketConnection.textFrame("x".repeat(60_000));
+            int sent = 0;
+            long start = System.nanoTime();
+            while (connection.send(frame)) {
+                sent++;
+                Assertions.assertTrue(sent < 100_000, "the connection was never dropped");
+            }
+            Assertions.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10), "sending blocked");
+            Assertions.assertFalse(connection.send(frame), "a dropped connection takes no more frames");
+            Assertions.assertTrue(handler.closed.await(10, TimeUnit.SECONDS), "the handler wasn't told");
+        }
+    }
+
+    /**
+     * @return a frame with a short payload and an all-zero mask, with the first byte as given
+     */
+    private static byte[] masked(int first, byte[] payload) {
+        byte[] frame = new byte[2 + 4 + payload.length];
+        frame[0] = (byte) first;
+        frame[1] = (byte) (0x80 | payload.length);
+        System.arraycopy(payload, 0, frame, 6, payload.length);
+        return frame;
+    }
+
+    private void assertClosedWith(int code, byte[] frame) throws IOException {
+        if (server != null) {
+            server.stop();
+        }
+        start(8);
+        try (var socket = RawWebSocket.connect(port, "/chat")) {
+            socket.sendRaw(frame);
+            Assertions.assertEquals(code, socket.read().closeCode());
+            Assertions.assertTrue(socket.isClosedByPeer());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package service;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import model.GameSnapshot;
+import model.GameStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GameActorTests {
+
+    @Test
+    @DisplayName("Actions Run One At A Time, In Order Per Caller")
+    public void serialized() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            GameActor actor = newActor(executor);
+            AtomicInteger running = new AtomicInteger();
+            AtomicInteger overlaps = new AtomicInteger();
+            int[] unguarded = new int[1];
+            List<List<Integer>> seen = new ArrayList<>();
+            for (int caller = 0; caller < 8; caller++) {
+                seen.add(new ArrayList<>());
+            }
+            List<Future<?>> callers = new ArrayList<>();
+            for (int caller = 0; caller < 8; caller++) {
+                int id = caller;
+                callers.add(executor.submit(() -> {
+                    for (int i = 0; i < 500; i++) {
+                        int n = i;
+                        actor.ask(game -> {
+                            if (running.incrementAndGet() != 1) {
+                                overlaps.incrementAndGet();
+                            }
+                            unguarded[0]++;
+                            seen.get(id).add(n);
+                            running.decrementAndGet();
+                            return null;
+                        });
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> caller : callers) {
+                caller.get(30, TimeUnit.SECONDS);
+            }
+            Assertions.assertEquals(0, overlaps.get());
+            Assertions.assertEquals(8 * 500, unguarded[0]);
+            for (List<Integer> order : seen) {
+                for (int i = 0; i < order.size(); i++) {
+                    Assertions.assertEquals(i, order.get(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Readers Get The Published Snapshot Without Waiting On Actions")
+    public void snapshots() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            GameActor actor = newActor(executor);
+            GameSnapshot first = actor.snapshot();
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<GameSnapshot> busy = executor.submit(() -> actor.ask(game -> {
+                started.countDown();
+                game.setTeamTurn(ChessGame.TeamColor.BLACK);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new ServiceException(503, "interrupted");
+                }
+                GameSnapshot next = actor.snapshot().next(game, GameStatus.of(game));
+                actor.publish(next);
+                return next;
+            }));
+            Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+            // the game has changed but nothing was published yet
+            Assertions.assertSame(first, actor.snapshot());
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, actor.snapshot().getTeamTurn());
+            release.countDown();
+            GameSnapshot published = busy.get(10, TimeUnit.SECONDS);
+            Assertions.assertSame(published, actor.snapshot());
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, actor.snapshot().getTeamTurn());
+            Assertions.assertEquals(ChessGame.TeamColor.WHITE, first.getTeamTurn(), "snapshots never change");
+        }
+    }
+
+    @Test
+    @DisplayName("A Retired Actor Refuses Work Until It Is Reinstated")
+    public void retired() throws Exception {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            GameActor actor = newActor(executor);
+            actor.retire(true);
+            var refused = Assertions.assertThrows(ServiceException.class, () -> actor.ask(game -> 1));
+            Assertions.assertEquals(404, refused.getStatusCode());
+            actor.retire(false);
+            Assertions.assertEquals(1, actor.<Integer>ask(game -> 1));
+            var failed = Assertions.assertThrows(ServiceException.class, () -> actor.ask(game -> {
+                throw ServiceException.badRequest("no");
+            }));
+            Assertions.assertEquals(400, failed.getStatusCode());
+            Assertions.assertEquals(2, actor.<Integer>ask(game -> 2), "a failed action doesn't stop the actor");
+        }
+    }
+
+    private static GameActor newActor(Executor executor) {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        return new GameActor(game, GameSnapshot.of(game, GameStatus.ACTIVE), executor);
+    }
+}
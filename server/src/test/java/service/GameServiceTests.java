@@ -0,0 +1,261 @@
+package service;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.notation.Uci;
+import dataAccess.DataAccessException;
+import dataAccess.GameDAO;
+import dataAccess.MemoryGameDAO;
+import model.GameData;
+import model.GameStatus;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static service.Requests.*;
+
+public class GameServiceTests {
+
+    /**
+     * A memory store whose reads and moves can be made to fail
+     */
+    private static class FailingGameDAO implements GameDAO {
+        private final GameDAO games = new MemoryGameDAO();
+        volatile boolean failReads;
+        volatile boolean failMoves;
+        volatile boolean failRemoves;
+
+        @Override
+        public int createGame(String gameName, ChessGame game) throws DataAccessException {
+            return games.createGame(gameName, game);
+        }
+
+        @Override
+        public GameData getGame(int gameID) throws DataAccessException {
+            if (failReads) {
+                throw new DataAccessException("disk gone");
+            }
+            return games.getGame(gameID);
+        }
+
+        @Override
+        public void putGame(GameData game) throws DataAccessException {
+            games.putGame(game);
+        }
+
+        @Override
+        public void removeGame(int gameID) throws DataAccessException {
+            if (failRemoves) {
+                throw new DataAccessException("disk gone");
+            }
+            games.removeGame(gameID);
+        }
+
+        @Override
+        public Collection<GameData> listGames() throws DataAccessException {
+            return games.listGames();
+        }
+
+        @Override
+        public void setPlayer(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+            games.setPlayer(gameID, color, username);
+        }
+
+        @Override
+        public void addMove(int gameID, ChessMove move) throws DataAccessException {
+            if (failMoves) {
+                throw new DataAccessException("disk full");
+            }
+            games.addMove(gameID, move);
+        }
+
+        @Override
+        public void clear() throws DataAccessException {
+            games.clear();
+        }
+    }
+
+    private FailingGameDAO gameDAO;
+    private GameService service;
+    private int gameID;
+    private String white;
+    private String black;
+
+    @BeforeEach
+    public void setup() throws ServiceException {
+        gameDAO = new FailingGameDAO();
+        service = new GameService(gameDAO);
+        gameID = service.createGame(new CreateGameRequest("test")).gameID();
+        white = service.joinGame(gameID, new JoinGameRequest(ChessGame.TeamColor.WHITE, "alice")).playerToken();
+        black = service.joinGame(gameID, new JoinGameRequest(ChessGame.TeamColor.BLACK, "bob")).playerToken();
+    }
+
+    @Test
+    @DisplayName("Moves Publish A New Snapshot And Reach Listeners")
+    public void moves() throws ServiceException {
+        List<String> heard = new ArrayList<>();
+        service.addListener((id, move, status) -> heard.add(id + " " + Uci.move(move) + " " + status.game().getTeamTurn()));
+        var before = service.getStatus(gameID).game();
+
+        var after = service.makeMove(gameID, white, new MoveRequest(Uci.parseMove("e2e4")));
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, after.game().getTeamTurn());
+        Assertions.assertSame(after.game(), service.getStatus(gameID).game());
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, before.getTeamTurn(), "old snapshots stay as they were");
+        Assertions.assertEquals(List.of(gameID + " e2e4 BLACK"), heard);
+        Assertions.assertEquals(20, service.legalMoves(gameID, null).moves().size());
+        Assertions.assertEquals(2, service.legalMoves(gameID, Uci.parseSquare("e7")).moves().size());
+    }
+
+    @Test
+    @DisplayName("Legal Moves Match The Game's Own, En Passant Included")
+    public void legalMoves() throws ServiceException {
+        String[] line = {"e2e4", "a7a6", "e4e5", "d7d5"};
+        for (int ply = 0; ply < line.length; ply++) {
+            service.makeMove(gameID, ply % 2 == 0 ? white : black, new MoveRequest(Uci.parseMove(line[ply])));
+        }
+        ChessGame game = service.getStatus(gameID).game().toGame();
+        Set<ChessMove> expected = new HashSet<>();
+        game.legalMoves(ChessGame.TeamColor.WHITE).forEachRemaining(expected::add);
+        Assertions.assertEquals(expected, Set.copyOf(service.legalMoves(gameID, null).moves()));
+        Assertions.assertTrue(service.legalMoves(gameID, Uci.parseSquare("e5")).moves().contains(Uci.parseMove("e5d6")));
+        Assertions.assertTrue(service.legalMoves(gameID, Uci.parseSquare("d5")).moves().isEmpty(),
+                "only the side to move has moves");
+    }
+
+    @Test
+    @DisplayName("Repetition Only Ends A Game The Fifth Time")
+    public void repetition() throws ServiceException {
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        GameStatusResult status = null;
+        for (int ply = 0; ply < 16; ply++) {
+            Assertions.assertFalse(status != null && status.status().isOver(), "over after " + ply + " moves");
+            status = service.makeMove(gameID, ply % 2 == 0 ? white : black,
+                    new MoveRequest(Uci.parseMove(shuffle[ply % 4])));
+        }
+        Assertions.assertEquals(GameStatus.FIVEFOLD_REPETITION, status.status());
+        assertStatus(403, () -> service.makeMove(gameID, white, new MoveRequest(Uci.parseMove("e2e4"))));
+    }
+
+    @Test
+    @DisplayName("Requests Fail With Fitting Status Codes")
+    public void errors() throws ServiceException {
+        assertStatus(400, () -> service.createGame(new CreateGameRequest(" ")));
+        assertStatus(404, () -> service.getStatus(gameID + 100));
+        assertStatus(403, () -> service.joinGame(gameID, new JoinGameRequest(ChessGame.TeamColor.WHITE, "carol")));
+        assertStatus(401, () -> service.makeMove(gameID, null, new MoveRequest(Uci.parseMove("e2e4"))));
+        assertStatus(401, () -> service.makeMove(gameID, "forged", new MoveRequest(Uci.parseMove("e2e4"))));
+        assertStatus(403, () -> service.makeMove(gameID, black, new MoveRequest(Uci.parseMove("e7e5"))));
+        assertStatus(400, () -> service.makeMove(gameID, white, new MoveRequest(Uci.parseMove("e2e5"))));
+        assertStatus(400, () -> service.makeMove(gameID, white, new MoveRequest(Uci.parseMove("e7e5"))));
+        // the seated player may join again
+        Assertions.assertNotNull(service.joinGame(gameID, new JoinGameRequest(ChessGame.TeamColor.WHITE, "alice")));
+    }
+
+    @Test
+    @DisplayName("A Move The Store Can't Record Is Taken Back")
+    public void storageFailure() throws ServiceException {
+        gameDAO.failMoves = true;
+        assertStatus(500, () -> service.makeMove(gameID, white, new MoveRequest(Uci.parseMove("e2e4"))));
+        var status = service.getStatus(gameID);
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, status.game().getTeamTurn());
+        Assertions.assertEquals(GameStatus.ACTIVE, status.status());
+
+        gameDAO.failMoves = false;
+        service.makeMove(gameID, white, new MoveRequest(Uci.parseMove("e2e4")));
+        service.makeMove(gameID, black, new MoveRequest(Uci.parseMove("e7e5")));
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, service.getStatus(gameID).game().getTeamTurn());
+    }
+
+    @Test
+    @DisplayName("Handed Off Games Leave With Their Tokens")
+    public void handOff() throws ServiceException {
+        service.makeMove(gameID, white, new MoveRequest(Uci.parseMove("d2d4")));
+        List<MovedGame> sent = new ArrayList<>();
+        service.handOff(List.of(gameID), sent::addAll);
+
+        Assertions.assertFalse(service.hasGame(gameID));
+        assertStatus(404, () -> service.getStatus(gameID));
+        Assertions.assertEquals(1, sent.size());
+        MovedGame moved = sent.get(0);
+        Assertions.assertEquals("alice", moved.whiteUsername());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, moved.seats().get(black));
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, moved.seats().get(white));
+
+        var other = new GameService(new MemoryGameDAO());
+        other.adopt(sent);
+        var status = other.makeMove(gameID, black, new MoveRequest(Uci.parseMove("d7d5")));
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, status.game().getTeamTurn());
+        Assertions.assertEquals("bob", status.blackUsername());
+        assertStatus(409, () -> other.adopt(sent));
+    }
+
+    @Test
+    @DisplayName("Handed Off Games Keep Counting Repetitions")
+    public void handOffRepetitions() throws ServiceException {
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        for (int ply = 0; ply < 12; ply++) {
+            service.makeMove(gameID, ply % 2 == 0 ? white : black, new MoveRequest(Uci.parseMove(shuffle[ply % 4])));
+        }
+        List<MovedGame> sent = new ArrayList<>();
+        service.handOff(List.of(gameID), sent::addAll);
+        Assertions.assertEquals(12, sent.get(0).positions().length);
+
+        var other = new GameService(new MemoryGameDAO());
+        other.adopt(sent);
+        GameStatusResult status = null;
+        for (int ply = 0; ply < 4; ply++) {
+            status = other.makeMove(gameID, ply % 2 == 0 ? white : black,
+                    new MoveRequest(Uci.parseMove(shuffle[ply % 4])));
+        }
+        Assertions.assertEquals(GameStatus.FIVEFOLD_REPETITION, status.status());
+    }
+
+    @Test
+    @DisplayName("A Failed Hand-Off Leaves The Game Served Here")
+    public void failedHandOff() throws ServiceException {
+        assertStatus(502, () -> service.handOff(List.of(gameID), games -> {
+            throw new ServiceException(502, "refused");
+        }));
+        Assertions.assertTrue(service.hasGame(gameID));
+        service.makeMove(gameID, white, new MoveRequest(Uci.parseMove("e2e4")));
+
+        gameDAO.failReads = true;
+        assertStatus(500, () -> service.handOff(List.of(gameID), games -> Assertions.fail("nothing to send")));
+        gameDAO.failReads = false;
+        // the actor wasn't left retired, so the game doesn't claim to have moved
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, service.getStatus(gameID).game().getTeamTurn());
+        service.makeMove(gameID, black, new MoveRequest(Uci.parseMove("e7e5")));
+    }
+
+    @Test
+    @DisplayName("Games Delivered Elsewhere Leave Even If The Store Can't Drop Them")
+    public void handOffRemoveFailure() throws ServiceException {
+        int other = service.createGame(new CreateGameRequest("other")).gameID();
+        String otherWhite = service.joinGame(other, new JoinGameRequest(ChessGame.TeamColor.WHITE, "carol"))
+                .playerToken();
+        gameDAO.failRemoves = true;
+        List<MovedGame> sent = new ArrayList<>();
+        service.handOff(List.of(gameID, other), sent::addAll);
+
+        Assertions.assertEquals(2, sent.size());
+        Assertions.assertTrue(service.gameIDs().isEmpty());
+        assertStatus(404, () -> service.getStatus(other));
+        assertStatus(401, () -> service.makeMove(other, otherWhite, new MoveRequest(Uci.parseMove("e2e4"))));
+    }
+
+    private interface Call {
+        void run() throws ServiceException;
+    }
+
+    private static void assertStatus(int expected, Call call) {
+        var thrown = Assertions.assertThrows(ServiceException.class, call::run);
+        Assertions.assertEquals(expected, thrown.getStatusCode(), thrown.getMessage());
+    }
+}
@@ -0,0 +1,111 @@
+package chess;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The squares each side attacks in one position, worked out once. A square
+ * counts as attacked when a piece could capture on it if an enemy piece
+ * stood there, so squares holding a side's own pieces are included
+ * (defended) and pawns attack diagonally only.
+ * <p>
+ * The map never changes; {@link ChessBoard#getAttackMap()} keeps one until
+ * a piece is added, moved or removed.
+ */
+public final class AttackMap {
+
+    private final long[] attacked = new long[2];
+    private final long[] occupied = new long[2];
+    private final int[] kings = {-1, -1};
+    /**
+     * Per square: what the piece on it attacks, or 0 if it is empty
+     */
+    private final long[] attacksFrom = new long[64];
+
+    private AttackMap() {
+    }
+
+    /**
+     * Works out the attacks of both sides on a board; unlike a {@link ChessBoard}
+     * map, this one is not kept up to date as moves are made
+     */
+    public static AttackMap of(FastBoard board) {
+        AttackMap map = new AttackMap();
+        long all = board.colorBits(FastBoard.WHITE) | board.colorBits(FastBoard.BLACK);
+        for (int color = FastBoard.WHITE; color <= FastBoard.BLACK; color++) {
+            map.occupied[color] = board.colorBits(color);
+            map.kings[color] = board.kingSquare(color);
+            for (long pieces = board.colorBits(color); pieces != 0; pieces &= pieces - 1) {
+                int sq = Long.numberOfTrailingZeros(pieces);
+                long attacks = Bitboards.attacks(board.pieceAt(sq) & 7, color, sq, all);
+                map.attacksFrom[sq] = attacks;
+                map.attacked[color] |= attacks;
+            }
+        }
+        return map;
+    }
+
+    /**
+     * @return the squares a team attacks, as a {@link FastBoard} bitboard
+     */
+    public long attackedSquares(ChessGame.TeamColor team) {
+        return attacked[FastBoard.color(team)];
+    }
+
+    /**
+     * @return the squares a team attacks, a1 first
+     */
+    public List<ChessPosition> attackedPositions(ChessGame.TeamColor team) {
+        return positions(attackedSquares(team));
+    }
+
+    public boolean isAttacked(ChessPosition position, ChessGame.TeamColor by) {
+        return (attackedSquares(by) & 1L << FastBoard.square(position)) != 0;
+    }
+
+    /**
+     * @return how many of a team's pieces attack a square
+     */
+    public int attackerCount(ChessPosition position, ChessGame.TeamColor by) {
+        long bit = 1L << FastBoard.square(position);
+        int count = 0;
+        for (long pieces = occupied[FastBoard.color(by)]; pieces != 0; pieces &= pieces - 1) {
+            if ((attacksFrom[Long.numberOfTrailingZeros(pieces)] & bit) != 0) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the squares the piece on a square attacks, as a {@link FastBoard}
+     * bitboard, or 0 if the square is empty
+     */
+    public long attacksFrom(ChessPosition position) {
+        return attacksFrom[FastBoard.square(position)];
+    }
+
+    /**
+     * @return the team's pieces that the other team attacks, a1 first
+     */
+    public List<ChessPosition> threatenedPieces(ChessGame.TeamColor team) {
+        int color = FastBoard.color(team);
+        return positions(occupied[color] & attacked[color ^ 1]);
+    }
+
+    /**
+     * @return true if the team's king is attacked; a team without a king is never in check
+     */
+    public boolean inCheck(ChessGame.TeamColor team) {
+        int color = FastBoard.color(team);
+        return kings[color] >= 0 && (attacked[color ^ 1] & 1L << kings[color]) != 0;
+    }
+
+    private static List<ChessPosition> positions(long squares) {
+        List<ChessPosition> positions = new ArrayList<>(Long.bitCount(squares));
+        for (; squares != 0; squares &= squares - 1) {
+            positions.add(FastBoard.position(Long.numberOfTrailingZeros(squares)));
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,149 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed attack sets for {@link FastBoard}, one bit per square with
+ * bit 0 being a1 and bit 63 being h8
+ */
+final class Bitboards {
+
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    /**
+     * Squares a pawn of each colour attacks from each square
+     */
+    static final long[][] PAWN = new long[2][64];
+    /**
+     * The castling rights kept when a piece moves from or to each square;
+     * touching a king or rook home square loses the rights that need it
+     */
+    static final int[] CASTLING_KEPT = new int[64];
+
+    private static final int NORTH = 0;
+    private static final int EAST = 1;
+    private static final int NORTH_EAST = 2;
+    private static final int NORTH_WEST = 3;
+    private static final int SOUTH = 4;
+    private static final int WEST = 5;
+    private static final int SOUTH_WEST = 6;
+    private static final int SOUTH_EAST = 7;
+
+    private static final int[] ROW_STEP = {1, 0, 1, 1, -1, 0, -1, -1};
+    private static final int[] COLUMN_STEP = {0, 1, 1, -1, 0, -1, -1, 1};
+    private static final long[][] RAYS = new long[8][64];
+
+    static {
+        Arrays.fill(CASTLING_KEPT, ChessBoard.ALL_CASTLING);
+        CASTLING_KEPT[0] &= ~ChessBoard.WHITE_QUEENSIDE;
+        CASTLING_KEPT[4] &= ~(ChessBoard.WHITE_KINGSIDE | ChessBoard.WHITE_QUEENSIDE);
+        CASTLING_KEPT[7] &= ~ChessBoard.WHITE_KINGSIDE;
+        CASTLING_KEPT[56] &= ~ChessBoard.BLACK_QUEENSIDE;
+        CASTLING_KEPT[60] &= ~(ChessBoard.BLACK_KINGSIDE | ChessBoard.BLACK_QUEENSIDE);
+        CASTLING_KEPT[63] &= ~ChessBoard.BLACK_KINGSIDE;
+        for (int sq = 0; sq < 64; sq++) {
+            int row = sq >>> 3;
+            int col = sq & 7;
+            KNIGHT[sq] = jumps(row, col, new int[][]{{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}});
+            KING[sq] = jumps(row, col, new int[][]{{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}});
+            PAWN[FastBoard.WHITE][sq] = jumps(row, col, new int[][]{{1, -1}, {1, 1}});
+            PAWN[FastBoard.BLACK][sq] = jumps(row, col, new int[][]{{-1, -1}, {-1, 1}});
+            for (int dir = 0; dir < 8; dir++) {
+                long ray = 0;
+                for (int r = row + ROW_STEP[dir], c = col + COLUMN_STEP[dir]; r >= 0 && r < 8 && c >= 0 && c < 8;
+                     r += ROW_STEP[dir], c += COLUMN_STEP[dir]) {
+                    ray |= 1L << (r * 8 + c);
+                }
+                RAYS[dir][sq] = ray;
+            }
+        }
+    }
+
+    private Bitboards() {
+    }
+
+    private static long jumps(int row, int col, int[][] steps) {
+        long bits = 0;
+        for (int[] step : steps) {
+            int r = row + step[0];
+            int c = col + step[1];
+            if (r >= 0 && r < 8 && c >= 0 && c < 8) {
+                bits |= 1L << (r * 8 + c);
+            }
+        }
+        return bits;
+    }
+
+    static long rookAttacks(int sq, long occupied) {
+        return positiveRay(NORTH, sq, occupied) | positiveRay(EAST, sq, occupied)
+                | negativeRay(SOUTH, sq, occupied) | negativeRay(WEST, sq, occupied);
+    }
+
+    static long bishopAttacks(int sq, long occupied) {
+        return positiveRay(NORTH_EAST, sq, occupied) | positiveRay(NORTH_WEST, sq, occupied)
+                | negativeRay(SOUTH_WEST, sq, occupied) | negativeRay(SOUTH_EAST, sq, occupied);
+    }
+
+    static long queenAttacks(int sq, long occupied) {
+        return rookAttacks(sq, occupied) | bishopAttacks(sq, occupied);
+    }
+
+    /**
+     * @return the squares a piece of the given kind and colour attacks from a square
+     */
+    static long attacks(int kind, int color, int sq, long occupied) {
+        return switch (kind) {
+            case FastBoard.PAWN -> PAWN[color][sq];
+            case FastBoard.KNIGHT -> KNIGHT[sq];
+            case FastBoard.BISHOP -> bishopAttacks(sq, occupied);
+            case FastBoard.ROOK -> rookAttacks(sq, occupied);
+            case FastBoard.QUEEN -> queenAttacks(sq, occupied);
+            case FastBoard.KING -> KING[sq];
+            default -> 0;
+        };
+    }
+
+    /**
+     * @return the squares strictly between two squares on the same row, column
+     * or diagonal, or 0 if they are not on one
+     */
+    static long between(int from, int to) {
+        for (int dir = 0; dir < 8; dir++) {
+            if ((RAYS[dir][from] & 1L << to) != 0) {
+                return RAYS[dir][from] & ~RAYS[dir][to] & ~(1L << to);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the whole row, column or diagonal through two squares, both
+     * included, or 0 if they are not on one
+     */
+    static long line(int a, int b) {
+        for (int dir = 0; dir < 8; dir++) {
+            if ((RAYS[dir][a] & 1L << b) != 0) {
+                return RAYS[dir][a] | RAYS[dir ^ 4][a] | 1L << a;
+            }
+        }
+        return 0;
+    }
+
+    private static long positiveRay(int dir, int sq, long occupied) {
+        long ray = RAYS[dir][sq];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[dir][Long.numberOfTrailingZeros(blockers)];
+        }
+        return ray;
+    }
+
+    private static long negativeRay(int dir, int sq, long occupied) {
+        long ray = RAYS[dir][sq];
+        long blockers = ray & occupied;
+        if (blockers != 0) {
+            ray ^= RAYS[dir][63 - Long.numberOfLeadingZeros(blockers)];
+        }
+        return ray;
+    }
+}
@@ -1,6 +1,8 @@
 package chess;
 
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
@@ -10,7 +12,29 @@ import java.util.Arrays;
  */
 public class ChessBoard {
 
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING = 15;
+
     private ChessPiece[][] squares = new ChessPiece[8][8];
+    /**
+     * The occupied squares of each colour, indexed by {@link FastBoard#color}
+     * and numbered like {@link FastBoard} squares, kept in step with
+     * {@link #squares} so a team's pieces can be visited without scanning
+     * the empty squares
+     */
+    private final long[] occupied = new long[2];
+    /**
+     * Worked out when first asked for and dropped whenever a square changes
+     */
+    private AttackMap attackMap;
+    /**
+     * Castling rights in the low four bits and the en passant target square
+     * plus one above them, 0 meaning there is none
+     */
+    private int state = ALL_CASTLING;
 
     public ChessBoard() {
 
@@ -22,6 +46,10 @@ public class ChessBoard {
                 this.squares[i][j] = copyBoard.squares[i][j];
             }
         }
+        this.occupied[FastBoard.WHITE] = copyBoard.occupied[FastBoard.WHITE];
+        this.occupied[FastBoard.BLACK] = copyBoard.occupied[FastBoard.BLACK];
+        this.attackMap = copyBoard.attackMap;
+        this.state = copyBoard.state;
     }
 
     /**
@@ -31,7 +59,20 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow() - 1][position.getColumn() - 1] = piece;
+        put(position.getRow(), position.getColumn(), piece);
+    }
+
+    private void put(int row, int column, ChessPiece piece) {
+        long bit = 1L << FastBoard.square(row, column);
+        ChessPiece old = squares[row - 1][column - 1];
+        if (old != null) {
+            occupied[FastBoard.color(old.getTeamColor())] &= ~bit;
+        }
+        if (piece != null) {
+            occupied[FastBoard.color(piece.getTeamColor())] |= bit;
+        }
+        squares[row - 1][column - 1] = piece;
+        attackMap = null;
     }
 
     /**
@@ -45,6 +86,225 @@ public class ChessBoard {
         return squares[position.getRow() - 1][position.getColumn() - 1];
     }
 
+    /**
+     * Gets a chess piece on the chessboard without allocating a position
+     *
+     * @param row    the row, 1 being the bottom row
+     * @param column the column, 1 being the left column
+     * @return Either the piece at the square, or null if the square is empty
+     */
+    public ChessPiece getPiece(int row, int column) {
+        return squares[row - 1][column - 1];
+    }
+
+    /**
+     * A piece together with the square it stands on
+     */
+    public record PlacedPiece(ChessPosition position, ChessPiece piece) {
+    }
+
+    /**
+     * Visits a team's pieces in square order, a1 first, without looking at the
+     * other squares. The board must not be changed while iterating.
+     */
+    public Iterable<PlacedPiece> pieces(ChessGame.TeamColor team) {
+        return () -> new PieceIterator(occupied[FastBoard.color(team)]);
+    }
+
+    /**
+     * Visits the pieces of both teams in square order, a1 first. The board
+     * must not be changed while iterating.
+     */
+    public Iterable<PlacedPiece> pieces() {
+        return () -> new PieceIterator(occupied[FastBoard.WHITE] | occupied[FastBoard.BLACK]);
+    }
+
+    /**
+     * @return the squares a team's pieces stand on, as a {@link FastBoard} bitboard
+     */
+    public long occupiedSquares(ChessGame.TeamColor team) {
+        return occupied[FastBoard.color(team)];
+    }
+
+    public int pieceCount(ChessGame.TeamColor team) {
+        return Long.bitCount(occupied[FastBoard.color(team)]);
+    }
+
+    /**
+     * @return the squares each team attacks, worked out once and reused until
+     * a piece is added, moved or removed
+     */
+    public AttackMap getAttackMap() {
+        if (attackMap == null) {
+            attackMap = AttackMap.of(FastBoard.of(this, ChessGame.TeamColor.WHITE));
+        }
+        return attackMap;
+    }
+
+    private class PieceIterator implements Iterator<PlacedPiece> {
+        private long remaining;
+
+        PieceIterator(long squares) {
+            remaining = squares;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return remaining != 0;
+        }
+
+        @Override
+        public PlacedPiece next() {
+            if (remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            int square = Long.numberOfTrailingZeros(remaining);
+            remaining &= remaining - 1;
+            return new PlacedPiece(FastBoard.position(square), squares[square >>> 3][square & 7]);
+        }
+    }
+
+    /**
+     * Gets the castling rights still held, as a mask of {@link #WHITE_KINGSIDE},
+     * {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE} and {@link #BLACK_QUEENSIDE}.
+     * A right is only reported while its king and rook stand on their home
+     * squares, so a board set up piece by piece can castle.
+     */
+    public int getCastlingRights() {
+        return state & castlingAvailable();
+    }
+
+    public void setCastlingRights(int rights) {
+        state = (state & ~ALL_CASTLING) | (rights & ALL_CASTLING);
+    }
+
+    /**
+     * @return the rights the kings and rooks on their home squares would allow
+     */
+    public int castlingAvailable() {
+        int rights = 0;
+        if (isHome(1, 5, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING)) {
+            rights |= isHome(1, 8, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK) ? WHITE_KINGSIDE : 0;
+            rights |= isHome(1, 1, ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK) ? WHITE_QUEENSIDE : 0;
+        }
+        if (isHome(8, 5, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING)) {
+            rights |= isHome(8, 8, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK) ? BLACK_KINGSIDE : 0;
+            rights |= isHome(8, 1, ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK) ? BLACK_QUEENSIDE : 0;
+        }
+        return rights;
+    }
+
+    private boolean isHome(int row, int column, ChessGame.TeamColor team, ChessPiece.PieceType type) {
+        ChessPiece piece = squares[row - 1][column - 1];
+        return piece != null && piece.getTeamColor() == team && piece.getPieceType() == type;
+    }
+
+    /**
+     * Gets the square a pawn can be taken on en passant, which is only set
+     * right after a double pawn push that an enemy pawn stands beside
+     *
+     * @return the square passed over, as a {@link FastBoard} square, or -1 if there is none
+     */
+    public int getEnPassantSquare() {
+        int square = (state >>> 4) - 1;
+        if (square < 0) {
+            return -1;
+        }
+        int row = square >>> 3;
+        int column = square & 7;
+        ChessGame.TeamColor pushed = row == 2 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        int pawnRow = row == 2 ? 4 : 5;
+        if ((row != 2 && row != 5) || !isHome(pawnRow, column + 1, pushed, ChessPiece.PieceType.PAWN)) {
+            return -1;
+        }
+        ChessGame.TeamColor capturer = pushed == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        boolean capturable = (column > 0 && isHome(pawnRow, column, capturer, ChessPiece.PieceType.PAWN))
+                || (column < 7 && isHome(pawnRow, column + 2, capturer, ChessPiece.PieceType.PAWN));
+        return capturable ? square : -1;
+    }
+
+    /**
+     * @return the square a pawn can be taken on en passant, or null if there is none
+     */
+    public ChessPosition getEnPassant() {
+        int square = getEnPassantSquare();
+        return square < 0 ? null : FastBoard.position(square);
+    }
+
+    /**
+     * @param position the square passed over by a double pawn push, or null for none
+     */
+    public void setEnPassant(ChessPosition position) {
+        int square = position == null ? -1 : FastBoard.square(position);
+        state = (state & ALL_CASTLING) | (square + 1) << 4;
+    }
+
+    /**
+     * Moves a piece without checking that the move is legal. Castling also
+     * moves the rook, an en passant capture removes the pawn taken, and the
+     * castling rights and en passant square are updated to match.
+     */
+    public void applyMove(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece piece = getPiece(start);
+        int from = FastBoard.square(start);
+        int to = FastBoard.square(end);
+        ChessPiece.PieceType type = piece.getPieceType();
+        int columns = end.getColumn() - start.getColumn();
+        if (type == ChessPiece.PieceType.PAWN && columns != 0 && to == getEnPassantSquare()) {
+            put(start.getRow(), end.getColumn(), null);
+        } else if (type == ChessPiece.PieceType.KING && Math.abs(columns) == 2) {
+            int rookColumn = columns > 0 ? 8 : 1;
+            put(start.getRow(), start.getColumn() + columns / 2, squares[start.getRow() - 1][rookColumn - 1]);
+            put(start.getRow(), rookColumn, null);
+        }
+        put(end.getRow(), end.getColumn(), move.getPromotionPiece() == null
+                ? piece : new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
+        put(start.getRow(), start.getColumn(), null);
+
+        int rights = state & Bitboards.CASTLING_KEPT[from] & Bitboards.CASTLING_KEPT[to];
+        int passed = type == ChessPiece.PieceType.PAWN && Math.abs(to - from) == 16 ? (from + to) / 2 : -1;
+        state = rights | (passed + 1) << 4;
+        if (getEnPassantSquare() < 0) {
+            state = rights;
+        }
+    }
+
+    /**
+     * @return the castling rights and en passant square packed as stored,
+     * for {@link #unapplyMove} to restore
+     */
+    int packedState() {
+        return state;
+    }
+
+    /**
+     * Takes back a move passed to {@link #applyMove}
+     *
+     * @param moved         the piece that was on the start square
+     * @param captured      the piece the move took, if any, including a pawn taken en passant
+     * @param previousState {@link #packedState()} from before the move
+     */
+    void unapplyMove(ChessMove move, ChessPiece moved, ChessPiece captured, int previousState) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        state = previousState;
+        int columns = end.getColumn() - start.getColumn();
+        put(start.getRow(), start.getColumn(), moved);
+        put(end.getRow(), end.getColumn(), null);
+        if (moved.getPieceType() == ChessPiece.PieceType.PAWN && columns != 0
+                && FastBoard.square(end) == (previousState >>> 4) - 1) {
+            put(start.getRow(), end.getColumn(), captured);
+        } else if (moved.getPieceType() == ChessPiece.PieceType.KING && Math.abs(columns) == 2) {
+            int rookColumn = columns > 0 ? 8 : 1;
+            put(start.getRow(), rookColumn, squares[start.getRow() - 1][start.getColumn() + columns / 2 - 1]);
+            put(start.getRow(), start.getColumn() + columns / 2, null);
+        } else {
+            put(end.getRow(), end.getColumn(), captured);
+        }
+    }
+
     /**
      * Sets the board to the default starting board
      * (How the game of chess normally starts)
@@ -76,8 +336,13 @@ public class ChessBoard {
         //add kings
         addPiece(new ChessPosition(1, 5), new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING));
         addPiece(new ChessPosition(8, 5), new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING));
+        state = ALL_CASTLING;
     }
 
+    /**
+     * Compares the pieces only; castling rights and the en passant square are
+     * game state, which {@link FastBoard#equals} does include
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
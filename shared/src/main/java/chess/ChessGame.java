@@ -1,10 +1,12 @@
 package chess;
 
+import chess.tablebase.TablebaseResult;
+import chess.tablebase.Tablebases;
+
 import java.sql.Array;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashSet;
-import java.util.Objects;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * For a class that can manage a chess game, making moves on a board
@@ -13,9 +15,52 @@ import java.util.Objects;
  * signature of the existing methods.
  */
 public class ChessGame {
+
+    /**
+     * How many position hashes are kept; more than the 150 plies after
+     * which the seventy-five-move rule ends the game anyway
+     */
+    static final int HISTORY_SIZE = 256;
+
     private ChessBoard chessBoard;
     private TeamColor currentTeam;
     private ChessMove move;
+    private Tablebases tablebases;
+    /**
+     * Ring buffer of the {@link FastBoard#hash()} of recent positions, the
+     * current position last; position i is in slot i % HISTORY_SIZE
+     */
+    private final long[] history = new long[HISTORY_SIZE];
+    private int historyCount;
+    /**
+     * The first position since the last pawn move or capture
+     */
+    private int historyStart;
+    private int halfmoveClock;
+    /**
+     * Undo records of the moves made, including any taken back that can
+     * still be redone
+     */
+    private final List<Ply> plies = new ArrayList<>();
+    /**
+     * How many of {@link #plies} are on the board
+     */
+    private int ply;
+
+    /**
+     * What a move changed, so it can be taken back without replaying the game
+     *
+     * @param moved          the piece that moved, before any promotion
+     * @param captured       the piece taken, including a pawn taken en passant
+     * @param boardState     the board's castling and en passant state before the move
+     * @param halfmoveClock  the clock before the move
+     * @param historyStart   {@link #historyStart} before the move
+     * @param overwritten    the history slot the new position replaced
+     * @param hash           the hash of the position after the move
+     */
+    private record Ply(ChessMove move, ChessPiece moved, ChessPiece captured, int boardState, int halfmoveClock,
+                       int historyStart, long overwritten, long hash) {
+    }
 
     public ChessGame() {
         this.currentTeam = TeamColor.WHITE;
@@ -36,6 +81,189 @@ public class ChessGame {
      */
     public void setTeamTurn(TeamColor team) {
         this.currentTeam = team;
+        clearHistory();
+    }
+
+    /**
+     * @return the number of moves since the last pawn move or capture
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public void setHalfmoveClock(int halfmoveClock) {
+        this.halfmoveClock = halfmoveClock;
+    }
+
+    /**
+     * Counts how often the current position has occurred with the same
+     * player to move and the same rights, looking back only as far as the
+     * last pawn move or capture. Positions from before the board or turn
+     * was last set are not known.
+     *
+     * @return at least 1, the current position itself
+     */
+    public int repetitions() {
+        if (historyCount == 0) {
+            return 1;
+        }
+        long current = history[(historyCount - 1) % HISTORY_SIZE];
+        int count = 1;
+        for (int i = historyCount - 3; i >= Math.max(historyStart, historyCount - HISTORY_SIZE); i -= 2) {
+            if (history[i % HISTORY_SIZE] == current) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return True if the current position has occurred three times, so
+     * either player may claim a draw
+     */
+    public boolean isDrawByRepetition() {
+        return repetitions() >= 3;
+    }
+
+    /**
+     * @return True if fifty moves by each player have passed without a pawn
+     * move or capture, so either player may claim a draw
+     */
+    public boolean isDrawByFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * @return True if the current position has occurred five times, which
+     * draws the game without a claim
+     */
+    public boolean isDrawByFivefoldRepetition() {
+        return repetitions() >= 5;
+    }
+
+    /**
+     * @return True if seventy-five moves by each player have passed without
+     * a pawn move or capture, which draws the game without a claim
+     */
+    public boolean isDrawBySeventyFiveMoveRule() {
+        return halfmoveClock >= 150;
+    }
+
+    /**
+     * @return the hashes of the positions before the current one since the
+     * last pawn move or capture, oldest first, as far as they are known
+     */
+    public long[] getEarlierPositions() {
+        if (historyCount == 0) {
+            return new long[0];
+        }
+        int first = Math.max(historyStart, historyCount - HISTORY_SIZE);
+        long[] positions = new long[historyCount - 1 - first];
+        for (int i = first; i < historyCount - 1; i++) {
+            positions[i - first] = history[i % HISTORY_SIZE];
+        }
+        return positions;
+    }
+
+    /**
+     * Sets the positions that came before the current one, e.g. from
+     * {@link #getEarlierPositions()} of a copy of this game, so repetitions
+     * are still counted. Like setting the board, this forgets the moves made.
+     *
+     * @param positions position hashes since the last pawn move or capture, oldest first
+     */
+    public void setEarlierPositions(long[] positions) {
+        clearHistory();
+        for (int i = Math.max(positions.length - (HISTORY_SIZE - 1), 0); i < positions.length; i++) {
+            recordPosition(positions[i]);
+        }
+        recordPosition(FastBoard.of(chessBoard, currentTeam).hash());
+    }
+
+    /**
+     * Appends a position to the history, as {@link FastBoard#toChessGame()}
+     * does to carry over the positions it replayed
+     */
+    void recordPosition(long hash) {
+        history[historyCount % HISTORY_SIZE] = hash;
+        historyCount++;
+    }
+
+    private void clearHistory() {
+        historyCount = 0;
+        historyStart = 0;
+        plies.clear();
+        ply = 0;
+    }
+
+    /**
+     * @return every move made since the board or turn was last set,
+     * including moves taken back that can still be redone
+     */
+    public List<ChessMove> getMoveHistory() {
+        List<ChessMove> moves = new ArrayList<>(plies.size());
+        for (Ply made : plies) {
+            moves.add(made.move());
+        }
+        return moves;
+    }
+
+    /**
+     * @return how many moves of {@link #getMoveHistory()} are on the board
+     */
+    public int getPly() {
+        return ply;
+    }
+
+    /**
+     * Takes back the last move on the board, keeping it to be redone
+     *
+     * @return the move taken back, or null if there is none
+     */
+    public ChessMove undoMove() {
+        if (ply == 0) {
+            return null;
+        }
+        Ply last = plies.get(--ply);
+        chessBoard.unapplyMove(last.move(), last.moved(), last.captured(), last.boardState());
+        currentTeam = last.moved().getTeamColor();
+        halfmoveClock = last.halfmoveClock();
+        historyStart = last.historyStart();
+        historyCount--;
+        history[historyCount % HISTORY_SIZE] = last.overwritten();
+        return last.move();
+    }
+
+    /**
+     * Makes the next move taken back by {@link #undoMove()} again, without
+     * checking it again
+     *
+     * @return the move made, or null if there is none to redo
+     */
+    public ChessMove redoMove() {
+        if (ply == plies.size()) {
+            return null;
+        }
+        Ply next = plies.get(ply);
+        plies.set(ply++, play(next.move(), next.hash()));
+        return next.move();
+    }
+
+    /**
+     * Undoes or redoes moves until the given number of moves are on the board
+     *
+     * @param target from 0 to the size of {@link #getMoveHistory()}
+     */
+    public void goToPly(int target) {
+        if (target < 0 || target > plies.size()) {
+            throw new IndexOutOfBoundsException("ply " + target + " of " + plies.size());
+        }
+        while (ply > target) {
+            undoMove();
+        }
+        while (ply < target) {
+            redoMove();
+        }
     }
 
     /**
@@ -54,32 +282,68 @@ public class ChessGame {
      * startPosition
      */
     public Collection<ChessMove> validMoves(ChessPosition startPosition) {
-        Collection<ChessMove> validMoves = new HashSet<>();
         ChessPiece piece = chessBoard.getPiece(startPosition);
-
         if (piece == null) {
             return null;
-        } else {
-            Collection<ChessMove> allMoves = piece.pieceMoves(chessBoard, startPosition);
+        }
+        Collection<ChessMove> validMoves = new HashSet<>();
+        legalMoves(startPosition).forEachRemaining(validMoves::add);
+        return validMoves;
+    }
 
-            for (ChessMove move : allMoves) {
-                ChessBoard tempBoard = new ChessBoard(chessBoard);
-                ChessPiece tempPiece = tempBoard.getPiece(startPosition);
+    /**
+     * Generates the legal moves of the piece on a square one at a time,
+     * including castling and en passant, as the iterator is advanced. The
+     * board must not be changed while the iterator is in use.
+     *
+     * @return the moves, or none if the square is empty
+     */
+    public Iterator<ChessMove> legalMoves(ChessPosition startPosition) {
+        ChessPiece piece = chessBoard.getPiece(startPosition);
+        if (piece == null) {
+            return Collections.emptyIterator();
+        }
+        return Spliterators.iterator(legalMoveSpliterator(chessBoard, piece.getTeamColor(),
+                1L << FastBoard.square(startPosition)));
+    }
 
+    /**
+     * Generates every legal move of a team one at a time, as the iterator is
+     * advanced. The board must not be changed while the iterator is in use.
+     */
+    public Iterator<ChessMove> legalMoves(TeamColor team) {
+        return Spliterators.iterator(legalMoveSpliterator(chessBoard, team, -1L));
+    }
 
-                if (move.getPromotionPiece() != null) {
-                    tempBoard.addPiece(new ChessPosition(move.getEndPosition().getRow(), move.getEndPosition().getColumn()),
-                            new ChessPiece(piece.getTeamColor(), move.getPromotionPiece()));
-                } else {
-                    tempBoard.addPiece(new ChessPosition(move.getEndPosition().getRow(), move.getEndPosition().getColumn()), tempPiece);
-                }
-                tempBoard.addPiece(new ChessPosition(move.getStartPosition().getRow(), move.getStartPosition().getColumn()), null);
-                if (!isInCheck(tempBoard, tempPiece.getTeamColor())) {
-                    validMoves.add(move);
-                }
-            }
+    /**
+     * @return a sequential stream of every legal move of a team, generated as it is consumed
+     */
+    public Stream<ChessMove> legalMoveStream(TeamColor team) {
+        return StreamSupport.stream(legalMoveSpliterator(chessBoard, team, -1L), false);
+    }
+
+    /**
+     * Counts a team's legal moves without building them
+     */
+    public int countLegalMoves(TeamColor team) {
+        return FastBoard.of(chessBoard, team).countLegal(-1L);
+    }
+
+    /**
+     * Counts the legal moves of the piece on a square without building them
+     *
+     * @return the number of moves, or 0 if the square is empty
+     */
+    public int countLegalMoves(ChessPosition startPosition) {
+        ChessPiece piece = chessBoard.getPiece(startPosition);
+        if (piece == null) {
+            return 0;
         }
-        return validMoves;
+        return FastBoard.of(chessBoard, piece.getTeamColor()).countLegal(1L << FastBoard.square(startPosition));
+    }
+
+    private static Spliterator<ChessMove> legalMoveSpliterator(ChessBoard board, TeamColor team, long squares) {
+        return new LegalMoveSpliterator(FastBoard.of(board, team), squares);
     }
 
     //not using this now but could be emplyed for better efficiency in the future
@@ -98,29 +362,134 @@ public class ChessGame {
      * @throws InvalidMoveException if move is invalid
      */
     public void makeMove(ChessMove move) throws InvalidMoveException {
+        //isLegal checks the start square holds a piece, so the turn check can read it
+        if (!isLegal(move)) {
+            throw new InvalidMoveException("not a valid move");
+        }
+
         //if it's not the teams turn to go
         if (chessBoard.getPiece(move.getStartPosition()).getTeamColor() != currentTeam) {
             throw new InvalidMoveException("its not your turn");
         }
 
-        Collection<ChessMove> validMoves = validMoves(move.getStartPosition());
-        if (validMoves == null || !validMoves.contains(move)) {
-            throw new InvalidMoveException("not a valid move");
+        if (historyCount == 0) {
+            recordPosition(FastBoard.of(chessBoard, currentTeam).hash());
         }
+        //a new move replaces any that were taken back
+        plies.subList(ply, plies.size()).clear();
+        plies.add(play(move, null));
+        ply++;
+    }
 
-        ChessPiece pieceToMove = chessBoard.getPiece(move.getStartPosition());
-        //add piece to endPosition
-        if (move.getPromotionPiece() != null) {
-            chessBoard.addPiece(new ChessPosition(move.getEndPosition().getRow(), move.getEndPosition().getColumn()),
-                    new ChessPiece(pieceToMove.getTeamColor(), move.getPromotionPiece()));
-        } else {
-            chessBoard.addPiece(new ChessPosition(move.getEndPosition().getRow(), move.getEndPosition().getColumn()), pieceToMove);
+    /**
+     * Makes a sequence of moves, e.g. a game being imported, checking each
+     * on one working board that follows along instead of setting up a board
+     * per move the way {@link #makeMove} does. Stops at the first move that
+     * is not legal, including one played out of turn, and leaves the game
+     * after the moves before it.
+     *
+     * @return the index of the first illegal move, or -1 if every move was made
+     */
+    public int makeMoves(ChessMove[] moves) {
+        return playMoves(moves, true);
+    }
+
+    /**
+     * Checks a sequence of moves from the current position like
+     * {@link #makeMoves} without making any of them
+     *
+     * @return the index of the first illegal move, or -1 if every move is legal
+     */
+    public int findIllegalMove(ChessMove[] moves) {
+        return playMoves(moves, false);
+    }
+
+    private int playMoves(ChessMove[] moves, boolean apply) {
+        FastBoard board = FastBoard.of(chessBoard, currentTeam);
+        for (int i = 0; i < moves.length; i++) {
+            ChessMove move = moves[i];
+            if (move == null || !onBoard(move.getStartPosition()) || !onBoard(move.getEndPosition())) {
+                return i;
+            }
+            int packed = FastBoard.pack(move);
+            if (!board.isPseudoLegal(packed) || !board.isLegalPseudoMove(packed)) {
+                return i;
+            }
+            long before = board.hash();
+            board.make(packed);
+            if (apply) {
+                if (historyCount == 0) {
+                    recordPosition(before);
+                }
+                plies.subList(ply, plies.size()).clear();
+                plies.add(play(move, board.hash()));
+                ply++;
+            }
         }
-        //erase piece in start position
-        chessBoard.addPiece(new ChessPosition(move.getStartPosition().getRow(), move.getStartPosition().getColumn()), null);
+        return -1;
+    }
+
+    /**
+     * Checks one move without generating the piece's other moves: the move
+     * must follow the piece's rules and must not leave its own king in check
+     *
+     * @return true if the piece on the move's start square may make it
+     */
+    public boolean isLegal(ChessMove move) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        if (!onBoard(start) || !onBoard(end)) {
+            return false;
+        }
+        ChessPiece piece = chessBoard.getPiece(start);
+        if (piece == null) {
+            return false;
+        }
+        FastBoard board = FastBoard.of(chessBoard, piece.getTeamColor());
+        int packed = FastBoard.pack(move);
+        return board.isPseudoLegal(packed) && board.isLegalPseudoMove(packed);
+    }
+
+    private static boolean onBoard(ChessPosition position) {
+        return position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
+    /**
+     * Makes a move already known to be valid
+     *
+     * @param hash the hash of the position after the move if it is known, so it isn't worked out again
+     * @return the record for taking it back
+     */
+    private Ply play(ChessMove move, Long hash) {
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece moved = chessBoard.getPiece(start);
+        ChessPiece captured = chessBoard.getPiece(end);
+        if (captured == null && moved.getPieceType() == ChessPiece.PieceType.PAWN
+                && start.getColumn() != end.getColumn()) {
+            captured = chessBoard.getPiece(start.getRow(), end.getColumn());
+        }
+        int boardState = chessBoard.packedState();
+        int previousClock = halfmoveClock;
+        int previousStart = historyStart;
+        //moves the piece, plus the rook when castling, and updates the castling and en passant rights
+        chessBoard.applyMove(move);
 
         //taking turns
         currentTeam = (currentTeam == TeamColor.WHITE) ? TeamColor.BLACK : TeamColor.WHITE;
+
+        //earlier positions can't come back after a pawn move or capture
+        if (moved.getPieceType() == ChessPiece.PieceType.PAWN || captured != null) {
+            halfmoveClock = 0;
+            historyStart = historyCount;
+        } else {
+            halfmoveClock++;
+        }
+        long overwritten = history[historyCount % HISTORY_SIZE];
+        long after = hash != null ? hash : FastBoard.of(chessBoard, currentTeam).hash();
+        recordPosition(after);
+        return new Ply(move, moved, captured, boardState, previousClock, previousStart, overwritten, after);
     }
 
     /**
@@ -134,50 +503,15 @@ public class ChessGame {
     }
 
     public boolean isInCheck(ChessBoard chessBoard, TeamColor teamColor) {
-        ChessPosition kingPosition = getKingPosition(chessBoard, teamColor);
-        Collection<ChessMove> opposingPiecesMoves = opposingPiecesMoves(chessBoard, teamColor);
+        return chessBoard.getAttackMap().inCheck(teamColor);
+    }
 
-        //check if any opposing pieces have a valid move that puts the king in check
-        for (ChessMove move : opposingPiecesMoves) {
-            if (move.getEndPosition().equals(kingPosition)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    //private func to find king position
-    private ChessPosition getKingPosition(ChessBoard chessBoard, TeamColor teamColor) {
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition currentPosition = new ChessPosition(i, j);
-                ChessPiece pieceThere = chessBoard.getPiece(currentPosition);
-                if (pieceThere != null &&
-                        (pieceThere.getPieceType() == ChessPiece.PieceType.KING &&
-                                pieceThere.getTeamColor() == teamColor)) {
-                    return currentPosition;
-                }
-            }
-        }
-        return null;
-    }
-
-    //private function that returns an array of ChessMove types of each of the opponent pieces moves
-    //this function should call the pieceMoves function in the ChessPiece class
-    private Collection<ChessMove> opposingPiecesMoves(ChessBoard chessBoard, TeamColor teamColor) {
-        Collection<ChessMove> opposingPiecesMoves = new ArrayList<>();
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition currentPosition = new ChessPosition(i, j);
-                ChessPiece pieceThere = chessBoard.getPiece(currentPosition);
-                if (pieceThere != null &&
-                        pieceThere.getTeamColor() != teamColor) {
-                    Collection<ChessMove> moves = pieceThere.pieceMoves(chessBoard, currentPosition);
-                    opposingPiecesMoves.addAll(moves);
-                }
-            }
-        }
-        return opposingPiecesMoves;
+    /**
+     * @return the squares each team attacks in the current position, which the
+     * board keeps until it changes
+     */
+    public AttackMap getAttackMap() {
+        return chessBoard.getAttackMap();
     }
 
     /**
@@ -191,29 +525,15 @@ public class ChessGame {
     }
 
     public boolean isInCheckmate(ChessBoard chessBoard, TeamColor teamColor) {
-        if (!isInCheck(teamColor)) {
-            return false;
+        TablebaseResult known = probeTablebase(chessBoard, teamColor);
+        if (known != null) {
+            return known.isCheckmate();
         }
-
-        Collection<ChessPiece> teamPieces = new ArrayList<>();
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition currentPosition = new ChessPosition(i, j);
-                ChessPiece piece = chessBoard.getPiece(currentPosition);
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    teamPieces.add(piece);
-                }
-            }
-        }
-
-        for (ChessPiece piece : teamPieces) {
-            //call validMoves function here on all the pieces of the teamColor
-            Collection<ChessMove> teamPieceMoves = validMoves(piece.getPosition(chessBoard));
-            if (!teamPieceMoves.isEmpty()) {
-                return false;
-            }
+        if (!isInCheck(chessBoard, teamColor)) {
+            return false;
         }
-        return true;
+        return !legalMoveSpliterator(chessBoard, teamColor, -1L).tryAdvance(found -> {
+        });
     }
 
     /**
@@ -224,25 +544,33 @@ public class ChessGame {
      * @return True if the specified team is in stalemate, otherwise false
      */
     public boolean isInStalemate(TeamColor teamColor) {
-        Collection<ChessPiece> teamPieces = new ArrayList<>();
-        for (int i = 1; i <= 8; i++) {
-            for (int j = 1; j <= 8; j++) {
-                ChessPosition currentPosition = new ChessPosition(i, j);
-                ChessPiece piece = chessBoard.getPiece(currentPosition);
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    teamPieces.add(piece);
-                }
-            }
+        TablebaseResult known = probeTablebase(chessBoard, teamColor);
+        if (known != null) {
+            return known.isStalemate();
         }
+        return !legalMoves(teamColor).hasNext();
+    }
 
-        for (ChessPiece piece : teamPieces) {
-            //call validMoves function here on all the pieces of the teamColor
-            Collection<ChessMove> teamPieceMoves = validMoves(piece.getPosition(chessBoard));
-            if (!teamPieceMoves.isEmpty()) {
-                return false;
-            }
-        }
-        return true;
+    /**
+     * Lets checkmate and stalemate checks answer positions covered by the
+     * tablebases with a lookup instead of generating moves
+     *
+     * @param tablebases the tables to use, or null to always generate moves
+     */
+    public void setTablebases(Tablebases tablebases) {
+        this.tablebases = tablebases;
+    }
+
+    /**
+     * @return the exact result for the team whose turn it is, or null if no
+     * tablebases are set or they don't cover the position
+     */
+    public TablebaseResult probeTablebase() {
+        return probeTablebase(chessBoard, currentTeam);
+    }
+
+    private TablebaseResult probeTablebase(ChessBoard board, TeamColor team) {
+        return tablebases == null ? null : tablebases.probe(FastBoard.of(board, team));
     }
 
     /**
@@ -252,6 +580,7 @@ public class ChessGame {
      */
     public void setBoard(ChessBoard board) {
         this.chessBoard = board;
+        clearHistory();
     }
 
     /**
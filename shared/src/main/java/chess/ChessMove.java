@@ -1,5 +1,7 @@
 package chess;
 
+import chess.notation.Uci;
+
 import java.util.Objects;
 
 /**
@@ -44,14 +46,25 @@ public class ChessMove {
         return promotionPiece;
     }
 
+    /**
+     * @return the move in UCI long algebraic notation, e.g. "e2e4" or "e7e8q"
+     */
     @Override
     public String toString() {
+        if (isOnBoard(startPosition) && isOnBoard(endPosition)) {
+            return Uci.move(this);
+        }
         StringBuilder stringBuilder = new StringBuilder();
         stringBuilder.append("Move from ").append(startPosition).append(" to ").append(endPosition);
 
         return stringBuilder.toString();
     }
 
+    private static boolean isOnBoard(ChessPosition position) {
+        return position != null && position.getRow() >= 1 && position.getRow() <= 8
+                && position.getColumn() >= 1 && position.getColumn() <= 8;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -49,7 +49,14 @@ public class ChessPiece {
         this.type = pieceType;
     }
 
-    //method that returns the position of a given piece
+    /**
+     * Finds the first square, a1 first, holding a piece equal to this one.
+     * Pieces are equal by team and type only, so for a piece with a twin
+     * this can be the twin's square.
+     *
+     * @deprecated use {@link ChessBoard#pieces(ChessGame.TeamColor)}, which gives each piece's own square
+     */
+    @Deprecated
     public ChessPosition getPosition(ChessBoard board) {
         for (int row = 1; row <= 8; row++) {
             for (int col = 1; col <= 8; col++) {
@@ -0,0 +1,841 @@
+package chess;
+
+import java.util.Arrays;
+
+/**
+ * A compact board used internally where {@link ChessGame} would be too slow,
+ * such as replaying stored games.
+ * <p>
+ * Squares are numbered 0 (a1) to 63 (h8), i.e. {@code (row - 1) * 8 + (column - 1)}.
+ * Each square holds a piece code of {@code color << 3 | kind}, or 0 when empty,
+ * and the board also keeps one bitboard per colour and per kind. Moves are
+ * packed into an int as {@code from | to << 6 | promotionKind << 12}, which
+ * fits in 15 bits so a move can be stored as a {@code short}; castling is the
+ * king's two-square move. Castling rights are a four-bit mask of the
+ * {@link ChessBoard#WHITE_KINGSIDE} constants and the en passant square is
+ * -1 unless the side to move can capture en passant. A {@link Zobrist} hash
+ * of the position is kept up to date as pieces are placed and removed and as
+ * the rights change.
+ * <p>
+ * {@link #make(int)} does not validate moves; only feed it moves that were
+ * already checked, e.g. by {@link ChessGame#makeMove}, or that came from
+ * {@link #generateLegal}. Every move made is remembered so it can be taken
+ * back with {@link #unmake(int)}, together with the hash before it, so
+ * {@link #repetitions()} can find repeated positions by scanning the hashes
+ * back to the last pawn move or capture. A search should score a position
+ * that repeats as a draw.
+ */
+public final class FastBoard {
+
+    public static final int WHITE = 0;
+    public static final int BLACK = 1;
+
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+
+    private final byte[] squares = new byte[64];
+    private final long[] colors = new long[2];
+    private final long[] kinds = new long[7];
+    private int sideToMove = WHITE;
+    private int castling;
+    private int enPassant = -1;
+    private long hash;
+    /**
+     * Largest halfmove clock kept; it stops counting there
+     */
+    private static final int MAX_CLOCK = (1 << 13) - 1;
+
+    private int halfmoveClock;
+    /**
+     * Per move: the captured code, the moved code, then the castling rights,
+     * en passant square plus one and halfmove clock from before the move
+     */
+    private int[] undo = new int[64];
+    /**
+     * Per move: the hash before the move
+     */
+    private long[] hashes = new long[64];
+    private int undoCount;
+    /**
+     * Hashes of the positions before the first move made on this board,
+     * oldest first, which {@link #repetitions()} looks back into
+     */
+    private long[] earlier = new long[0];
+
+    /**
+     * Creates an empty board with white to move
+     */
+    public FastBoard() {
+    }
+
+    public FastBoard(FastBoard copy) {
+        System.arraycopy(copy.squares, 0, squares, 0, 64);
+        System.arraycopy(copy.colors, 0, colors, 0, 2);
+        System.arraycopy(copy.kinds, 0, kinds, 0, 7);
+        sideToMove = copy.sideToMove;
+        castling = copy.castling;
+        enPassant = copy.enPassant;
+        halfmoveClock = copy.halfmoveClock;
+        hash = copy.hash;
+    }
+
+    /**
+     * @return a board set up in the standard starting position
+     */
+    public static FastBoard startingPosition() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        return of(board, ChessGame.TeamColor.WHITE);
+    }
+
+    /**
+     * Copies the pieces, castling rights and en passant square of a {@link ChessBoard}
+     *
+     * @param board the board to copy
+     * @param turn  the team to move
+     */
+    public static FastBoard of(ChessBoard board, ChessGame.TeamColor turn) {
+        FastBoard fast = new FastBoard();
+        for (ChessBoard.PlacedPiece placed : board.pieces()) {
+            fast.put(square(placed.position()), code(placed.piece()));
+        }
+        fast.setSideToMove(color(turn));
+        fast.setCastlingRights(board.getCastlingRights());
+        fast.setEnPassantSquare(board.getEnPassantSquare());
+        return fast;
+    }
+
+    /**
+     * Copies the board and turn of a game
+     */
+    public static FastBoard of(ChessGame game) {
+        FastBoard fast = of(game.getBoard(), game.getTeamTurn());
+        fast.setHalfmoveClock(game.getHalfmoveClock());
+        return fast;
+    }
+
+    /**
+     * @return a new {@link ChessBoard} holding the same pieces and rights
+     */
+    public ChessBoard toChessBoard() {
+        ChessBoard board = new ChessBoard();
+        for (long occupied = colors[WHITE] | colors[BLACK]; occupied != 0; occupied &= occupied - 1) {
+            int sq = Long.numberOfTrailingZeros(occupied);
+            board.addPiece(new ChessPosition(row(sq), column(sq)), piece(squares[sq]));
+        }
+        board.setCastlingRights(castling);
+        board.setEnPassant(enPassant < 0 ? null : position(enPassant));
+        return board;
+    }
+
+    /**
+     * @return a new game holding the same pieces, turn and halfmove clock,
+     * which knows the positions since the last pawn move or capture
+     */
+    public ChessGame toChessGame() {
+        ChessGame game = new ChessGame();
+        game.setBoard(toChessBoard());
+        game.setTeamTurn(getTeamTurn());
+        game.setHalfmoveClock(halfmoveClock);
+        for (long position : earlierPositions()) {
+            game.recordPosition(position);
+        }
+        game.recordPosition(hash);
+        return game;
+    }
+
+    /**
+     * @return the piece code on a square, or 0 if it is empty
+     */
+    public int pieceAt(int square) {
+        return squares[square];
+    }
+
+    /**
+     * @return the squares occupied by a colour as a bitboard
+     */
+    public long colorBits(int color) {
+        return colors[color];
+    }
+
+    /**
+     * @return the squares occupied by a kind of piece of either colour as a bitboard
+     */
+    public long kindBits(int kind) {
+        return kinds[kind];
+    }
+
+    /**
+     * @return {@link #WHITE} or {@link #BLACK}
+     */
+    public int sideToMove() {
+        return sideToMove;
+    }
+
+    public void setSideToMove(int color) {
+        if (color != sideToMove) {
+            sideToMove = color;
+            hash ^= Zobrist.blackToMove();
+        }
+    }
+
+    /**
+     * @return the castling rights still held
+     */
+    public int castlingRights() {
+        return castling;
+    }
+
+    /**
+     * Sets the castling rights, dropping any whose king or rook is not on
+     * its home square; set the pieces first
+     */
+    public void setCastlingRights(int rights) {
+        int available = 0;
+        if (squares[4] == KING) {
+            available |= (squares[7] == ROOK ? ChessBoard.WHITE_KINGSIDE : 0)
+                    | (squares[0] == ROOK ? ChessBoard.WHITE_QUEENSIDE : 0);
+        }
+        if (squares[60] == (BLACK << 3 | KING)) {
+            available |= (squares[63] == (BLACK << 3 | ROOK) ? ChessBoard.BLACK_KINGSIDE : 0)
+                    | (squares[56] == (BLACK << 3 | ROOK) ? ChessBoard.BLACK_QUEENSIDE : 0);
+        }
+        hash ^= Zobrist.castling(castling);
+        castling = rights & available;
+        hash ^= Zobrist.castling(castling);
+    }
+
+    /**
+     * @return the square the side to move can capture onto en passant, or -1
+     */
+    public int enPassantSquare() {
+        return enPassant;
+    }
+
+    /**
+     * Sets the en passant square, or clears it if the side to move has no
+     * pawn that could capture there; set the pieces and side to move first
+     */
+    public void setEnPassantSquare(int square) {
+        hash ^= Zobrist.enPassant(enPassant);
+        enPassant = square >= 0 && canCaptureEnPassant(square) ? square : -1;
+        hash ^= Zobrist.enPassant(enPassant);
+    }
+
+    private boolean canCaptureEnPassant(int square) {
+        int them = sideToMove ^ 1;
+        int pushed = square + (sideToMove == WHITE ? -8 : 8);
+        return row(square) == (sideToMove == WHITE ? 6 : 3)
+                && squares[square] == 0 && squares[pushed] == (them << 3 | PAWN)
+                && (Bitboards.PAWN[them][square] & kinds[PAWN] & colors[sideToMove]) != 0;
+    }
+
+    /**
+     * @return the Zobrist hash of the pieces and side to move
+     */
+    public long hash() {
+        return hash;
+    }
+
+    public ChessGame.TeamColor getTeamTurn() {
+        return sideToMove == WHITE ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+    }
+
+    /**
+     * Places a piece on an empty square
+     */
+    public void put(int square, int code) {
+        long bit = 1L << square;
+        squares[square] = (byte) code;
+        colors[code >>> 3] |= bit;
+        kinds[code & 7] |= bit;
+        hash ^= Zobrist.piece(code, square);
+    }
+
+    /**
+     * Removes whatever piece is on a square
+     */
+    public void remove(int square) {
+        int code = squares[square];
+        if (code != 0) {
+            long bit = 1L << square;
+            squares[square] = 0;
+            colors[code >>> 3] &= ~bit;
+            kinds[code & 7] &= ~bit;
+            hash ^= Zobrist.piece(code, square);
+        }
+    }
+
+    /**
+     * Plays a packed move without checking that it is legal, then passes the
+     * turn to the other side
+     */
+    public void make(int move) {
+        int from = from(move);
+        int to = to(move);
+        int code = squares[from];
+        int promotion = promotion(move);
+        if (undoCount == undo.length) {
+            undo = Arrays.copyOf(undo, undoCount * 2);
+            hashes = Arrays.copyOf(hashes, undoCount * 2);
+        }
+        hashes[undoCount] = hash;
+        undo[undoCount++] = squares[to] | code << 4 | castling << 8 | (enPassant + 1) << 12 | halfmoveClock << 19;
+        halfmoveClock = (code & 7) == PAWN || squares[to] != 0 ? 0 : Math.min(halfmoveClock + 1, MAX_CLOCK);
+        if ((code & 7) == PAWN && to == enPassant) {
+            remove(to + (sideToMove == WHITE ? -8 : 8));
+        } else if ((code & 7) == KING && (to - from == 2 || from - to == 2)) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            put((from + to) >>> 1, squares[rookFrom]);
+            remove(rookFrom);
+        }
+        remove(to);
+        remove(from);
+        put(to, promotion == 0 ? code : (code & 8) | promotion);
+
+        hash ^= Zobrist.castling(castling) ^ Zobrist.enPassant(enPassant);
+        castling &= Bitboards.CASTLING_KEPT[from] & Bitboards.CASTLING_KEPT[to];
+        enPassant = -1;
+        sideToMove ^= 1;
+        hash ^= Zobrist.castling(castling) ^ Zobrist.blackToMove();
+        if ((code & 7) == PAWN && (to - from == 16 || from - to == 16)) {
+            setEnPassantSquare((from + to) >>> 1);
+        }
+    }
+
+    /**
+     * Takes back the last move passed to {@link #make(int)}
+     */
+    public void unmake(int move) {
+        int state = undo[--undoCount];
+        int from = from(move);
+        int to = to(move);
+        int code = (state >>> 4) & 15;
+        int previousEnPassant = ((state >>> 12) & 127) - 1;
+        hash ^= Zobrist.castling(castling) ^ Zobrist.enPassant(enPassant) ^ Zobrist.blackToMove();
+        sideToMove ^= 1;
+        castling = (state >>> 8) & 15;
+        enPassant = previousEnPassant;
+        halfmoveClock = state >>> 19;
+        hash ^= Zobrist.castling(castling) ^ Zobrist.enPassant(enPassant);
+
+        remove(to);
+        put(from, code);
+        if ((state & 15) != 0) {
+            put(to, state & 15);
+        } else if ((code & 7) == PAWN && to == enPassant) {
+            put(to + (sideToMove == WHITE ? -8 : 8), (sideToMove ^ 1) << 3 | PAWN);
+        } else if ((code & 7) == KING && (to - from == 2 || from - to == 2)) {
+            int rookTo = (from + to) >>> 1;
+            put(to > from ? from + 3 : from - 4, squares[rookTo]);
+            remove(rookTo);
+        }
+    }
+
+    /**
+     * @return the number of moves since the last pawn move or capture
+     */
+    public int halfmoveClock() {
+        return halfmoveClock;
+    }
+
+    public void setHalfmoveClock(int clock) {
+        halfmoveClock = Math.min(clock, MAX_CLOCK);
+    }
+
+    /**
+     * Counts how often the current position has occurred on this board with
+     * the same side to move, looking back to the last pawn move or capture
+     *
+     * @return at least 1, the current position itself
+     */
+    public int repetitions() {
+        int count = 1;
+        int current = earlier.length + undoCount;
+        for (int i = current - 2; i >= Math.max(current - halfmoveClock, 0); i -= 2) {
+            if (positionAt(i) == hash) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the hashes of the positions before the current one since the
+     * last pawn move or capture, oldest first, as far as a {@link ChessGame}
+     * keeps them
+     */
+    public long[] earlierPositions() {
+        int current = earlier.length + undoCount;
+        int first = Math.max(current - Math.min(halfmoveClock, ChessGame.HISTORY_SIZE - 1), 0);
+        long[] positions = new long[current - first];
+        for (int i = first; i < current; i++) {
+            positions[i - first] = positionAt(i);
+        }
+        return positions;
+    }
+
+    /**
+     * Sets the positions that came before the current one, e.g. from
+     * {@link ChessGame#getEarlierPositions()}, and forgets the moves made on
+     * this board, which can no longer be unmade
+     *
+     * @param positions position hashes since the last pawn move or capture, oldest first
+     */
+    public void setEarlierPositions(long[] positions) {
+        earlier = positions.clone();
+        undoCount = 0;
+    }
+
+    /**
+     * @return the hash of position i, counting {@link #earlier} positions first
+     */
+    private long positionAt(int i) {
+        return i < earlier.length ? earlier[i] : hashes[i - earlier.length];
+    }
+
+    // ----- attacks and move generation -----
+
+    /**
+     * @return the square of a colour's king, or -1 if it has none
+     */
+    public int kingSquare(int color) {
+        long king = kinds[KING] & colors[color];
+        return king == 0 ? -1 : Long.numberOfTrailingZeros(king);
+    }
+
+    /**
+     * @return true if any piece of the given colour attacks the square
+     */
+    public boolean isAttacked(int square, int byColor) {
+        long attackers = colors[byColor];
+        long occupied = colors[WHITE] | colors[BLACK];
+        return (Bitboards.PAWN[byColor ^ 1][square] & kinds[PAWN] & attackers) != 0
+                || (Bitboards.KNIGHT[square] & kinds[KNIGHT] & attackers) != 0
+                || (Bitboards.KING[square] & kinds[KING] & attackers) != 0
+                || (Bitboards.bishopAttacks(square, occupied) & (kinds[BISHOP] | kinds[QUEEN]) & attackers) != 0
+                || (Bitboards.rookAttacks(square, occupied) & (kinds[ROOK] | kinds[QUEEN]) & attackers) != 0;
+    }
+
+    /**
+     * @return the pieces of the given colour that attack the square, as a bitboard
+     */
+    private long attackers(int square, int byColor, long occupied) {
+        long attackers = colors[byColor];
+        return (Bitboards.PAWN[byColor ^ 1][square] & kinds[PAWN] & attackers)
+                | (Bitboards.KNIGHT[square] & kinds[KNIGHT] & attackers)
+                | (Bitboards.KING[square] & kinds[KING] & attackers)
+                | (Bitboards.bishopAttacks(square, occupied) & (kinds[BISHOP] | kinds[QUEEN]) & attackers)
+                | (Bitboards.rookAttacks(square, occupied) & (kinds[ROOK] | kinds[QUEEN]) & attackers);
+    }
+
+    /**
+     * @return every square the colour attacks when the given squares are occupied
+     */
+    private long attackedBy(int color, long occupied) {
+        long attacked = 0;
+        for (long pieces = colors[color]; pieces != 0; pieces &= pieces - 1) {
+            int sq = Long.numberOfTrailingZeros(pieces);
+            attacked |= Bitboards.attacks(squares[sq] & 7, color, sq, occupied);
+        }
+        return attacked;
+    }
+
+    /**
+     * @return the colour's pieces that stand alone between its king and an
+     * enemy rook, bishop or queen, as a bitboard
+     */
+    private long pinned(int king, int color) {
+        long enemies = colors[color ^ 1];
+        long occupied = colors[color] | enemies;
+        long snipers = (Bitboards.rookAttacks(king, enemies) & (kinds[ROOK] | kinds[QUEEN])
+                | Bitboards.bishopAttacks(king, enemies) & (kinds[BISHOP] | kinds[QUEEN])) & enemies;
+        long pinned = 0;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Bitboards.between(king, Long.numberOfTrailingZeros(snipers)) & occupied;
+            if (Long.bitCount(blockers) == 1 && (blockers & colors[color]) != 0) {
+                pinned |= blockers;
+            }
+        }
+        return pinned;
+    }
+
+    /**
+     * @return true if the colour's king is attacked; a side without a king is never in check
+     */
+    public boolean inCheck(int color) {
+        int king = kingSquare(color);
+        return king >= 0 && isAttacked(king, color ^ 1);
+    }
+
+    /**
+     * Writes the moves of the piece on a square into {@code moves} starting at
+     * {@code count}, following the same rules as {@link ChessPiece#pieceMoves}
+     * plus castling and en passant for the side to move. Moves may leave the
+     * mover's own king in check, but castling never starts, passes through or
+     * ends on an attacked square.
+     *
+     * @return the new number of moves in the array, which must have room for 27 more
+     */
+    public int generateFrom(int from, int[] moves, int count) {
+        int code = squares[from];
+        if (code == 0) {
+            return count;
+        }
+        int color = code >>> 3;
+        int kind = code & 7;
+        long occupied = colors[WHITE] | colors[BLACK];
+        if (kind != PAWN) {
+            long targets = Bitboards.attacks(kind, color, from, occupied) & ~colors[color];
+            for (; targets != 0; targets &= targets - 1) {
+                moves[count++] = move(from, Long.numberOfTrailingZeros(targets), 0);
+            }
+            if (kind == KING && color == sideToMove && castling != 0) {
+                count = generateCastling(from, color, occupied, moves, count);
+            }
+            return count;
+        }
+        int forward = color == WHITE ? 8 : -8;
+        long targets = Bitboards.PAWN[color][from] & colors[color ^ 1];
+        if (enPassant >= 0 && color == sideToMove) {
+            targets |= Bitboards.PAWN[color][from] & 1L << enPassant;
+        }
+        int ahead = from + forward;
+        if (ahead >= 0 && ahead < 64 && squares[ahead] == 0) {
+            targets |= 1L << ahead;
+            int startRow = color == WHITE ? 2 : 7;
+            if (row(from) == startRow && squares[ahead + forward] == 0) {
+                targets |= 1L << (ahead + forward);
+            }
+        }
+        int lastRow = color == WHITE ? 8 : 1;
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            if (row(to) == lastRow) {
+                moves[count++] = move(from, to, QUEEN);
+                moves[count++] = move(from, to, ROOK);
+                moves[count++] = move(from, to, BISHOP);
+                moves[count++] = move(from, to, KNIGHT);
+            } else {
+                moves[count++] = move(from, to, 0);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Writes the castling moves of a king into {@code moves}, or only counts
+     * them if {@code moves} is null
+     */
+    private int generateCastling(int from, int color, long occupied, int[] moves, int count) {
+        int home = color == WHITE ? 4 : 60;
+        int kingside = color == WHITE ? ChessBoard.WHITE_KINGSIDE : ChessBoard.BLACK_KINGSIDE;
+        int queenside = color == WHITE ? ChessBoard.WHITE_QUEENSIDE : ChessBoard.BLACK_QUEENSIDE;
+        if (from != home || isAttacked(home, color ^ 1)) {
+            return count;
+        }
+        if ((castling & kingside) != 0 && (occupied & (3L << (home + 1))) == 0
+                && !isAttacked(home + 1, color ^ 1) && !isAttacked(home + 2, color ^ 1)) {
+            if (moves != null) {
+                moves[count] = move(home, home + 2, 0);
+            }
+            count++;
+        }
+        if ((castling & queenside) != 0 && (occupied & (7L << (home - 3))) == 0
+                && !isAttacked(home - 1, color ^ 1) && !isAttacked(home - 2, color ^ 1)) {
+            if (moves != null) {
+                moves[count] = move(home, home - 2, 0);
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Writes every move of the side to move into {@code moves}, including ones
+     * that leave its king in check
+     *
+     * @return the number of moves written; an array of 256 is always enough
+     */
+    public int generatePseudoLegal(int[] moves) {
+        int count = 0;
+        for (long own = colors[sideToMove]; own != 0; own &= own - 1) {
+            count = generateFrom(Long.numberOfTrailingZeros(own), moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Writes every legal move of the side to move into {@code moves}
+     *
+     * @return the number of moves written; an array of 256 is always enough
+     */
+    public int generateLegal(int[] moves) {
+        int count = generatePseudoLegal(moves);
+        int legal = 0;
+        for (int i = 0; i < count; i++) {
+            if (isLegalPseudoMove(moves[i])) {
+                moves[legal++] = moves[i];
+            }
+        }
+        return legal;
+    }
+
+    /**
+     * Checks a single move against the rules {@link #generateFrom} follows
+     * without generating the piece's other moves
+     *
+     * @return true if the generator would produce the move for the side to move
+     */
+    public boolean isPseudoLegal(int move) {
+        int from = from(move);
+        int to = to(move);
+        int code = squares[from];
+        if (code == 0 || code >>> 3 != sideToMove || (colors[sideToMove] & 1L << to) != 0) {
+            return false;
+        }
+        int kind = code & 7;
+        int promotion = promotion(move);
+        if (kind != PAWN) {
+            if (promotion != 0) {
+                return false;
+            }
+            long occupied = colors[WHITE] | colors[BLACK];
+            if ((Bitboards.attacks(kind, sideToMove, from, occupied) & 1L << to) != 0) {
+                return true;
+            }
+            if (kind != KING || castling == 0 || Math.abs(to - from) != 2) {
+                return false;
+            }
+            int[] castles = new int[2];
+            int count = generateCastling(from, sideToMove, occupied, castles, 0);
+            return count > 0 && castles[0] == move || count > 1 && castles[1] == move;
+        }
+        int lastRow = sideToMove == WHITE ? 8 : 1;
+        if (row(to) == lastRow ? promotion < KNIGHT || promotion > QUEEN : promotion != 0) {
+            return false;
+        }
+        long enemies = colors[sideToMove ^ 1] | (enPassant >= 0 ? 1L << enPassant : 0);
+        if ((Bitboards.PAWN[sideToMove][from] & enemies & 1L << to) != 0) {
+            return true;
+        }
+        int forward = sideToMove == WHITE ? 8 : -8;
+        int startRow = sideToMove == WHITE ? 2 : 7;
+        return squares[to] == 0 && (to == from + forward
+                || to == from + 2 * forward && row(from) == startRow && squares[from + forward] == 0);
+    }
+
+    /**
+     * Counts the legal moves of some of the side to move's pieces without
+     * listing them. Each piece's targets are worked out as a bitboard,
+     * narrowed to the squares that stop a check and to the line of a pin,
+     * and counted with a popcount; only en passant captures are made and
+     * taken back to check them.
+     *
+     * @param pieces the squares, as a bitboard, of the pieces to count moves for
+     * @return the number of legal moves, counting each promotion piece separately
+     */
+    public int countLegal(long pieces) {
+        int us = sideToMove;
+        int them = us ^ 1;
+        long own = colors[us];
+        long occupied = own | colors[them];
+        int king = kingSquare(us);
+        long checkers = king < 0 ? 0 : attackers(king, them, occupied);
+        long evasions = -1L;
+        if (checkers != 0) {
+            evasions = Long.bitCount(checkers) > 1
+                    ? 0 : checkers | Bitboards.between(king, Long.numberOfTrailingZeros(checkers));
+        }
+        long pinned = king < 0 ? 0 : pinned(king, us);
+        long lastRow = us == WHITE ? 0xFFL << 56 : 0xFFL;
+        int forward = us == WHITE ? 8 : -8;
+        long startRow = us == WHITE ? 0xFFL << 8 : 0xFFL << 48;
+        int count = 0;
+        long movers = pieces & own & ~(king < 0 ? 0 : 1L << king);
+        for (; movers != 0; movers &= movers - 1) {
+            int from = Long.numberOfTrailingZeros(movers);
+            int kind = squares[from] & 7;
+            long targets;
+            if (kind == PAWN) {
+                targets = Bitboards.PAWN[us][from] & colors[them];
+                int ahead = from + forward;
+                if (ahead >= 0 && ahead < 64 && (occupied & 1L << ahead) == 0) {
+                    targets |= 1L << ahead;
+                    if ((startRow & 1L << from) != 0 && (occupied & 1L << (ahead + forward)) == 0) {
+                        targets |= 1L << (ahead + forward);
+                    }
+                }
+                if (enPassant >= 0 && (Bitboards.PAWN[us][from] & 1L << enPassant) != 0
+                        && isLegalPseudoMove(move(from, enPassant, 0))) {
+                    count++;
+                }
+            } else {
+                targets = Bitboards.attacks(kind, us, from, occupied) & ~own;
+            }
+            targets &= evasions;
+            if ((pinned & 1L << from) != 0) {
+                targets &= Bitboards.line(king, from);
+            }
+            count += Long.bitCount(targets);
+            if (kind == PAWN) {
+                count += 3 * Long.bitCount(targets & lastRow);
+            }
+        }
+        if (king >= 0 && (pieces & 1L << king) != 0) {
+            long attacked = attackedBy(them, occupied & ~(1L << king));
+            count += Long.bitCount(Bitboards.KING[king] & ~own & ~attacked);
+            if (checkers == 0 && castling != 0) {
+                count = generateCastling(king, us, occupied, null, count);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the positions reached by every sequence of legal moves of the
+     * given length from this one, counting the last move of each without
+     * making it
+     */
+    public long perft(int depth) {
+        if (depth <= 0) {
+            return 1;
+        }
+        if (depth == 1) {
+            return countLegal(-1L);
+        }
+        int[] moves = new int[256];
+        int count = generateLegal(moves);
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            make(moves[i]);
+            nodes += perft(depth - 1);
+            unmake(moves[i]);
+        }
+        return nodes;
+    }
+
+    /**
+     * @return true if a move produced by the generator does not leave the mover in check
+     */
+    public boolean isLegalPseudoMove(int move) {
+        int mover = sideToMove;
+        make(move);
+        boolean legal = !inCheck(mover);
+        unmake(move);
+        return legal;
+    }
+
+    // ----- packed moves -----
+
+    public static int move(int from, int to, int promotionKind) {
+        return from | to << 6 | promotionKind << 12;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int promotion(int move) {
+        return (move >>> 12) & 7;
+    }
+
+    /**
+     * @return the packed form of a move
+     */
+    public static int pack(ChessMove move) {
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        return move(square(move.getStartPosition()), square(move.getEndPosition()),
+                promotion == null ? 0 : kind(promotion));
+    }
+
+    /**
+     * @return a {@link ChessMove} for a packed move
+     */
+    public static ChessMove unpack(int move) {
+        int promotion = promotion(move);
+        return new ChessMove(position(from(move)), position(to(move)), promotion == 0 ? null : type(promotion));
+    }
+
+    // ----- conversions -----
+
+    public static int square(int row, int column) {
+        return (row - 1) * 8 + column - 1;
+    }
+
+    public static int square(ChessPosition position) {
+        return square(position.getRow(), position.getColumn());
+    }
+
+    public static int row(int square) {
+        return (square >>> 3) + 1;
+    }
+
+    public static int column(int square) {
+        return (square & 7) + 1;
+    }
+
+    public static ChessPosition position(int square) {
+        return new ChessPosition(row(square), column(square));
+    }
+
+    public static int color(ChessGame.TeamColor team) {
+        return team == ChessGame.TeamColor.WHITE ? WHITE : BLACK;
+    }
+
+    public static int code(ChessPiece piece) {
+        return color(piece.getTeamColor()) << 3 | kind(piece.getPieceType());
+    }
+
+    public static ChessPiece piece(int code) {
+        if (code == 0) {
+            return null;
+        }
+        return new ChessPiece((code & 8) == 0 ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK, type(code & 7));
+    }
+
+    public static int kind(ChessPiece.PieceType type) {
+        return switch (type) {
+            case PAWN -> PAWN;
+            case KNIGHT -> KNIGHT;
+            case BISHOP -> BISHOP;
+            case ROOK -> ROOK;
+            case QUEEN -> QUEEN;
+            case KING -> KING;
+        };
+    }
+
+    public static ChessPiece.PieceType type(int kind) {
+        return switch (kind) {
+            case PAWN -> ChessPiece.PieceType.PAWN;
+            case KNIGHT -> ChessPiece.PieceType.KNIGHT;
+            case BISHOP -> ChessPiece.PieceType.BISHOP;
+            case ROOK -> ChessPiece.PieceType.ROOK;
+            case QUEEN -> ChessPiece.PieceType.QUEEN;
+            case KING -> ChessPiece.PieceType.KING;
+            default -> throw new IllegalArgumentException("not a piece kind: " + kind);
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FastBoard that = (FastBoard) o;
+        return sideToMove == that.sideToMove && castling == that.castling && enPassant == that.enPassant
+                && Arrays.equals(squares, that.squares);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(squares) + (sideToMove | castling << 1 | (enPassant + 1) << 5);
+    }
+}
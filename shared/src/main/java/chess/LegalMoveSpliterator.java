@@ -0,0 +1,51 @@
+package chess;
+
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Produces legal moves one at a time from a {@link FastBoard}. Moves are
+ * generated a piece at a time and each is only checked for leaving its own
+ * king in check when it is about to be handed out, so a caller that stops
+ * early, e.g. after finding that any move exists, skips the rest of the work.
+ */
+final class LegalMoveSpliterator extends Spliterators.AbstractSpliterator<ChessMove> {
+
+    private final FastBoard board;
+    private long pieces;
+    private final int[] moves = new int[32];
+    private int count;
+    private int next;
+
+    /**
+     * @param board  a board whose side to move is the team the moves are for; it is
+     *               changed while moves are checked but always put back
+     * @param pieces the squares, as a bitboard, of the pieces to generate moves for
+     */
+    LegalMoveSpliterator(FastBoard board, long pieces) {
+        super(Long.MAX_VALUE, Spliterator.DISTINCT | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+        this.board = board;
+        this.pieces = pieces & board.colorBits(board.sideToMove());
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super ChessMove> action) {
+        while (true) {
+            while (next < count) {
+                int move = moves[next++];
+                if (board.isLegalPseudoMove(move)) {
+                    action.accept(FastBoard.unpack(move));
+                    return true;
+                }
+            }
+            if (pieces == 0) {
+                return false;
+            }
+            int from = Long.numberOfTrailingZeros(pieces);
+            pieces &= pieces - 1;
+            count = board.generateFrom(from, moves, 0);
+            next = 0;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist position hashing.
+ * <p>
+ * A position's hash is the XOR of one key per piece on its square, a key when
+ * black is to move, one per castling right held and one for the file of an
+ * en passant square. Hashes are written to disk by the position index and
+ * opening book, so the seed and the order keys are drawn in must never change.
+ */
+public final class Zobrist {
+
+    private static final long SEED = 0x5A0B_C4E5_5EEDL;
+
+    private static final long[][] PIECES = new long[15][64];
+    private static final long BLACK_TO_MOVE;
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int code = 0; code < 15; code++) {
+            for (int sq = 0; sq < 64; sq++) {
+                PIECES[code][sq] = (code & 7) == 0 || (code & 7) == 7 ? 0 : random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        long[] rights = {random.nextLong(), random.nextLong(), random.nextLong(), random.nextLong()};
+        for (int mask = 1; mask < 16; mask++) {
+            int low = Integer.numberOfTrailingZeros(mask);
+            CASTLING[mask] = CASTLING[mask & (mask - 1)] ^ rights[low];
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    /**
+     * @param code   a {@link FastBoard} piece code
+     * @param square a square from 0 (a1) to 63 (h8)
+     * @return the key for that piece standing on that square
+     */
+    public static long piece(int code, int square) {
+        return PIECES[code][square];
+    }
+
+    /**
+     * @return the key added when black is to move
+     */
+    public static long blackToMove() {
+        return BLACK_TO_MOVE;
+    }
+
+    /**
+     * @param rights a mask of {@link ChessBoard#WHITE_KINGSIDE} and the other rights
+     * @return the XOR of the keys for each right held
+     */
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * @param square an en passant square from 0 (a1) to 63 (h8), or -1 for none
+     * @return the key for en passant being possible on that square's file, or 0 for none
+     */
+    public static long enPassant(int square) {
+        return square < 0 ? 0 : EN_PASSANT[square & 7];
+    }
+}
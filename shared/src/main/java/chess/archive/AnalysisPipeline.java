@@ -0,0 +1,307 @@
+package chess.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs a stream of items, such as archived games, through a chain of
+ * stages, e.g. read, parse, replay and validate, analyse and write.
+ * <p>
+ * The first stage pulls items from an iterator on one thread. Every later
+ * stage has its own number of worker threads and takes its input from a
+ * bounded queue that the stage before fills. A full queue blocks the stage
+ * feeding it, so a slow stage holds back everything upstream down to the
+ * reader and memory use stays bounded by the queue sizes. With more than one
+ * worker in a stage, items can leave it in a different order than they came.
+ * <p>
+ * Each stage counts the items it handled and the time its workers spent
+ * working, waiting for input and waiting for room downstream; see
+ * {@link StageStats}. The stage whose workers are busy almost all the time
+ * while the stages before it wait for room is the bottleneck.
+ * <pre>
+ * AnalysisPipeline.from("read", LongStream.range(0, archive.size()).iterator())
+ *         .stage("parse", 2, 256, archive::read)
+ *         .stage("analyse", 4, 256, game -&gt; game.toChessGame().getAttackMap())
+ *         .to("write", 1, 256, results::add)
+ *         .run();
+ * </pre>
+ */
+public final class AnalysisPipeline {
+
+    /**
+     * One step applied to each item
+     */
+    @FunctionalInterface
+    public interface Stage<I, O> {
+        /**
+         * @return the item to pass on, or null to drop it, e.g. a game that fails validation
+         */
+        O apply(I item) throws IOException;
+    }
+
+    /**
+     * The last step, which consumes each item
+     */
+    @FunctionalInterface
+    public interface Sink<I> {
+        void accept(I item) throws IOException;
+    }
+
+    /**
+     * What a stage has done so far. Times are summed over the stage's workers.
+     *
+     * @param processed    items taken in and handled
+     * @param dropped      items the stage dropped by returning null
+     * @param busyNanos    time spent applying the stage
+     * @param idleNanos    time spent waiting for input
+     * @param blockedNanos time spent waiting for room in the next stage's queue
+     * @param queued       items waiting in the stage's input queue
+     * @param capacity     the size of the input queue, 0 for the first stage
+     */
+    public record StageStats(String name, int workers, long processed, long dropped, long busyNanos,
+                             long idleNanos, long blockedNanos, int queued, int capacity) {
+
+        /**
+         * @return the share of the workers' time spent working, from 0 to 1
+         */
+        public double utilisation() {
+            long total = busyNanos + idleNanos + blockedNanos;
+            return total == 0 ? 0 : (double) busyNanos / total;
+        }
+
+        /**
+         * @return items handled per second of the given wall-clock time
+         */
+        public double throughput(long elapsedNanos) {
+            return elapsedNanos == 0 ? 0 : processed * 1e9 / elapsedNanos;
+        }
+    }
+
+    /**
+     * Marks the end of the input; the last worker of a stage to see it sends
+     * one to each worker of the next stage
+     */
+    private static final Object END = new Object();
+
+    private final List<Step> steps;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final List<Thread> threads = new ArrayList<>();
+
+    private AnalysisPipeline(List<Step> steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * Starts a pipeline whose first stage reads items from an iterator on one
+     * thread. An {@link UncheckedIOException} from the iterator fails the run
+     * with its cause.
+     */
+    public static <T> Builder<T> from(String name, Iterator<? extends T> source) {
+        List<Step> steps = new ArrayList<>();
+        steps.add(new Step(name, 1, null, null));
+        return new Builder<>(steps, source);
+    }
+
+    /**
+     * Adds stages one at a time; each call gives a builder for the type the
+     * new stage produces
+     */
+    public static final class Builder<T> {
+
+        private final List<Step> steps;
+        private final Iterator<?> source;
+
+        private Builder(List<Step> steps, Iterator<?> source) {
+            this.steps = steps;
+            this.source = source;
+        }
+
+        /**
+         * @param workers       the number of threads running the stage
+         * @param queueCapacity the number of items that can wait for the stage
+         */
+        @SuppressWarnings("unchecked")
+        public <R> Builder<R> stage(String name, int workers, int queueCapacity, Stage<? super T, ? extends R> stage) {
+            steps.add(new Step(name, workers, new ArrayBlockingQueue<>(queueCapacity), (Stage<Object, Object>) stage));
+            return new Builder<>(steps, source);
+        }
+
+        /**
+         * Ends the pipeline with a stage that consumes every item
+         */
+        public AnalysisPipeline to(String name, int workers, int queueCapacity, Sink<? super T> sink) {
+            stage(name, workers, queueCapacity, item -> {
+                sink.accept(item);
+                return null;
+            });
+            steps.get(0).source = source;
+            return new AnalysisPipeline(List.copyOf(steps));
+        }
+    }
+
+    /**
+     * Runs every item through the pipeline and waits for the last stage to
+     * finish. If a stage fails, the other workers are interrupted and the
+     * failure is thrown once they have stopped.
+     *
+     * @throws InterruptedException if the calling thread is interrupted, which also stops the workers
+     */
+    public void run() throws IOException, InterruptedException {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("the pipeline has already run");
+        }
+        for (int i = 0; i < steps.size(); i++) {
+            Step step = steps.get(i);
+            Step next = i + 1 < steps.size() ? steps.get(i + 1) : null;
+            for (int w = 0; w < step.workers; w++) {
+                threads.add(Thread.ofPlatform().name(step.name + "-" + w).unstarted(() -> work(step, next)));
+            }
+        }
+        threads.forEach(Thread::start);
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            cancel();
+            throw e;
+        }
+        Throwable cause = failure.get();
+        if (cause instanceof IOException io) {
+            throw io;
+        } else if (cause instanceof RuntimeException runtime) {
+            throw runtime;
+        } else if (cause instanceof Error error) {
+            throw error;
+        }
+    }
+
+    /**
+     * @return the counters of each stage, in order; safe to call while the pipeline runs
+     */
+    public List<StageStats> stats() {
+        List<StageStats> stats = new ArrayList<>(steps.size());
+        for (Step step : steps) {
+            stats.add(new StageStats(step.name, step.workers, step.processed.sum(), step.dropped.sum(),
+                    step.busy.sum(), step.idle.sum(), step.blocked.sum(),
+                    step.input == null ? 0 : step.input.size(),
+                    step.input == null ? 0 : step.input.size() + step.input.remainingCapacity()));
+        }
+        return stats;
+    }
+
+    private void work(Step step, Step next) {
+        try {
+            if (step.source != null) {
+                read(step, next);
+            } else {
+                apply(step, next);
+            }
+            if (step.running.decrementAndGet() == 0 && next != null) {
+                for (int w = 0; w < next.workers; w++) {
+                    next.input.put(END);
+                }
+            }
+        } catch (InterruptedException e) {
+            //cancelled because another worker failed or the caller was interrupted
+        } catch (UncheckedIOException e) {
+            fail(e.getCause());
+        } catch (Throwable e) {
+            fail(e);
+        }
+    }
+
+    private void read(Step step, Step next) throws InterruptedException {
+        Iterator<?> source = step.source;
+        while (true) {
+            long start = System.nanoTime();
+            if (!source.hasNext()) {
+                step.busy.add(System.nanoTime() - start);
+                return;
+            }
+            Object item = source.next();
+            long read = System.nanoTime();
+            step.busy.add(read - start);
+            step.processed.increment();
+            pass(step, next, item, read);
+        }
+    }
+
+    private void apply(Step step, Step next) throws IOException, InterruptedException {
+        while (true) {
+            long start = System.nanoTime();
+            Object item = step.input.take();
+            long taken = System.nanoTime();
+            step.idle.add(taken - start);
+            if (item == END) {
+                return;
+            }
+            Object result = step.stage.apply(item);
+            long done = System.nanoTime();
+            step.busy.add(done - taken);
+            step.processed.increment();
+            pass(step, next, result, done);
+        }
+    }
+
+    private static void pass(Step step, Step next, Object item, long since) throws InterruptedException {
+        if (next == null) {
+            return;
+        }
+        if (item == null) {
+            step.dropped.increment();
+        } else {
+            next.input.put(item);
+            step.blocked.add(System.nanoTime() - since);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        if (failure.compareAndSet(null, cause)) {
+            cancel();
+        }
+    }
+
+    private void cancel() {
+        for (Thread thread : threads) {
+            if (thread != Thread.currentThread()) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private static final class Step {
+        final String name;
+        final int workers;
+        final BlockingQueue<Object> input;
+        final Stage<Object, Object> stage;
+        Iterator<?> source;
+        final AtomicInteger running;
+        final LongAdder processed = new LongAdder();
+        final LongAdder dropped = new LongAdder();
+        final LongAdder busy = new LongAdder();
+        final LongAdder idle = new LongAdder();
+        final LongAdder blocked = new LongAdder();
+
+        Step(String name, int workers, BlockingQueue<Object> input, Stage<Object, Object> stage) {
+            if (workers < 1) {
+                throw new IllegalArgumentException("stage " + name + " needs at least one worker");
+            }
+            this.name = name;
+            this.workers = workers;
+            this.input = input;
+            this.stage = stage;
+            this.running = new AtomicInteger(workers);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package chess.archive;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.FastBoard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One game read back from a {@link GameArchive}: its result, starting
+ * position and moves in packed form
+ */
+public class ArchivedGame {
+
+    private final long id;
+    private final GameResult result;
+    private final FastBoard start;
+    private final short[] moves;
+
+    ArchivedGame(long id, GameResult result, FastBoard start, short[] moves) {
+        this.id = id;
+        this.result = result;
+        this.start = start;
+        this.moves = moves;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public GameResult getResult() {
+        return result;
+    }
+
+    public int getPlyCount() {
+        return moves.length;
+    }
+
+    /**
+     * @return the packed move played at a ply, see {@link FastBoard#move}
+     */
+    public int getPackedMove(int ply) {
+        return moves[ply] & 0xFFFF;
+    }
+
+    /**
+     * @return the moves of the game, in order
+     */
+    public List<ChessMove> getMoves() {
+        List<ChessMove> list = new ArrayList<>(moves.length);
+        for (short move : moves) {
+            list.add(FastBoard.unpack(move & 0xFFFF));
+        }
+        return list;
+    }
+
+    /**
+     * @return a copy of the starting position
+     */
+    public FastBoard getStart() {
+        return new FastBoard(start);
+    }
+
+    /**
+     * Replays the first {@code ply} moves on a fast board, without validation
+     *
+     * @return the position after {@code ply} moves
+     */
+    public FastBoard replay(int ply) {
+        if (ply < 0 || ply > moves.length) {
+            throw new IndexOutOfBoundsException("ply " + ply + " of a " + moves.length + " ply game");
+        }
+        FastBoard board = new FastBoard(start);
+        for (int i = 0; i < ply; i++) {
+            board.make(moves[i] & 0xFFFF);
+        }
+        return board;
+    }
+
+    /**
+     * @return a game in the final position of this game
+     */
+    public ChessGame toChessGame() {
+        return replay(moves.length).toChessGame();
+    }
+}
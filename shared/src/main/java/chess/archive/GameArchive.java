@@ -0,0 +1,247 @@
+package chess.archive;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.FastBoard;
+import chess.notation.PgnGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * An append-only store of finished games, read back through memory mapping.
+ * <p>
+ * The archive is a directory holding two files. {@code games.dat} starts with
+ * an 8 byte header and then holds one record per game:
+ * <pre>
+ * int    length of the rest of the record
+ * byte   {@link GameResult} ordinal
+ * byte   flags, bit 0 set when the game has a non-standard start
+ * short  ply count (unsigned)
+ * 37     bytes start position, only with flag bit 0: 64 nibble piece codes, side to
+ *        move, castling rights, en passant square (0xFF for none), halfmove clock
+ * short  one packed move per ply, see {@link FastBoard#move}
+ * </pre>
+ * {@code games.idx} has the same size header and then the offset of each
+ * record as a long, so game {@code id} is found by reading one index entry
+ * and one record. Records are written before their index entry, so after a
+ * crash any half written record is simply overwritten by the next append.
+ */
+public class GameArchive implements Closeable {
+
+    private static final int DATA_MAGIC = 0x43484741;
+    private static final int INDEX_MAGIC = 0x43484749;
+    /**
+     * Version 2 added castling rights, en passant square and halfmove clock
+     * to custom start positions
+     */
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int START_SIZE = 37;
+    private static final int MAX_PLIES = 0xFFFF;
+    private static final int MAX_RECORD = RECORD_HEADER_SIZE + START_SIZE + 2 * MAX_PLIES;
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private static final FastBoard STANDARD_START = FastBoard.startingPosition();
+
+    private final FileChannel data;
+    private final FileChannel index;
+    private final MappedFile dataMap;
+    private final MappedFile indexMap;
+    private long dataSize;
+    private volatile long count;
+
+    private GameArchive(FileChannel data, FileChannel index) throws IOException {
+        this.data = data;
+        this.index = index;
+        this.dataMap = new MappedFile(data, SEGMENT_SIZE, MAX_RECORD);
+        this.indexMap = new MappedFile(index, SEGMENT_SIZE, Long.BYTES);
+        checkHeader(data, DATA_MAGIC);
+        long indexSize = checkHeader(index, INDEX_MAGIC);
+        this.count = (indexSize - HEADER_SIZE) / Long.BYTES;
+        if (count > 0) {
+            long last = offset(count - 1);
+            dataSize = last + Integer.BYTES + dataMap.slice(last, Integer.BYTES).getInt(0);
+        } else {
+            dataSize = HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Opens the archive in a directory, creating it if needed
+     */
+    public static GameArchive open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel data = FileChannel.open(directory.resolve("games.dat"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = FileChannel.open(directory.resolve("games.idx"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new GameArchive(data, index);
+    }
+
+    /**
+     * @return the number of games in the archive; ids run from 0 to size - 1
+     */
+    public long size() {
+        return count;
+    }
+
+    /**
+     * Appends a game
+     *
+     * @param start  the starting position, or null for the standard start
+     * @param moves  the moves played, which must be legal
+     * @param result how the game ended
+     * @return the id of the stored game
+     */
+    public synchronized long append(ChessGame start, List<ChessMove> moves, GameResult result) throws IOException {
+        if (moves.size() > MAX_PLIES) {
+            throw new IllegalArgumentException("games are limited to " + MAX_PLIES + " plies");
+        }
+        FastBoard startBoard = start == null ? STANDARD_START : FastBoard.of(start);
+        //equals compares castling rights and en passant, so the standard layout missing a right is custom
+        boolean customStart = !startBoard.equals(STANDARD_START) || startBoard.halfmoveClock() != 0;
+
+        int length = RECORD_HEADER_SIZE + (customStart ? START_SIZE : 0) + 2 * moves.size();
+        ByteBuffer record = ByteBuffer.allocate(length);
+        record.putInt(length - Integer.BYTES);
+        record.put((byte) result.ordinal());
+        record.put((byte) (customStart ? 1 : 0));
+        record.putShort((short) moves.size());
+        if (customStart) {
+            for (int sq = 0; sq < 64; sq += 2) {
+                record.put((byte) (startBoard.pieceAt(sq) | startBoard.pieceAt(sq + 1) << 4));
+            }
+            record.put((byte) startBoard.sideToMove());
+            record.put((byte) startBoard.castlingRights());
+            record.put((byte) startBoard.enPassantSquare());
+            record.putShort((short) startBoard.halfmoveClock());
+        }
+        for (ChessMove move : moves) {
+            record.putShort((short) FastBoard.pack(move));
+        }
+        record.flip();
+
+        long offset = dataSize;
+        writeFully(data, record, offset);
+        ByteBuffer entry = ByteBuffer.allocate(Long.BYTES).putLong(0, offset);
+        writeFully(index, entry, HEADER_SIZE + count * Long.BYTES);
+        dataSize = offset + length;
+        return count++;
+    }
+
+    /**
+     * Appends a game read from PGN
+     *
+     * @return the id of the stored game
+     * @throws IllegalArgumentException if the game's moves were not fully resolved
+     */
+    public long append(PgnGame game) throws IOException {
+        if (game.getError() != null || game.getMoves().size() != game.getSanMoves().size()) {
+            throw new IllegalArgumentException("game moves are not resolved: " + game.getError());
+        }
+        return append(game.getTag("FEN") == null ? null : game.createStartingGame(), game.getMoves(),
+                GameResult.fromPgn(game.getResult()));
+    }
+
+    /**
+     * Reads one game by id without touching any other record
+     */
+    public ArchivedGame read(long id) throws IOException {
+        if (id < 0 || id >= count) {
+            throw new IllegalArgumentException("no game with id " + id);
+        }
+        long offset = offset(id);
+        ByteBuffer header = dataMap.slice(offset, RECORD_HEADER_SIZE);
+        int length = Integer.BYTES + header.getInt(0);
+        ByteBuffer record = dataMap.slice(offset, length);
+
+        GameResult result = GameResult.values()[record.get(4)];
+        boolean customStart = (record.get(5) & 1) != 0;
+        int plies = record.getShort(6) & 0xFFFF;
+        int position = RECORD_HEADER_SIZE;
+        FastBoard start;
+        if (customStart) {
+            start = new FastBoard();
+            for (int sq = 0; sq < 64; sq += 2) {
+                int packed = record.get(position++);
+                if ((packed & 0xF) != 0) {
+                    start.put(sq, packed & 0xF);
+                }
+                if ((packed >>> 4 & 0xF) != 0) {
+                    start.put(sq + 1, packed >>> 4 & 0xF);
+                }
+            }
+            start.setSideToMove(record.get(position++));
+            start.setCastlingRights(record.get(position++));
+            start.setEnPassantSquare(record.get(position++));
+            start.setHalfmoveClock(record.getShort(position) & 0xFFFF);
+            position += Short.BYTES;
+        } else {
+            start = new FastBoard(STANDARD_START);
+        }
+        short[] moves = new short[plies];
+        record.position(position);
+        record.asShortBuffer().get(moves);
+        return new ArchivedGame(id, result, start, moves);
+    }
+
+    /**
+     * Replays a game by id through a fast board
+     *
+     * @return a game in the final position of the stored game
+     */
+    public ChessGame replay(long id) throws IOException {
+        return read(id).toChessGame();
+    }
+
+    /**
+     * Forces all appended games to disk
+     */
+    public synchronized void flush() throws IOException {
+        data.force(false);
+        index.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            data.close();
+        } finally {
+            index.close();
+        }
+    }
+
+    private long offset(long id) throws IOException {
+        return indexMap.slice(HEADER_SIZE + id * Long.BYTES, Long.BYTES).getLong(0);
+    }
+
+    private static long checkHeader(FileChannel channel, int magic) throws IOException {
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (size == 0) {
+            header.putInt(magic).putInt(VERSION).flip();
+            writeFully(channel, header, 0);
+            return HEADER_SIZE;
+        }
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+        }
+        if (header.position() < HEADER_SIZE || header.getInt(0) != magic || header.getInt(4) != VERSION) {
+            throw new IOException("not a version " + VERSION + " game archive file");
+        }
+        return size;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
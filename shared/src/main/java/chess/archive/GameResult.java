@@ -0,0 +1,37 @@
+package chess.archive;
+
+/**
+ * How a stored game ended, with its PGN termination marker
+ */
+public enum GameResult {
+    UNKNOWN("*"),
+    WHITE_WINS("1-0"),
+    BLACK_WINS("0-1"),
+    DRAW("1/2-1/2");
+
+    private final String pgn;
+
+    GameResult(String pgn) {
+        this.pgn = pgn;
+    }
+
+    /**
+     * @return the PGN termination marker, e.g. "1-0"
+     */
+    public String pgn() {
+        return pgn;
+    }
+
+    /**
+     * @return the result for a PGN termination marker, or {@link #UNKNOWN}
+     * if the marker is not recognised
+     */
+    public static GameResult fromPgn(String marker) {
+        for (GameResult result : values()) {
+            if (result.pgn.equals(marker)) {
+                return result;
+            }
+        }
+        return UNKNOWN;
+    }
+}
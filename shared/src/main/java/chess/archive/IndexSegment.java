@@ -0,0 +1,169 @@
+package chess.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One immutable, sorted file of position index entries.
+ * <p>
+ * Layout: a 32 byte header (magic, version, entry count, fence offset), the
+ * entries as (long hash, long value) pairs sorted by hash then value, and a
+ * fence table holding the first hash of every {@link #PAGE_ENTRIES} entry
+ * page. The fence table is loaded into memory on open, so a lookup binary
+ * searches the fences and then reads only the pages that can hold the hash.
+ */
+final class IndexSegment implements Closeable {
+
+    static final int PAGE_ENTRIES = 256;
+    static final int ENTRY_SIZE = 16;
+    private static final int PAGE_SIZE = PAGE_ENTRIES * ENTRY_SIZE;
+    private static final int MAGIC = 0x43485049;
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 32;
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final Path path;
+    private final FileChannel channel;
+    private final MappedFile map;
+    private final long count;
+    private final long[] fences;
+
+    private IndexSegment(Path path, FileChannel channel) throws IOException {
+        this.path = path;
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+        }
+        if (header.position() < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            throw new IOException("not a version " + VERSION + " position index file");
+        }
+        this.count = header.getLong(8);
+        long fenceOffset = header.getLong(16);
+        this.map = new MappedFile(channel, SEGMENT_SIZE, PAGE_SIZE);
+        int pages = (int) ((count + PAGE_ENTRIES - 1) / PAGE_ENTRIES);
+        this.fences = new long[pages];
+        ByteBuffer fenceBytes = ByteBuffer.allocate(pages * Long.BYTES);
+        while (fenceBytes.hasRemaining()
+                && channel.read(fenceBytes, fenceOffset + fenceBytes.position()) > 0) {
+        }
+        fenceBytes.flip().asLongBuffer().get(fences);
+    }
+
+    static IndexSegment open(Path path) throws IOException {
+        return new IndexSegment(path, FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long size() {
+        return count;
+    }
+
+    /**
+     * @return a view of up to one page of entries starting at an entry number
+     */
+    ByteBuffer page(long entry) throws IOException {
+        int inPage = (int) Math.min(PAGE_ENTRIES, count - entry);
+        return map.slice(HEADER_SIZE + entry * ENTRY_SIZE, inPage * ENTRY_SIZE);
+    }
+
+    /**
+     * Adds the value of every entry with the given hash to the list
+     */
+    void find(long hash, List<PositionHit> hits) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        int page = Arrays.binarySearch(fences, hash);
+        if (page < 0) {
+            page = -page - 2;
+        } else {
+            // equal hashes can continue from the end of earlier pages
+            while (page > 0 && fences[page - 1] == hash) {
+                page--;
+            }
+            page--;
+        }
+        if (page < 0) {
+            page = 0;
+        }
+        for (long entry = (long) page * PAGE_ENTRIES; entry < count; ) {
+            ByteBuffer bytes = page(entry);
+            int inPage = bytes.capacity() / ENTRY_SIZE;
+            for (int i = 0; i < inPage; i++) {
+                long entryHash = bytes.getLong(i * ENTRY_SIZE);
+                if (entryHash == hash) {
+                    long value = bytes.getLong(i * ENTRY_SIZE + Long.BYTES);
+                    hits.add(new PositionHit(value >>> 16, (int) (value & 0xFFFF)));
+                } else if (entryHash > hash) {
+                    return;
+                }
+            }
+            entry += inPage;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Writes entries, which must arrive in sorted order, to a new segment file
+     */
+    static final class Writer implements Closeable {
+        private final FileChannel channel;
+        private final DataOutputStream out;
+        private long count;
+        private long[] fences = new long[16];
+
+        Writer(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            channel.position(HEADER_SIZE);
+            out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        }
+
+        void add(long hash, long value) throws IOException {
+            if (count % PAGE_ENTRIES == 0) {
+                int page = (int) (count / PAGE_ENTRIES);
+                if (page == fences.length) {
+                    fences = Arrays.copyOf(fences, page * 2);
+                }
+                fences[page] = hash;
+            }
+            out.writeLong(hash);
+            out.writeLong(value);
+            count++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            int pages = (int) ((count + PAGE_ENTRIES - 1) / PAGE_ENTRIES);
+            for (int i = 0; i < pages; i++) {
+                out.writeLong(fences[i]);
+            }
+            out.flush();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putLong(count).putLong(HEADER_SIZE + count * ENTRY_SIZE).putLong(0);
+            header.flip();
+            long position = 0;
+            while (header.hasRemaining()) {
+                position += channel.write(header, position);
+            }
+            channel.force(false);
+            out.close();
+        }
+    }
+}
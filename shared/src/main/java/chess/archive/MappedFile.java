@@ -0,0 +1,65 @@
+package chess.archive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Read-only memory mapping of a file that may be larger than one
+ * {@link MappedByteBuffer} can address and may keep growing while mapped.
+ * <p>
+ * The file is mapped in fixed size segments that each extend {@code overlap}
+ * bytes into the next one, so any read no longer than the overlap fits
+ * inside a single segment. Segments are mapped on first use and remapped
+ * when a read goes past the end of the file as it was when last mapped.
+ */
+final class MappedFile {
+
+    private final FileChannel channel;
+    private final long segmentSize;
+    private final int overlap;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+
+    MappedFile(FileChannel channel, long segmentSize, int overlap) {
+        this.channel = channel;
+        this.segmentSize = segmentSize;
+        this.overlap = overlap;
+    }
+
+    /**
+     * @return a view of {@code length} bytes starting at {@code offset}; the
+     * bytes are not copied
+     */
+    ByteBuffer slice(long offset, int length) throws IOException {
+        if (length > overlap) {
+            throw new IllegalArgumentException("read of " + length + " bytes is longer than the segment overlap");
+        }
+        int index = (int) (offset / segmentSize);
+        int start = (int) (offset - index * segmentSize);
+        MappedByteBuffer[] current = segments;
+        MappedByteBuffer segment = index < current.length ? current[index] : null;
+        if (segment == null || start + length > segment.capacity()) {
+            segment = map(index, start + length);
+        }
+        return segment.slice(start, length);
+    }
+
+    private synchronized MappedByteBuffer map(int index, int needed) throws IOException {
+        MappedByteBuffer[] current = segments;
+        if (index < current.length && current[index] != null && needed <= current[index].capacity()) {
+            return current[index];
+        }
+        long base = index * segmentSize;
+        long length = Math.min(segmentSize + overlap, channel.size() - base);
+        if (length < needed) {
+            throw new IOException("read past the end of the file at " + (base + needed));
+        }
+        MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, base, length);
+        MappedByteBuffer[] updated = index < current.length ? current.clone() : Arrays.copyOf(current, index + 1);
+        updated[index] = segment;
+        segments = updated;
+        return segment;
+    }
+}
@@ -0,0 +1,11 @@
+package chess.archive;
+
+/**
+ * One occurrence of a position in the archive: the game it was reached in
+ * and the number of plies played before it (0 being the starting position)
+ *
+ * @param gameId the {@link GameArchive} id of the game
+ * @param ply    the ply at which the position was on the board
+ */
+public record PositionHit(long gameId, int ply) {
+}
@@ -0,0 +1,189 @@
+package chess.archive;
+
+import chess.ChessGame;
+import chess.FastBoard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Answers "which archived games reached this position" queries.
+ * <p>
+ * The index is a directory of immutable sorted segments keyed by
+ * {@link FastBoard#hash()}, each written by a {@link PositionIndexBuilder}.
+ * A lookup reads at most two 4 KiB pages per segment plus one more page for
+ * every further 256 hits; {@link #compact()} merges all segments into one.
+ * Lookups may run on any number of threads, alongside a compaction.
+ * Hashes are 64 bits wide, so a hit can, very rarely, be a different
+ * position with the same hash; replay the game to confirm when that matters.
+ */
+public class PositionIndex implements Closeable {
+
+    private static final String PREFIX = "positions-";
+    private static final String SUFFIX = ".idx";
+
+    private final Path directory;
+    /**
+     * Replaced rather than changed, and only while {@link #lock} is held for
+     * writing, so lookups never see segments that are being closed
+     */
+    private List<IndexSegment> segments;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private PositionIndex(Path directory) throws IOException {
+        this.directory = directory;
+        List<IndexSegment> opened = new ArrayList<>();
+        for (Path path : segmentPaths(directory)) {
+            opened.add(IndexSegment.open(path));
+        }
+        this.segments = List.copyOf(opened);
+    }
+
+    /**
+     * Opens the index in a directory, creating the directory if needed
+     */
+    public static PositionIndex open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        return new PositionIndex(directory);
+    }
+
+    /**
+     * Starts building a new segment in an index directory. Open the index
+     * again after {@link PositionIndexBuilder#finish()} to see the new segment.
+     */
+    public static PositionIndexBuilder builder(Path directory) throws IOException {
+        return builder(directory, PositionIndexBuilder.DEFAULT_BUFFER_ENTRIES);
+    }
+
+    /**
+     * @param bufferEntries how many entries to hold in memory before spilling a sorted run
+     */
+    public static PositionIndexBuilder builder(Path directory, int bufferEntries) throws IOException {
+        Files.createDirectories(directory);
+        return new PositionIndexBuilder(directory, bufferEntries);
+    }
+
+    /**
+     * Indexes every game of an archive into a new segment in one pass
+     *
+     * @return the path of the new segment
+     */
+    public static Path build(GameArchive archive, Path directory) throws IOException {
+        try (PositionIndexBuilder builder = builder(directory)) {
+            for (long id = 0; id < archive.size(); id++) {
+                builder.add(archive.read(id));
+            }
+            return builder.finish();
+        }
+    }
+
+    /**
+     * @return every occurrence of a position hash, ordered by game and ply
+     * within each segment
+     */
+    public List<PositionHit> find(long hash) throws IOException {
+        List<PositionHit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (IndexSegment segment : segments) {
+                segment.find(hash, hits);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return hits;
+    }
+
+    /**
+     * @return every occurrence of the current position of a game
+     */
+    public List<PositionHit> find(ChessGame game) throws IOException {
+        return find(FastBoard.of(game).hash());
+    }
+
+    /**
+     * @return the number of entries across all segments
+     */
+    public long size() {
+        long size = 0;
+        lock.readLock().lock();
+        try {
+            for (IndexSegment segment : segments) {
+                size += segment.size();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return size;
+    }
+
+    /**
+     * Merges the open segments into a single segment, so lookups read one
+     * file. Lookups carry on against the old segments during the merge.
+     * Segments built since the index was opened are left alone.
+     */
+    public synchronized void compact() throws IOException {
+        List<IndexSegment> inputs = segments;
+        if (inputs.size() < 2) {
+            return;
+        }
+        List<Path> paths = new ArrayList<>();
+        for (IndexSegment segment : inputs) {
+            paths.add(segment.path());
+        }
+        Path output = nextSegmentPath(directory);
+        PositionIndexBuilder.merge(paths, output);
+        IndexSegment merged = IndexSegment.open(output);
+        lock.writeLock().lock();
+        try {
+            segments = List.of(merged);
+            for (IndexSegment segment : inputs) {
+                segment.close();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        for (Path path : paths) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        lock.writeLock().lock();
+        try {
+            for (IndexSegment segment : segments) {
+                segment.close();
+            }
+            segments = List.of();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    static Path nextSegmentPath(Path directory) throws IOException {
+        List<Path> existing = segmentPaths(directory);
+        int next = 1;
+        if (!existing.isEmpty()) {
+            String last = existing.get(existing.size() - 1).getFileName().toString();
+            next = Integer.parseInt(last.substring(PREFIX.length(), last.length() - SUFFIX.length())) + 1;
+        }
+        return directory.resolve(String.format("%s%06d%s", PREFIX, next, SUFFIX));
+    }
+
+    private static List<Path> segmentPaths(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package chess.archive;
+
+import chess.FastBoard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Builds a new {@link PositionIndex} segment in one streaming pass over
+ * imported games.
+ * <p>
+ * Entries collect in a fixed size buffer; each time it fills it is sorted
+ * and spilled to a temporary run file, and {@link #finish()} merges the runs
+ * into one segment. Memory use is bounded by the buffer size whatever the
+ * number of games.
+ */
+public class PositionIndexBuilder implements Closeable {
+
+    /**
+     * Default number of entries held in memory before spilling a run, about 32 MiB
+     */
+    public static final int DEFAULT_BUFFER_ENTRIES = 1 << 21;
+
+    private final Path directory;
+    private final long[] hashes;
+    private final long[] values;
+    private final List<Path> runs = new ArrayList<>();
+    private int buffered;
+
+    PositionIndexBuilder(Path directory, int bufferEntries) {
+        this.directory = directory;
+        this.hashes = new long[bufferEntries];
+        this.values = new long[bufferEntries];
+    }
+
+    /**
+     * Adds every position of an archived game, from the start to the final
+     * position
+     */
+    public void add(ArchivedGame game) throws IOException {
+        FastBoard board = game.getStart();
+        add(board.hash(), game.getId(), 0);
+        for (int ply = 0; ply < game.getPlyCount(); ply++) {
+            board.make(game.getPackedMove(ply));
+            add(board.hash(), game.getId(), ply + 1);
+        }
+    }
+
+    /**
+     * Adds one position occurrence
+     */
+    public void add(long hash, long gameId, int ply) throws IOException {
+        if (buffered == hashes.length) {
+            spill();
+        }
+        hashes[buffered] = hash;
+        values[buffered] = gameId << 16 | (ply & 0xFFFF);
+        buffered++;
+    }
+
+    /**
+     * Merges everything added into a new segment of the index
+     *
+     * @return the path of the new segment
+     */
+    public Path finish() throws IOException {
+        if (buffered > 0 || runs.isEmpty()) {
+            spill();
+        }
+        Path segment = PositionIndex.nextSegmentPath(directory);
+        if (runs.size() == 1) {
+            Files.move(runs.get(0), segment);
+        } else {
+            merge(runs, segment);
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+        runs.clear();
+        return segment;
+    }
+
+    /**
+     * Deletes any temporary runs of an unfinished build
+     */
+    @Override
+    public void close() throws IOException {
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+    }
+
+    private void spill() throws IOException {
+        sort(0, buffered - 1);
+        Path run = Files.createTempFile(directory, "run-", ".tmp");
+        try (IndexSegment.Writer writer = new IndexSegment.Writer(run)) {
+            for (int i = 0; i < buffered; i++) {
+                writer.add(hashes[i], values[i]);
+            }
+        }
+        runs.add(run);
+        buffered = 0;
+    }
+
+    /**
+     * K-way merges sorted segment files into one
+     */
+    static void merge(List<Path> inputs, Path output) throws IOException {
+        List<IndexSegment> segments = new ArrayList<>();
+        try (IndexSegment.Writer writer = new IndexSegment.Writer(output)) {
+            PriorityQueue<Cursor> queue = new PriorityQueue<>();
+            for (Path input : inputs) {
+                IndexSegment segment = IndexSegment.open(input);
+                segments.add(segment);
+                Cursor cursor = new Cursor(segment);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            while (!queue.isEmpty()) {
+                Cursor cursor = queue.poll();
+                writer.add(cursor.hash, cursor.value);
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+        } finally {
+            for (IndexSegment segment : segments) {
+                segment.close();
+            }
+        }
+    }
+
+    private void sort(int low, int high) {
+        while (high - low > 16) {
+            int mid = (low + high) >>> 1;
+            long pivotHash = hashes[mid];
+            long pivotValue = values[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (compare(i, pivotHash, pivotValue) < 0) {
+                    i++;
+                }
+                while (compare(j, pivotHash, pivotValue) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            // recurse into the smaller half to bound stack depth
+            if (j - low < high - i) {
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            for (int j = i; j > low && compare(j, hashes[j - 1], values[j - 1]) < 0; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    private int compare(int i, long hash, long value) {
+        int c = Long.compare(hashes[i], hash);
+        return c != 0 ? c : Long.compare(values[i], value);
+    }
+
+    private void swap(int i, int j) {
+        long hash = hashes[i];
+        hashes[i] = hashes[j];
+        hashes[j] = hash;
+        long value = values[i];
+        values[i] = values[j];
+        values[j] = value;
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        private final IndexSegment segment;
+        private long next;
+        private ByteBuffer page;
+        private long hash;
+        private long value;
+
+        Cursor(IndexSegment segment) {
+            this.segment = segment;
+        }
+
+        boolean advance() throws IOException {
+            if (next >= segment.size()) {
+                return false;
+            }
+            int inPage = (int) (next % IndexSegment.PAGE_ENTRIES);
+            if (inPage == 0) {
+                page = segment.page(next);
+            }
+            hash = page.getLong(inPage * IndexSegment.ENTRY_SIZE);
+            value = page.getLong(inPage * IndexSegment.ENTRY_SIZE + Long.BYTES);
+            next++;
+            return true;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int c = Long.compare(hash, other.hash);
+            return c != 0 ? c : Long.compare(value, other.value);
+        }
+    }
+}
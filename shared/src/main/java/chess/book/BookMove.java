@@ -0,0 +1,12 @@
+package chess.book;
+
+import chess.ChessMove;
+
+/**
+ * A candidate move from the opening book
+ *
+ * @param move   the move
+ * @param weight its relative weight; candidates are picked in proportion to it
+ */
+public record BookMove(ChessMove move, int weight) {
+}
@@ -0,0 +1,170 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.FastBoard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.random.RandomGenerator;
+
+/**
+ * A read-only opening book looked up straight from a memory-mapped file.
+ * <p>
+ * The file uses the Polyglot record layout: 16 byte entries of
+ * {@code (long key, short move, short weight, int learn)} sorted by unsigned
+ * key, with moves in Polyglot encoding (castling written as the king taking
+ * its own rook). Keys are {@link FastBoard#hash()} values rather than the
+ * Polyglot random table, so books must be written by
+ * {@link OpeningBookBuilder}. A lookup is a binary search over the mapping
+ * and copies nothing but the matching entries.
+ */
+public class OpeningBook implements Closeable {
+
+    static final int ENTRY_SIZE = 16;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer entries;
+    private final int count;
+
+    private OpeningBook(FileChannel channel) throws IOException {
+        this.channel = channel;
+        long size = channel.size();
+        if (size % ENTRY_SIZE != 0 || size > Integer.MAX_VALUE) {
+            throw new IOException("not an opening book file");
+        }
+        this.entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        this.count = (int) (size / ENTRY_SIZE);
+    }
+
+    /**
+     * Maps a book file for reading
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        return new OpeningBook(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * @return the number of entries in the book
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return the book moves for the current position of a game, skipping
+     * any whose start square does not hold a piece of the team to move
+     */
+    public List<BookMove> lookup(ChessGame game) {
+        FastBoard board = FastBoard.of(game);
+        List<BookMove> moves = new ArrayList<>(4);
+        for (int i = first(board.hash()); i < count && entries.getLong(i * ENTRY_SIZE) == board.hash(); i++) {
+            int packed = decode(board, entries.getShort(i * ENTRY_SIZE + 8) & 0xFFFF);
+            int piece = board.pieceAt(FastBoard.from(packed));
+            if (piece != 0 && piece >>> 3 == board.sideToMove()) {
+                moves.add(new BookMove(FastBoard.unpack(packed), entries.getShort(i * ENTRY_SIZE + 10) & 0xFFFF));
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Picks a book move at random in proportion to the move weights
+     *
+     * @return the chosen move, or null when the position is not in the book
+     */
+    public ChessMove pick(ChessGame game, RandomGenerator random) {
+        List<BookMove> moves = lookup(game);
+        int total = 0;
+        for (BookMove move : moves) {
+            total += move.weight();
+        }
+        if (total == 0) {
+            return moves.isEmpty() ? null : moves.get(0).move();
+        }
+        int roll = random.nextInt(total);
+        for (BookMove move : moves) {
+            roll -= move.weight();
+            if (roll < 0) {
+                return move.move();
+            }
+        }
+        return moves.get(moves.size() - 1).move();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return the index of the first entry whose key is not below the hash
+     */
+    private int first(long hash) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.compareUnsigned(entries.getLong(mid * ENTRY_SIZE), hash) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Converts a Polyglot move to a packed {@link FastBoard} move
+     */
+    static int decode(FastBoard board, int polyglot) {
+        int to = (polyglot & 0x3F);
+        int from = (polyglot >>> 6) & 0x3F;
+        int promotion = switch ((polyglot >>> 12) & 7) {
+            case 1 -> FastBoard.KNIGHT;
+            case 2 -> FastBoard.BISHOP;
+            case 3 -> FastBoard.ROOK;
+            case 4 -> FastBoard.QUEEN;
+            default -> 0;
+        };
+        int piece = board.pieceAt(from);
+        if ((piece & 7) == FastBoard.KING && (from & 7) == 4 && (to >>> 3) == (from >>> 3)
+                && ((to & 7) == 7 || (to & 7) == 0)) {
+            int target = board.pieceAt(to);
+            if ((target & 7) == FastBoard.ROOK && (target & 8) == (piece & 8)) {
+                to = (to & 7) == 7 ? from + 2 : from - 2;
+            }
+        }
+        return FastBoard.move(from, to, promotion);
+    }
+
+    /**
+     * Converts a packed {@link FastBoard} move to a Polyglot move
+     */
+    static int encode(FastBoard board, int move) {
+        int from = FastBoard.from(move);
+        int to = FastBoard.to(move);
+        if ((board.pieceAt(from) & 7) == FastBoard.KING && Math.abs(to - from) == 2) {
+            to = to > from ? from + 3 : from - 4;
+        }
+        int promotion = switch (FastBoard.promotion(move)) {
+            case FastBoard.KNIGHT -> 1;
+            case FastBoard.BISHOP -> 2;
+            case FastBoard.ROOK -> 3;
+            case FastBoard.QUEEN -> 4;
+            default -> 0;
+        };
+        return to | from << 6 | promotion << 12;
+    }
+
+    static void writeEntry(ByteBuffer out, long key, int polyglotMove, int weight) {
+        out.putLong(key).putShort((short) polyglotMove).putShort((short) weight).putInt(0);
+    }
+}
@@ -0,0 +1,104 @@
+package chess.book;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.FastBoard;
+import chess.archive.ArchivedGame;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the opening moves of many games and writes them as an
+ * {@link OpeningBook} file. Each move's weight is the number of games that
+ * played it from that position.
+ */
+public class OpeningBookBuilder {
+
+    private final int maxPlies;
+    private final Map<Long, Map<Integer, Integer>> counts = new HashMap<>();
+
+    /**
+     * @param maxPlies how many plies of each game to add to the book
+     */
+    public OpeningBookBuilder(int maxPlies) {
+        this.maxPlies = maxPlies;
+    }
+
+    /**
+     * Adds the opening of an archived game
+     */
+    public void add(ArchivedGame game) {
+        FastBoard board = game.getStart();
+        for (int ply = 0; ply < Math.min(maxPlies, game.getPlyCount()); ply++) {
+            int move = game.getPackedMove(ply);
+            count(board, move);
+            board.make(move);
+        }
+    }
+
+    /**
+     * Adds the opening of a game given as legal moves from a starting position
+     */
+    public void add(ChessGame start, List<ChessMove> moves) {
+        FastBoard board = FastBoard.of(start);
+        for (int ply = 0; ply < Math.min(maxPlies, moves.size()); ply++) {
+            int move = FastBoard.pack(moves.get(ply));
+            count(board, move);
+            board.make(move);
+        }
+    }
+
+    /**
+     * Writes the book, sorted by unsigned key and then by descending weight.
+     * Weights are scaled down to fit 16 bits when necessary.
+     */
+    public void write(Path path) throws IOException {
+        List<long[]> entries = new ArrayList<>();
+        int max = 1;
+        for (Map.Entry<Long, Map<Integer, Integer>> position : counts.entrySet()) {
+            for (Map.Entry<Integer, Integer> move : position.getValue().entrySet()) {
+                entries.add(new long[]{position.getKey(), move.getKey(), move.getValue()});
+                max = Math.max(max, move.getValue());
+            }
+        }
+        entries.sort((a, b) -> {
+            int c = Long.compareUnsigned(a[0], b[0]);
+            return c != 0 ? c : Long.compare(b[2], a[2]);
+        });
+
+        double scale = max > 0xFFFF ? 0xFFFF / (double) max : 1;
+        ByteBuffer out = ByteBuffer.allocate(OpeningBook.ENTRY_SIZE * 4096);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (long[] entry : entries) {
+                if (!out.hasRemaining()) {
+                    drain(channel, out);
+                }
+                int weight = (int) Math.max(1, Math.round(entry[2] * scale));
+                OpeningBook.writeEntry(out, entry[0], (int) entry[1], weight);
+            }
+            drain(channel, out);
+        }
+    }
+
+    private void count(FastBoard board, int move) {
+        counts.computeIfAbsent(board.hash(), hash -> new HashMap<>(4))
+                .merge(OpeningBook.encode(board, move), 1, Integer::sum);
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+}
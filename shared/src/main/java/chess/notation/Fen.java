@@ -0,0 +1,229 @@
+package chess.notation;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+/**
+ * Reads and writes Forsyth-Edwards Notation, both the piece-placement field,
+ * e.g. "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR", and whole records
+ * <p>
+ * Ranks are written from 8 down to 1, white pieces are upper case and runs of
+ * empty squares are written as a digit.
+ */
+public final class Fen {
+
+    private Fen() {
+    }
+
+    /**
+     * @param board the board to encode
+     * @return the piece placement of the board
+     */
+    public static String placement(ChessBoard board) {
+        StringBuilder out = new StringBuilder(64);
+        for (int row = 8; row >= 1; row--) {
+            int empty = 0;
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = board.getPiece(new ChessPosition(row, col));
+                if (piece == null) {
+                    empty++;
+                } else {
+                    if (empty > 0) {
+                        out.append((char) ('0' + empty));
+                        empty = 0;
+                    }
+                    out.append(pieceChar(piece));
+                }
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 1) {
+                out.append('/');
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Builds a board from a piece placement string
+     *
+     * @throws IllegalArgumentException if the placement is malformed
+     */
+    public static ChessBoard parsePlacement(CharSequence placement) {
+        ChessBoard board = new ChessBoard();
+        int row = 8;
+        int col = 1;
+        for (int i = 0; i < placement.length(); i++) {
+            char c = placement.charAt(i);
+            if (c == '/') {
+                if (col != 9) {
+                    throw new IllegalArgumentException("rank " + row + " does not have 8 squares: " + placement);
+                }
+                row--;
+                col = 1;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                ChessPiece piece = piece(c);
+                if (piece == null) {
+                    throw new IllegalArgumentException("bad piece '" + c + "' in " + placement);
+                }
+                if (col > 8 || row < 1) {
+                    throw new IllegalArgumentException("too many squares in " + placement);
+                }
+                board.addPiece(new ChessPosition(row, col), piece);
+                col++;
+            }
+            if (col > 9 || row < 1) {
+                throw new IllegalArgumentException("too many squares in " + placement);
+            }
+        }
+        if (row != 1 || col != 9) {
+            throw new IllegalArgumentException("placement does not cover the board: " + placement);
+        }
+        return board;
+    }
+
+    /**
+     * Encodes a game as a FEN record. The fullmove number isn't tracked and
+     * is always written as 1.
+     *
+     * @param game the game to encode
+     * @return the FEN record of the current position
+     */
+    public static String toFen(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        ChessPosition passed = board.getEnPassant();
+        return placement(board) + (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? " b " : " w ")
+                + castling(board.getCastlingRights()) + ' '
+                + (passed == null ? "-" : Uci.square(passed)) + ' ' + game.getHalfmoveClock() + " 1";
+    }
+
+    /**
+     * Builds a game from a FEN record. The placement field is required, the
+     * active colour defaults to white, castling defaults to every right the
+     * kings and rooks on their home squares allow, and the fullmove number
+     * is ignored.
+     *
+     * @throws IllegalArgumentException if the record is malformed
+     */
+    public static ChessGame parseGame(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        ChessGame game = new ChessGame();
+        ChessBoard board = parsePlacement(fields[0]);
+        game.setBoard(board);
+        if (fields.length > 1) {
+            game.setTeamTurn(switch (fields[1]) {
+                case "w" -> ChessGame.TeamColor.WHITE;
+                case "b" -> ChessGame.TeamColor.BLACK;
+                default -> throw new IllegalArgumentException("bad active colour '" + fields[1] + "' in " + fen);
+            });
+        }
+        if (fields.length > 2) {
+            board.setCastlingRights(parseCastling(fields[2]));
+        }
+        if (fields.length > 3 && !fields[3].equals("-")) {
+            try {
+                board.setEnPassant(Uci.parseSquare(fields[3]));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("bad en passant square '" + fields[3] + "' in " + fen, e);
+            }
+        }
+        if (fields.length > 4) {
+            try {
+                game.setHalfmoveClock(Integer.parseUnsignedInt(fields[4]));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("bad halfmove clock '" + fields[4] + "' in " + fen, e);
+            }
+        }
+        return game;
+    }
+
+    /**
+     * @return the FEN castling field for a mask of rights, e.g. "KQkq" or "-"
+     */
+    public static String castling(int rights) {
+        if (rights == 0) {
+            return "-";
+        }
+        StringBuilder out = new StringBuilder(4);
+        if ((rights & ChessBoard.WHITE_KINGSIDE) != 0) out.append('K');
+        if ((rights & ChessBoard.WHITE_QUEENSIDE) != 0) out.append('Q');
+        if ((rights & ChessBoard.BLACK_KINGSIDE) != 0) out.append('k');
+        if ((rights & ChessBoard.BLACK_QUEENSIDE) != 0) out.append('q');
+        return out.toString();
+    }
+
+    /**
+     * @return the mask of rights in a FEN castling field
+     * @throws IllegalArgumentException if the field is malformed
+     */
+    public static int parseCastling(String field) {
+        if (field.equals("-")) {
+            return 0;
+        }
+        int rights = 0;
+        for (int i = 0; i < field.length(); i++) {
+            rights |= switch (field.charAt(i)) {
+                case 'K' -> ChessBoard.WHITE_KINGSIDE;
+                case 'Q' -> ChessBoard.WHITE_QUEENSIDE;
+                case 'k' -> ChessBoard.BLACK_KINGSIDE;
+                case 'q' -> ChessBoard.BLACK_QUEENSIDE;
+                default -> throw new IllegalArgumentException("bad castling field '" + field + "'");
+            };
+        }
+        return rights;
+    }
+
+    /**
+     * @return the FEN letter for a piece, upper case for white
+     */
+    public static char pieceChar(ChessPiece piece) {
+        char c = typeChar(piece.getPieceType());
+        return piece.getTeamColor() == ChessGame.TeamColor.WHITE ? c : Character.toLowerCase(c);
+    }
+
+    /**
+     * @return the piece for a FEN letter, or null if the letter is not a piece
+     */
+    public static ChessPiece piece(char c) {
+        ChessPiece.PieceType type = pieceType(c);
+        if (type == null) {
+            return null;
+        }
+        ChessGame.TeamColor color = Character.isUpperCase(c) ? ChessGame.TeamColor.WHITE : ChessGame.TeamColor.BLACK;
+        return new ChessPiece(color, type);
+    }
+
+    /**
+     * @return the upper case letter for a piece type
+     */
+    public static char typeChar(ChessPiece.PieceType type) {
+        return switch (type) {
+            case KING -> 'K';
+            case QUEEN -> 'Q';
+            case BISHOP -> 'B';
+            case KNIGHT -> 'N';
+            case ROOK -> 'R';
+            case PAWN -> 'P';
+        };
+    }
+
+    /**
+     * @return the piece type for a letter of either case, or null if the letter is not a piece
+     */
+    public static ChessPiece.PieceType pieceType(char c) {
+        return switch (Character.toUpperCase(c)) {
+            case 'K' -> ChessPiece.PieceType.KING;
+            case 'Q' -> ChessPiece.PieceType.QUEEN;
+            case 'B' -> ChessPiece.PieceType.BISHOP;
+            case 'N' -> ChessPiece.PieceType.KNIGHT;
+            case 'R' -> ChessPiece.PieceType.ROOK;
+            case 'P' -> ChessPiece.PieceType.PAWN;
+            default -> null;
+        };
+    }
+}
@@ -0,0 +1,135 @@
+package chess.notation;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single game read from or written to a PGN file: its tag pairs, the SAN
+ * movetext of the main line, the moves those resolve to and the result
+ */
+public class PgnGame {
+
+    /**
+     * The seven tags every PGN export starts with, in the order they are written
+     */
+    public static final List<String> SEVEN_TAG_ROSTER =
+            List.of("Event", "Site", "Date", "Round", "White", "Black", "Result");
+
+    private final Map<String, String> tags = new LinkedHashMap<>();
+    private final List<String> sanMoves = new ArrayList<>();
+    private final List<ChessMove> moves = new ArrayList<>();
+    private String result = "*";
+    private String error;
+
+    /**
+     * @return the value of a tag, or null if the game does not have it
+     */
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    public void setTag(String name, String value) {
+        tags.put(name, value);
+    }
+
+    /**
+     * @return all tags in the order they were read or set
+     */
+    public Map<String, String> getTags() {
+        return Collections.unmodifiableMap(tags);
+    }
+
+    /**
+     * @return the main line moves as written in the movetext
+     */
+    public List<String> getSanMoves() {
+        return sanMoves;
+    }
+
+    /**
+     * @return the main line moves resolved against the board, which may be
+     * shorter than {@link #getSanMoves()} if resolution stopped at an error
+     */
+    public List<ChessMove> getMoves() {
+        return moves;
+    }
+
+    /**
+     * @return the game termination marker: "1-0", "0-1", "1/2-1/2" or "*"
+     */
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    /**
+     * @return why the movetext could not be fully resolved, or null if every
+     * SAN move matched a legal move
+     */
+    public String getError() {
+        return error;
+    }
+
+    void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * @return a new game at this game's starting position, taken from the FEN
+     * tag when present and the standard starting position otherwise
+     * @throws IllegalArgumentException if the FEN tag is malformed
+     */
+    public ChessGame createStartingGame() {
+        String fen = tags.get("FEN");
+        if (fen != null) {
+            return Fen.parseGame(fen);
+        }
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        game.setTeamTurn(ChessGame.TeamColor.WHITE);
+        return game;
+    }
+
+    /**
+     * Resolves the SAN movetext into {@link #getMoves()}, replacing any moves
+     * resolved earlier. Resolution stops at the first move that does not
+     * match a legal move and records the reason in {@link #getError()}.
+     *
+     * @return the game after the last resolved move
+     */
+    public ChessGame resolve() {
+        moves.clear();
+        error = null;
+        ChessGame game;
+        try {
+            game = createStartingGame();
+        } catch (IllegalArgumentException e) {
+            error = e.getMessage();
+            return null;
+        }
+        for (String san : sanMoves) {
+            try {
+                ChessMove move = San.parse(game, san);
+                game.makeMove(move);
+                moves.add(move);
+            } catch (InvalidMoveException e) {
+                error = "move " + (moves.size() + 1) + ": " + e.getMessage();
+                break;
+            }
+        }
+        return game;
+    }
+}
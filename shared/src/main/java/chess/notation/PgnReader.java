@@ -0,0 +1,348 @@
+package chess.notation;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads games one at a time from a PGN file of any size.
+ * <p>
+ * Input is pulled through a fixed size buffer from a {@link ReadableByteChannel},
+ * or through a sliding memory-mapped window with {@link #open(Path)}, so memory
+ * use is bounded by the largest single game rather than the file. Comments,
+ * NAGs and variations are skipped; only the main line is kept. By default each
+ * SAN move is resolved against {@link ChessGame#validMoves} as it is read.
+ */
+public class PgnReader implements Iterable<PgnGame>, Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long MAP_WINDOW = 64L << 20;
+    private static final int MAX_TOKEN = 4096;
+
+    private final ReadableByteChannel channel;
+    private final FileChannel file;
+    private long mappedOffset;
+    private ByteBuffer buffer;
+    private int pushback = -1;
+    private boolean atLineStart = true;
+    private boolean readAtLineStart;
+    private boolean resolveMoves = true;
+
+    private final byte[] token = new byte[MAX_TOKEN];
+    private int tokenLength;
+
+    /**
+     * Reads PGN text from a channel through a fixed size buffer
+     */
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        this.file = null;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE).flip();
+    }
+
+    private PgnReader(FileChannel file) {
+        this.channel = file;
+        this.file = file;
+        this.buffer = ByteBuffer.allocate(0);
+    }
+
+    /**
+     * Opens a PGN file for reading through a sliding memory-mapped window
+     */
+    public static PgnReader open(Path path) throws IOException {
+        return new PgnReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * @param resolveMoves whether SAN moves should be resolved to
+     *                     {@link ChessMove}s while reading; turn this off to
+     *                     only split the file into games and resolve later
+     *                     with {@link PgnGame#resolve()}
+     */
+    public void setResolveMoves(boolean resolveMoves) {
+        this.resolveMoves = resolveMoves;
+    }
+
+    /**
+     * Reads the next game
+     *
+     * @return the next game, or null at the end of the input
+     */
+    public PgnGame readGame() throws IOException {
+        PgnGame game = null;
+        ChessGame replay = null;
+        boolean inMovetext = false;
+
+        while (true) {
+            int c = skipWhitespace();
+            if (c == -1) {
+                boolean empty = game == null || (game.getTags().isEmpty() && game.getSanMoves().isEmpty());
+                return empty ? null : game;
+            }
+            if (game == null) {
+                game = new PgnGame();
+            }
+            switch (c) {
+                case '[' -> {
+                    if (inMovetext) {
+                        // next game started without a termination marker
+                        unread(c);
+                        return game;
+                    }
+                    readTag(game);
+                }
+                case '{' -> skipPast('}');
+                case ';' -> skipPast('\n');
+                case '(' -> skipVariation();
+                case ')' -> {
+                }
+                case '$' -> readToken(c);
+                case '%' -> {
+                    if (readAtLineStart) {
+                        skipPast('\n');
+                    }
+                }
+                default -> {
+                    readToken(c);
+                    String text = tokenString(startOfMove());
+                    if (text.equals("1-0") || text.equals("0-1") || text.equals("1/2-1/2") || text.equals("*")) {
+                        game.setResult(text);
+                        return game;
+                    }
+                    if (text.isEmpty()) {
+                        continue;
+                    }
+                    inMovetext = true;
+                    game.getSanMoves().add(text);
+                    if (resolveMoves && game.getError() == null) {
+                        if (replay == null) {
+                            try {
+                                replay = game.createStartingGame();
+                            } catch (IllegalArgumentException e) {
+                                game.setError(e.getMessage());
+                                continue;
+                            }
+                        }
+                        try {
+                            ChessMove move = San.parse(replay, text);
+                            replay.makeMove(move);
+                            game.getMoves().add(move);
+                        } catch (InvalidMoveException e) {
+                            game.setError("move " + game.getSanMoves().size() + ": " + e.getMessage());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return an iterator over the remaining games; I/O errors are rethrown
+     * as {@link UncheckedIOException}
+     */
+    @Override
+    public Iterator<PgnGame> iterator() {
+        return new Iterator<>() {
+            private PgnGame next;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = readGame();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public PgnGame next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                PgnGame game = next;
+                next = null;
+                return game;
+            }
+        };
+    }
+
+    /**
+     * @return a sequential, lazily populated stream of the remaining games
+     */
+    public Stream<PgnGame> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private void readTag(PgnGame game) throws IOException {
+        int c = skipWhitespace();
+        tokenLength = 0;
+        while (c != -1 && c != '"' && c != ']' && !Character.isWhitespace(c)) {
+            append(c);
+            c = read();
+        }
+        String name = tokenString(0);
+        while (c != -1 && c != '"' && c != ']') {
+            c = read();
+        }
+        String value = "";
+        if (c == '"') {
+            tokenLength = 0;
+            c = read();
+            while (c != -1 && c != '"') {
+                if (c == '\\') {
+                    c = read();
+                }
+                if (c != -1) {
+                    append(c);
+                    c = read();
+                }
+            }
+            value = new String(token, 0, tokenLength, StandardCharsets.UTF_8);
+            c = read();
+        }
+        while (c != -1 && c != ']') {
+            c = read();
+        }
+        if (!name.isEmpty()) {
+            game.setTag(name, value);
+        }
+    }
+
+    private void readToken(int first) throws IOException {
+        tokenLength = 0;
+        int c = first;
+        while (c != -1 && !Character.isWhitespace(c) && "[]{}();".indexOf(c) < 0) {
+            append(c);
+            c = read();
+        }
+        unread(c);
+    }
+
+    /**
+     * @return the offset in the current token past any move number prefix,
+     * e.g. 3 for "12.e4" or 5 for "12..."
+     */
+    private int startOfMove() {
+        int i = 0;
+        while (i < tokenLength && token[i] >= '0' && token[i] <= '9') {
+            i++;
+        }
+        if (i < tokenLength && token[i] == '.') {
+            while (i < tokenLength && token[i] == '.') {
+                i++;
+            }
+            return i;
+        }
+        int dots = 0;
+        while (dots < tokenLength && token[dots] == '.') {
+            dots++;
+        }
+        return dots;
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            switch (c) {
+                case -1 -> depth = 0;
+                case '(' -> depth++;
+                case ')' -> depth--;
+                case '{' -> skipPast('}');
+                case ';' -> skipPast('\n');
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void skipPast(int end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && c != end);
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && Character.isWhitespace(c));
+        return c;
+    }
+
+    private void append(int c) {
+        if (tokenLength < MAX_TOKEN) {
+            token[tokenLength++] = (byte) c;
+        }
+    }
+
+    private String tokenString(int from) {
+        return new String(token, from, tokenLength - from, StandardCharsets.ISO_8859_1);
+    }
+
+    private void unread(int c) {
+        pushback = c;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushback != -1) {
+            c = pushback;
+            pushback = -1;
+            return c;
+        }
+        if (!buffer.hasRemaining() && !refill()) {
+            return -1;
+        }
+        c = buffer.get() & 0xFF;
+        readAtLineStart = atLineStart;
+        atLineStart = c == '\n';
+        return c;
+    }
+
+    private boolean refill() throws IOException {
+        if (file != null) {
+            long size = file.size();
+            if (mappedOffset >= size) {
+                return false;
+            }
+            long length = Math.min(MAP_WINDOW, size - mappedOffset);
+            buffer = file.map(FileChannel.MapMode.READ_ONLY, mappedOffset, length);
+            mappedOffset += length;
+            return true;
+        }
+        buffer.clear();
+        int n;
+        do {
+            n = channel.read(buffer);
+        } while (n == 0);
+        buffer.flip();
+        return n > 0;
+    }
+}
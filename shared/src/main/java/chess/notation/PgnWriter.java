@@ -0,0 +1,141 @@
+package chess.notation;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.InvalidMoveException;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Writes games in PGN export format: the seven tag roster first, then any
+ * other tags, then the main line in SAN wrapped at 80 columns
+ */
+public class PgnWriter implements Closeable, Flushable {
+
+    private static final int LINE_WIDTH = 80;
+
+    private final Writer out;
+    private int column;
+
+    public PgnWriter(Writer out) {
+        this.out = out;
+    }
+
+    public PgnWriter(WritableByteChannel channel) {
+        this(new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Creates or truncates a PGN file for writing
+     */
+    public static PgnWriter create(Path path) throws IOException {
+        return new PgnWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes one game followed by a blank line. The movetext is generated from
+     * {@link PgnGame#getMoves()} when they were fully resolved, otherwise the
+     * SAN moves are written as they were read.
+     *
+     * @throws IllegalArgumentException if a resolved move is illegal in the game
+     */
+    public void write(PgnGame game) throws IOException {
+        Map<String, String> tags = game.getTags();
+        for (String name : PgnGame.SEVEN_TAG_ROSTER) {
+            String value = name.equals("Result") ? game.getResult() : tags.getOrDefault(name, "?");
+            writeTag(name, value);
+        }
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            if (!PgnGame.SEVEN_TAG_ROSTER.contains(tag.getKey())) {
+                writeTag(tag.getKey(), tag.getValue());
+            }
+        }
+        out.write('\n');
+
+        column = 0;
+        boolean resolved = game.getError() == null && !game.getMoves().isEmpty();
+        if (resolved) {
+            writeMoves(game);
+        } else {
+            int ply = 0;
+            for (String san : game.getSanMoves()) {
+                if (ply % 2 == 0) {
+                    writeToken((ply / 2 + 1) + ".");
+                }
+                writeToken(san);
+                ply++;
+            }
+        }
+        writeToken(game.getResult());
+        out.write("\n\n");
+    }
+
+    private void writeMoves(PgnGame game) throws IOException {
+        ChessGame replay = game.createStartingGame();
+        int moveNumber = 1;
+        boolean first = true;
+        for (ChessMove move : game.getMoves()) {
+            if (replay.getTeamTurn() == ChessGame.TeamColor.WHITE) {
+                writeToken(moveNumber + ".");
+            } else if (first) {
+                writeToken(moveNumber + "...");
+            }
+            writeToken(San.encode(replay, move));
+            try {
+                replay.makeMove(move);
+            } catch (InvalidMoveException e) {
+                throw new IllegalArgumentException("illegal move " + Uci.move(move), e);
+            }
+            if (replay.getTeamTurn() == ChessGame.TeamColor.WHITE) {
+                moveNumber++;
+            }
+            first = false;
+        }
+    }
+
+    private void writeTag(String name, String value) throws IOException {
+        out.write('[');
+        out.write(name);
+        out.write(" \"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+            }
+            out.write(c);
+        }
+        out.write("\"]\n");
+    }
+
+    private void writeToken(String token) throws IOException {
+        if (column > 0 && column + 1 + token.length() > LINE_WIDTH) {
+            out.write('\n');
+            column = 0;
+        } else if (column > 0) {
+            out.write(' ');
+            column++;
+        }
+        out.write(token);
+        column += token.length();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
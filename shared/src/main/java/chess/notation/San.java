@@ -0,0 +1,237 @@
+package chess.notation;
+
+import chess.*;
+
+/**
+ * Converts moves to and from Standard Algebraic Notation, e.g. "Nf3",
+ * "exd5", "R1a3", "e8=Q+"
+ */
+public final class San {
+
+    private San() {
+    }
+
+    /**
+     * Encodes a move that is legal in the given game.
+     * <p>
+     * Disambiguation and the check suffix are worked out by making moves on
+     * one {@link FastBoard} copy of the position and taking them back; a check
+     * is a mate only once no reply is found, so the search stops at the first
+     * legal one. The game must not be changed by another thread while this runs.
+     *
+     * @param game the game before the move is made
+     * @param move the move to encode
+     * @return the move in SAN, including a check or mate suffix
+     */
+    public static String encode(ChessGame game, ChessMove move) {
+        return appendTo(new StringBuilder(8), game, move).toString();
+    }
+
+    /**
+     * Appends a move that is legal in the given game to a builder in SAN
+     *
+     * @return the builder, for chaining
+     * @see #encode(ChessGame, ChessMove)
+     */
+    public static StringBuilder appendTo(StringBuilder out, ChessGame game, ChessMove move) {
+        ChessBoard board = game.getBoard();
+        ChessPosition start = move.getStartPosition();
+        ChessPosition end = move.getEndPosition();
+        ChessPiece piece = board.getPiece(start);
+        if (piece == null) {
+            throw new IllegalArgumentException("no piece at " + start);
+        }
+        FastBoard fast = FastBoard.of(board, piece.getTeamColor());
+
+        if (piece.getPieceType() == ChessPiece.PieceType.KING && Math.abs(end.getColumn() - start.getColumn()) == 2) {
+            out.append(end.getColumn() > start.getColumn() ? "O-O" : "O-O-O");
+        } else if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
+            if (start.getColumn() != end.getColumn()) {
+                out.append((char) ('a' + start.getColumn() - 1)).append('x');
+            }
+            Uci.appendSquare(out, end);
+            if (move.getPromotionPiece() != null) {
+                out.append('=').append(Fen.typeChar(move.getPromotionPiece()));
+            }
+        } else {
+            out.append(Fen.typeChar(piece.getPieceType()));
+            appendDisambiguation(out, fast, start, end);
+            if (board.getPiece(end) != null) {
+                out.append('x');
+            }
+            Uci.appendSquare(out, end);
+        }
+
+        int packed = FastBoard.pack(move);
+        fast.make(packed);
+        if (fast.inCheck(fast.sideToMove())) {
+            out.append(hasLegalMove(fast) ? '+' : '#');
+        }
+        fast.unmake(packed);
+        return out;
+    }
+
+    private static boolean hasLegalMove(FastBoard board) {
+        int[] moves = new int[27];
+        for (long own = board.colorBits(board.sideToMove()); own != 0; own &= own - 1) {
+            int count = board.generateFrom(Long.numberOfTrailingZeros(own), moves, 0);
+            for (int i = 0; i < count; i++) {
+                if (board.isLegalPseudoMove(moves[i])) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void appendDisambiguation(StringBuilder out, FastBoard board, ChessPosition start,
+                                             ChessPosition end) {
+        int from = FastBoard.square(start);
+        int to = FastBoard.square(end);
+        int code = board.pieceAt(from);
+        long others = board.colorBits(code >>> 3) & board.kindBits(code & 7) & ~(1L << from);
+        boolean ambiguous = false;
+        boolean sameFile = false;
+        boolean sameRank = false;
+        for (; others != 0; others &= others - 1) {
+            int other = Long.numberOfTrailingZeros(others);
+            int move = FastBoard.move(other, to, 0);
+            if (board.isPseudoLegal(move) && board.isLegalPseudoMove(move)) {
+                ambiguous = true;
+                sameFile |= FastBoard.column(other) == start.getColumn();
+                sameRank |= FastBoard.row(other) == start.getRow();
+            }
+        }
+        if (!ambiguous) {
+            return;
+        }
+        if (!sameFile) {
+            out.append((char) ('a' + start.getColumn() - 1));
+        } else if (!sameRank) {
+            out.append((char) ('0' + start.getRow()));
+        } else {
+            Uci.appendSquare(out, start);
+        }
+    }
+
+    /**
+     * Resolves a SAN move against the legal moves of the team to move
+     *
+     * @param game the game the move is played in
+     * @param san  the move text; check, mate and annotation suffixes are ignored
+     * @return the matching legal move
+     * @throws InvalidMoveException if the text is malformed, matches no legal
+     *                              move or matches more than one
+     */
+    public static ChessMove parse(ChessGame game, String san) throws InvalidMoveException {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        String text = san.substring(0, end);
+        ChessGame.TeamColor team = game.getTeamTurn();
+        int homeRow = team == ChessGame.TeamColor.WHITE ? 1 : 8;
+
+        if (text.equals("O-O") || text.equals("0-0")) {
+            return resolve(game, san, ChessPiece.PieceType.KING, 5, homeRow, homeRow, 7, null);
+        }
+        if (text.equals("O-O-O") || text.equals("0-0-0")) {
+            return resolve(game, san, ChessPiece.PieceType.KING, 5, homeRow, homeRow, 3, null);
+        }
+
+        ChessPiece.PieceType promotion = null;
+        int promotionAt = text.indexOf('=');
+        if (promotionAt >= 0) {
+            if (promotionAt != text.length() - 2) {
+                throw new InvalidMoveException("malformed promotion in " + san);
+            }
+            promotion = promotionType(text.charAt(promotionAt + 1), san);
+            text = text.substring(0, promotionAt);
+        } else if (text.length() >= 3 && Character.isUpperCase(text.charAt(text.length() - 1))
+                && Character.isDigit(text.charAt(text.length() - 2))) {
+            promotion = promotionType(text.charAt(text.length() - 1), san);
+            text = text.substring(0, text.length() - 1);
+        }
+        if (text.length() < 2) {
+            throw new InvalidMoveException("malformed move " + san);
+        }
+
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        int from = 0;
+        char first = text.charAt(0);
+        if (first >= 'A' && first <= 'Z') {
+            type = Fen.pieceType(first);
+            if (type == null || type == ChessPiece.PieceType.PAWN) {
+                throw new InvalidMoveException("bad piece letter in " + san);
+            }
+            from = 1;
+        }
+
+        int targetCol;
+        int targetRow;
+        try {
+            targetCol = Uci.parseFile(text, text.length() - 2);
+            targetRow = Uci.parseRank(text, text.length() - 1);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidMoveException("bad target square in " + san);
+        }
+
+        int fileHint = 0;
+        int rankHint = 0;
+        for (int i = from; i < text.length() - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fileHint = c - 'a' + 1;
+            } else if (c >= '1' && c <= '8') {
+                rankHint = c - '0';
+            } else if (c != 'x' && c != ':') {
+                throw new InvalidMoveException("malformed move " + san);
+            }
+        }
+        return resolve(game, san, type, fileHint, rankHint, targetRow, targetCol, promotion);
+    }
+
+    private static ChessMove resolve(ChessGame game, String san, ChessPiece.PieceType type, int fileHint, int rankHint,
+                                     int targetRow, int targetCol, ChessPiece.PieceType promotion)
+            throws InvalidMoveException {
+        ChessBoard board = game.getBoard();
+        FastBoard fast = FastBoard.of(game);
+        ChessPosition target = new ChessPosition(targetRow, targetCol);
+        ChessMove found = null;
+        for (int row = 1; row <= 8; row++) {
+            if (rankHint != 0 && row != rankHint) {
+                continue;
+            }
+            for (int col = 1; col <= 8; col++) {
+                if (fileHint != 0 && col != fileHint) {
+                    continue;
+                }
+                ChessPosition start = new ChessPosition(row, col);
+                ChessPiece piece = board.getPiece(start);
+                if (piece == null || piece.getTeamColor() != game.getTeamTurn() || piece.getPieceType() != type) {
+                    continue;
+                }
+                ChessMove candidate = new ChessMove(start, target, promotion);
+                int packed = FastBoard.pack(candidate);
+                if (fast.isPseudoLegal(packed) && fast.isLegalPseudoMove(packed)) {
+                    if (found != null) {
+                        throw new InvalidMoveException("ambiguous move " + san);
+                    }
+                    found = candidate;
+                }
+            }
+        }
+        if (found == null) {
+            throw new InvalidMoveException("no legal move matches " + san);
+        }
+        return found;
+    }
+
+    private static ChessPiece.PieceType promotionType(char c, String san) throws InvalidMoveException {
+        ChessPiece.PieceType type = Fen.pieceType(c);
+        if (type == null || type == ChessPiece.PieceType.KING || type == ChessPiece.PieceType.PAWN) {
+            throw new InvalidMoveException("bad promotion piece in " + san);
+        }
+        return type;
+    }
+}
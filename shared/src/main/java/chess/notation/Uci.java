@@ -0,0 +1,108 @@
+package chess.notation;
+
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+
+/**
+ * Converts squares and moves to and from UCI long algebraic notation
+ * ("e4" for a square, "e2e4" or "e7e8q" for a move)
+ */
+public final class Uci {
+
+    private Uci() {
+    }
+
+    /**
+     * @param position a square on the board
+     * @return the square in algebraic form, e.g. "e4"
+     */
+    public static String square(ChessPosition position) {
+        return appendSquare(new StringBuilder(2), position).toString();
+    }
+
+    /**
+     * Appends a square in algebraic form to the given builder
+     *
+     * @return the builder, for chaining
+     */
+    public static StringBuilder appendSquare(StringBuilder out, ChessPosition position) {
+        int row = position.getRow();
+        int col = position.getColumn();
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            throw new IllegalArgumentException("position is off the board: " + position);
+        }
+        return out.append((char) ('a' + col - 1)).append((char) ('0' + row));
+    }
+
+    /**
+     * Parses an algebraic square such as "e4"
+     *
+     * @throws IllegalArgumentException if the text is not a square
+     */
+    public static ChessPosition parseSquare(CharSequence text) {
+        if (text.length() != 2) {
+            throw new IllegalArgumentException("not a square: " + text);
+        }
+        return new ChessPosition(parseRank(text, 1), parseFile(text, 0));
+    }
+
+    /**
+     * @param move the move to encode
+     * @return the move in UCI form, e.g. "e2e4" or "e7e8q"
+     */
+    public static String move(ChessMove move) {
+        return appendMove(new StringBuilder(5), move).toString();
+    }
+
+    /**
+     * Appends a move in UCI form to the given builder
+     *
+     * @return the builder, for chaining
+     */
+    public static StringBuilder appendMove(StringBuilder out, ChessMove move) {
+        appendSquare(out, move.getStartPosition());
+        appendSquare(out, move.getEndPosition());
+        if (move.getPromotionPiece() != null) {
+            out.append(Character.toLowerCase(Fen.typeChar(move.getPromotionPiece())));
+        }
+        return out;
+    }
+
+    /**
+     * Parses a UCI move such as "g1f3" or "a7a8q"
+     *
+     * @throws IllegalArgumentException if the text is not a UCI move
+     */
+    public static ChessMove parseMove(CharSequence text) {
+        if (text.length() != 4 && text.length() != 5) {
+            throw new IllegalArgumentException("not a UCI move: " + text);
+        }
+        ChessPosition start = new ChessPosition(parseRank(text, 1), parseFile(text, 0));
+        ChessPosition end = new ChessPosition(parseRank(text, 3), parseFile(text, 2));
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            promotion = Fen.pieceType(text.charAt(4));
+            if (promotion == null || promotion == ChessPiece.PieceType.KING || promotion == ChessPiece.PieceType.PAWN) {
+                throw new IllegalArgumentException("bad promotion piece in UCI move: " + text);
+            }
+        }
+        return new ChessMove(start, end, promotion);
+    }
+
+    static int parseFile(CharSequence text, int index) {
+        char c = text.charAt(index);
+        if (c < 'a' || c > 'h') {
+            throw new IllegalArgumentException("bad file '" + c + "' in " + text);
+        }
+        return c - 'a' + 1;
+    }
+
+    static int parseRank(CharSequence text, int index) {
+        char c = text.charAt(index);
+        if (c < '1' || c > '8') {
+            throw new IllegalArgumentException("bad rank '" + c + "' in " + text);
+        }
+        return c - '0';
+    }
+}
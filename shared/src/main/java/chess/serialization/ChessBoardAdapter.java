@@ -0,0 +1,32 @@
+package chess.serialization;
+
+import chess.ChessBoard;
+import chess.notation.Fen;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link ChessBoard} as a FEN piece placement string instead of
+ * the 8x8 array of pieces and nulls
+ */
+public class ChessBoardAdapter extends TypeAdapter<ChessBoard> {
+
+    @Override
+    public void write(JsonWriter out, ChessBoard board) throws IOException {
+        out.value(Fen.placement(board));
+    }
+
+    @Override
+    public ChessBoard read(JsonReader in) throws IOException {
+        String text = in.nextString();
+        try {
+            return Fen.parsePlacement(text);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException(e.getMessage() + " at " + in.getPath(), e);
+        }
+    }
+}
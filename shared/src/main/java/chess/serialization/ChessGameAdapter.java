@@ -0,0 +1,125 @@
+package chess.serialization;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessPosition;
+import chess.notation.Fen;
+import chess.notation.Uci;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link ChessGame} as a small object holding the board placement
+ * and the team to move, e.g.
+ * <pre>{"board":"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR","turn":"BLACK"}</pre>
+ * Castling rights are added as a FEN castling field, e.g. {@code "castling":"Kq"},
+ * only when some right the kings and rooks on their home squares would allow
+ * has been lost, an en passant square as {@code "enPassant":"e3"} only
+ * when there is one, and {@code "halfmoveClock"} only when it isn't 0.
+ * Unknown fields are skipped when reading so older clients can read newer
+ * games.
+ */
+public class ChessGameAdapter extends TypeAdapter<ChessGame> {
+
+    private final ChessBoardAdapter boardAdapter = new ChessBoardAdapter();
+
+    @Override
+    public void write(JsonWriter out, ChessGame game) throws IOException {
+        out.beginObject();
+        out.name("board");
+        if (game.getBoard() == null) {
+            out.nullValue();
+        } else {
+            boardAdapter.write(out, game.getBoard());
+        }
+        out.name("turn").value(game.getTeamTurn() == null ? null : game.getTeamTurn().name());
+        if (game.getBoard() != null) {
+            writeRights(out, game.getBoard());
+        }
+        if (game.getHalfmoveClock() != 0) {
+            out.name("halfmoveClock").value(game.getHalfmoveClock());
+        }
+        out.endObject();
+    }
+
+    /**
+     * Writes the optional castling and en passant fields of a board
+     */
+    public static void writeRights(JsonWriter out, ChessBoard board) throws IOException {
+        int rights = board.getCastlingRights();
+        if (rights != board.castlingAvailable()) {
+            out.name("castling").value(Fen.castling(rights));
+        }
+        ChessPosition passed = board.getEnPassant();
+        if (passed != null) {
+            out.name("enPassant").value(Uci.square(passed));
+        }
+    }
+
+    @Override
+    public ChessGame read(JsonReader in) throws IOException {
+        ChessGame game = new ChessGame();
+        int rights = ChessBoard.ALL_CASTLING;
+        ChessPosition passed = null;
+        int halfmoveClock = 0;
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                if (name.equals("board")) {
+                    game.setBoard(null);
+                } else if (name.equals("turn")) {
+                    game.setTeamTurn(null);
+                }
+                continue;
+            }
+            switch (name) {
+                case "board" -> {
+                    ChessBoard board = boardAdapter.read(in);
+                    game.setBoard(board);
+                }
+                case "turn" -> game.setTeamTurn(readTeam(in));
+                case "castling" -> {
+                    String text = in.nextString();
+                    try {
+                        rights = Fen.parseCastling(text);
+                    } catch (IllegalArgumentException e) {
+                        throw new JsonSyntaxException(e.getMessage() + " at " + in.getPath(), e);
+                    }
+                }
+                case "enPassant" -> {
+                    String text = in.nextString();
+                    try {
+                        passed = Uci.parseSquare(text);
+                    } catch (IllegalArgumentException e) {
+                        throw new JsonSyntaxException(e.getMessage() + " at " + in.getPath(), e);
+                    }
+                }
+                case "halfmoveClock" -> halfmoveClock = in.nextInt();
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        game.setHalfmoveClock(halfmoveClock);
+        if (game.getBoard() != null) {
+            game.getBoard().setCastlingRights(rights);
+            game.getBoard().setEnPassant(passed);
+        }
+        return game;
+    }
+
+    private static ChessGame.TeamColor readTeam(JsonReader in) throws IOException {
+        String text = in.nextString();
+        try {
+            return ChessGame.TeamColor.valueOf(text);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException("not a team: " + text + " at " + in.getPath(), e);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package chess.serialization;
+
+import chess.*;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * Holds the one {@link Gson} instance used to serialize chess objects.
+ * <p>
+ * Games, boards, pieces, moves and positions are written with hand-written
+ * streaming adapters using compact notation (FEN placement, algebraic squares,
+ * UCI moves) rather than reflection. Gson instances are thread safe, so share
+ * {@link #gson()} instead of building a new one per request.
+ */
+public final class ChessGson {
+
+    private static final Gson GSON = builder().create();
+
+    private ChessGson() {
+    }
+
+    /**
+     * @return the shared Gson instance with all chess adapters registered
+     */
+    public static Gson gson() {
+        return GSON;
+    }
+
+    /**
+     * @return a new builder with all chess adapters registered, for callers
+     * that need to register adapters of their own
+     */
+    public static GsonBuilder builder() {
+        return new GsonBuilder()
+                .registerTypeAdapter(ChessGame.class, new ChessGameAdapter().nullSafe())
+                .registerTypeAdapter(ChessBoard.class, new ChessBoardAdapter().nullSafe())
+                .registerTypeAdapter(ChessPiece.class, new ChessPieceAdapter().nullSafe())
+                .registerTypeAdapter(ChessMove.class, new ChessMoveAdapter().nullSafe())
+                .registerTypeAdapter(ChessPosition.class, new ChessPositionAdapter().nullSafe());
+    }
+}
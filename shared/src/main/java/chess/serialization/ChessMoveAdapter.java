@@ -0,0 +1,31 @@
+package chess.serialization;
+
+import chess.ChessMove;
+import chess.notation.Uci;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link ChessMove} as a UCI move string, e.g. "e2e4" or "e7e8q"
+ */
+public class ChessMoveAdapter extends TypeAdapter<ChessMove> {
+
+    @Override
+    public void write(JsonWriter out, ChessMove move) throws IOException {
+        out.value(Uci.move(move));
+    }
+
+    @Override
+    public ChessMove read(JsonReader in) throws IOException {
+        String text = in.nextString();
+        try {
+            return Uci.parseMove(text);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException(e.getMessage() + " at " + in.getPath(), e);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package chess.serialization;
+
+import chess.ChessPiece;
+import chess.notation.Fen;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link ChessPiece} as its FEN letter, upper case for white
+ */
+public class ChessPieceAdapter extends TypeAdapter<ChessPiece> {
+
+    @Override
+    public void write(JsonWriter out, ChessPiece piece) throws IOException {
+        out.value(String.valueOf(Fen.pieceChar(piece)));
+    }
+
+    @Override
+    public ChessPiece read(JsonReader in) throws IOException {
+        String text = in.nextString();
+        ChessPiece piece = text.length() == 1 ? Fen.piece(text.charAt(0)) : null;
+        if (piece == null) {
+            throw new JsonSyntaxException("not a piece: " + text + " at " + in.getPath());
+        }
+        return piece;
+    }
+}
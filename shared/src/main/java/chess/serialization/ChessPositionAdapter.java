@@ -0,0 +1,31 @@
+package chess.serialization;
+
+import chess.ChessPosition;
+import chess.notation.Uci;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Writes a {@link ChessPosition} as its algebraic square, e.g. "e4"
+ */
+public class ChessPositionAdapter extends TypeAdapter<ChessPosition> {
+
+    @Override
+    public void write(JsonWriter out, ChessPosition position) throws IOException {
+        out.value(Uci.square(position));
+    }
+
+    @Override
+    public ChessPosition read(JsonReader in) throws IOException {
+        String text = in.nextString();
+        try {
+            return Uci.parseSquare(text);
+        } catch (IllegalArgumentException e) {
+            throw new JsonSyntaxException(e.getMessage() + " at " + in.getPath(), e);
+        }
+    }
+}
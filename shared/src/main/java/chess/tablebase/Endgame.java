@@ -0,0 +1,44 @@
+package chess.tablebase;
+
+import chess.FastBoard;
+
+/**
+ * The material sets covered by the tablebases: two kings plus one extra piece
+ * for either side
+ */
+public enum Endgame {
+    KQK(FastBoard.QUEEN),
+    KRK(FastBoard.ROOK),
+    KBK(FastBoard.BISHOP),
+    KNK(FastBoard.KNIGHT),
+    KPK(FastBoard.PAWN);
+
+    private final int kind;
+
+    Endgame(int kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * @return the {@link FastBoard} kind of the extra piece
+     */
+    public int kind() {
+        return kind;
+    }
+
+    /**
+     * @return the endgame whose extra piece is of the given kind, or null for a king
+     */
+    public static Endgame of(int kind) {
+        for (Endgame endgame : values()) {
+            if (endgame.kind == kind) {
+                return endgame;
+            }
+        }
+        return null;
+    }
+
+    String fileName() {
+        return name() + ".tb";
+    }
+}
@@ -0,0 +1,100 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One endgame's table, with the strong side always white.
+ * <p>
+ * Positions are indexed by {@code relativeSide << 18 | strongKing << 12 | weakKing << 6 | piece},
+ * where {@code relativeSide} is 0 when the strong side is to move. The file
+ * holds a 16 byte header (magic, version, piece kind, entry count), then the
+ * results packed four to a byte, then one distance byte per position.
+ */
+final class Tablebase {
+
+    static final int SIZE = 2 * 64 * 64 * 64;
+
+    static final int ILLEGAL = 0;
+    static final int WIN = 1;
+    static final int DRAW = 2;
+    static final int LOSS = 3;
+
+    private static final int MAGIC = 0x43485442;
+    private static final int VERSION = 1;
+    private static final int HEADER = 16;
+    private static final int DISTANCES = HEADER + SIZE / 4;
+    private static final int FILE_SIZE = DISTANCES + SIZE;
+
+    private final Endgame endgame;
+    private final ByteBuffer data;
+
+    private Tablebase(Endgame endgame, ByteBuffer data) {
+        this.endgame = endgame;
+        this.data = data;
+    }
+
+    static int index(int relativeSide, int strongKing, int weakKing, int piece) {
+        return relativeSide << 18 | strongKing << 12 | weakKing << 6 | piece;
+    }
+
+    /**
+     * Packs generated results into a table held in memory
+     *
+     * @param results   one of {@link #ILLEGAL}, {@link #WIN}, {@link #DRAW} or {@link #LOSS} per position
+     * @param distances plies to mate, or for draws 0 when stalemated and 1 otherwise
+     */
+    static Tablebase of(Endgame endgame, byte[] results, byte[] distances) {
+        ByteBuffer data = ByteBuffer.allocate(FILE_SIZE);
+        data.putInt(MAGIC).putInt(VERSION).putInt(endgame.kind()).putInt(SIZE);
+        for (int i = 0; i < SIZE; i += 4) {
+            data.put(HEADER + i / 4, (byte) (results[i] | results[i + 1] << 2 | results[i + 2] << 4 | results[i + 3] << 6));
+        }
+        data.put(DISTANCES, distances);
+        return new Tablebase(endgame, data);
+    }
+
+    /**
+     * Maps a table file written by {@link #write}
+     */
+    static Tablebase open(Endgame endgame, Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != FILE_SIZE) {
+                throw new IOException("wrong size for a tablebase: " + file);
+            }
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, FILE_SIZE);
+            if (data.getInt(0) != MAGIC || data.getInt(4) != VERSION || data.getInt(8) != endgame.kind()) {
+                throw new IOException("not a " + endgame + " tablebase: " + file);
+            }
+            return new Tablebase(endgame, data);
+        }
+    }
+
+    void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer source = data.duplicate().clear();
+            while (source.hasRemaining()) {
+                channel.write(source);
+            }
+        }
+    }
+
+    Endgame endgame() {
+        return endgame;
+    }
+
+    /**
+     * @return {@link #ILLEGAL}, {@link #WIN}, {@link #DRAW} or {@link #LOSS}
+     */
+    int result(int index) {
+        return (data.get(HEADER + (index >>> 2)) >>> ((index & 3) * 2)) & 3;
+    }
+
+    int distance(int index) {
+        return data.get(DISTANCES + index) & 0xFF;
+    }
+}
@@ -0,0 +1,180 @@
+package chess.tablebase;
+
+import chess.FastBoard;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Solves the endgames by retrograde analysis.
+ * <p>
+ * Mates and stalemates are marked first. Then in round {@code k} a position
+ * becomes a win in {@code k} plies if some move reaches a loss in {@code k - 1},
+ * and a loss if every move reaches a known win, so distances are exact. Rounds
+ * run until nothing changes and whatever is left is a draw. Moves that capture
+ * the extra piece reach a bare-king draw, and pawn promotions are looked up in
+ * the table of the promoted piece, which is solved first. Each position's
+ * moves are generated once up front and kept as child indexes, so the rounds
+ * only read arrays.
+ */
+final class TablebaseGenerator {
+
+    private static final byte UNKNOWN = 4;
+
+    private final Map<Endgame, Tablebase> solved = new EnumMap<>(Endgame.class);
+
+    Tablebase generate(Endgame endgame) {
+        Tablebase table = solved.get(endgame);
+        if (table != null) {
+            return table;
+        }
+        if (endgame == Endgame.KPK) {
+            for (Endgame promoted : Endgame.values()) {
+                if (promoted != Endgame.KPK) {
+                    generate(promoted);
+                }
+            }
+        }
+
+        byte[] results = new byte[Tablebase.SIZE];
+        byte[] distances = new byte[Tablebase.SIZE];
+        int[] firstChild = new int[Tablebase.SIZE + 1];
+        int[] children = new int[1 << 20];
+        int childCount = 0;
+        FastBoard board = new FastBoard();
+        int[] moves = new int[256];
+
+        for (int index = 0; index < Tablebase.SIZE; index++) {
+            firstChild[index] = childCount;
+            if (!setUp(board, endgame, index)) {
+                results[index] = Tablebase.ILLEGAL;
+                continue;
+            }
+            int count = board.generateLegal(moves);
+            if (count == 0) {
+                results[index] = board.inCheck(board.sideToMove()) ? (byte) Tablebase.LOSS : (byte) Tablebase.DRAW;
+            } else {
+                results[index] = UNKNOWN;
+                if (childCount + count > children.length) {
+                    children = Arrays.copyOf(children, children.length * 2);
+                }
+                for (int i = 0; i < count; i++) {
+                    board.make(moves[i]);
+                    children[childCount++] = childIndex(board);
+                    board.unmake(moves[i]);
+                }
+            }
+            clear(board, index);
+        }
+        firstChild[Tablebase.SIZE] = childCount;
+
+        int longest = 0;
+        boolean changed = true;
+        for (int round = 1; changed || round <= longest + 1; round++) {
+            changed = false;
+            for (int index = 0; index < Tablebase.SIZE; index++) {
+                if (results[index] != UNKNOWN) {
+                    continue;
+                }
+                int fastestLoss = Integer.MAX_VALUE;
+                int slowestWin = -1;
+                boolean allWins = true;
+                for (int i = firstChild[index]; i < firstChild[index + 1]; i++) {
+                    int child = children[i];
+                    int childResult = Tablebase.DRAW;
+                    int childDistance = 0;
+                    if (child >= 0) {
+                        Endgame childEndgame = Endgame.values()[child >>> 24];
+                        int at = child & 0xFFFFFF;
+                        if (childEndgame == endgame) {
+                            childResult = results[at];
+                            childDistance = distances[at] & 0xFF;
+                        } else {
+                            Tablebase childTable = solved.get(childEndgame);
+                            childResult = childTable.result(at);
+                            childDistance = childTable.distance(at);
+                        }
+                    }
+                    if (childResult == Tablebase.LOSS) {
+                        fastestLoss = Math.min(fastestLoss, childDistance);
+                        allWins = false;
+                    } else if (childResult == Tablebase.WIN) {
+                        slowestWin = Math.max(slowestWin, childDistance);
+                    } else {
+                        allWins = false;
+                    }
+                }
+                if (fastestLoss < round) {
+                    results[index] = Tablebase.WIN;
+                    distances[index] = (byte) (fastestLoss + 1);
+                } else if (allWins) {
+                    results[index] = Tablebase.LOSS;
+                    distances[index] = (byte) (slowestWin + 1);
+                } else {
+                    continue;
+                }
+                longest = Math.max(longest, distances[index] & 0xFF);
+                changed = true;
+            }
+        }
+
+        for (int index = 0; index < Tablebase.SIZE; index++) {
+            if (results[index] == UNKNOWN) {
+                results[index] = Tablebase.DRAW;
+                distances[index] = 1;
+            }
+        }
+        table = Tablebase.of(endgame, results, distances);
+        solved.put(endgame, table);
+        return table;
+    }
+
+    /**
+     * Puts the position for an index on an empty board with white as the strong side
+     *
+     * @return false, leaving the board empty, if the position can't occur in a game
+     */
+    private static boolean setUp(FastBoard board, Endgame endgame, int index) {
+        int side = index >>> 18;
+        int strongKing = (index >>> 12) & 63;
+        int weakKing = (index >>> 6) & 63;
+        int piece = index & 63;
+        if (strongKing == weakKing || strongKing == piece || weakKing == piece) {
+            return false;
+        }
+        if (endgame == Endgame.KPK && (FastBoard.row(piece) == 1 || FastBoard.row(piece) == 8)) {
+            return false;
+        }
+        board.put(strongKing, FastBoard.WHITE << 3 | FastBoard.KING);
+        board.put(weakKing, FastBoard.BLACK << 3 | FastBoard.KING);
+        board.put(piece, FastBoard.WHITE << 3 | endgame.kind());
+        board.setSideToMove(side);
+        if (board.inCheck(side ^ 1)) {
+            clear(board, index);
+            return false;
+        }
+        return true;
+    }
+
+    private static void clear(FastBoard board, int index) {
+        board.remove((index >>> 12) & 63);
+        board.remove((index >>> 6) & 63);
+        board.remove(index & 63);
+    }
+
+    /**
+     * @return the endgame's ordinal shifted left by 24 bits plus the position's
+     * index, or -1 if the extra piece was captured
+     */
+    private static int childIndex(FastBoard board) {
+        long extra = board.colorBits(FastBoard.WHITE) & ~board.kindBits(FastBoard.KING);
+        if (extra == 0) {
+            return -1;
+        }
+        int piece = Long.numberOfTrailingZeros(extra);
+        Endgame endgame = Endgame.of(board.pieceAt(piece) & 7);
+        return endgame.ordinal() << 24 | Tablebase.index(board.sideToMove(),
+                board.kingSquare(FastBoard.WHITE), board.kingSquare(FastBoard.BLACK), piece);
+    }
+}
@@ -0,0 +1,19 @@
+package chess.tablebase;
+
+/**
+ * The exact value of a position found in a tablebase
+ *
+ * @param wdl          the result with best play, for the side to move
+ * @param pliesToMate  half-moves until mate with best play, or 0 for a draw
+ * @param noLegalMoves whether the side to move has no legal moves at all
+ */
+public record TablebaseResult(Wdl wdl, int pliesToMate, boolean noLegalMoves) {
+
+    public boolean isCheckmate() {
+        return noLegalMoves && wdl == Wdl.LOSS;
+    }
+
+    public boolean isStalemate() {
+        return noLegalMoves && wdl == Wdl.DRAW;
+    }
+}
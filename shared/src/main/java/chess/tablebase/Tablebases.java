@@ -0,0 +1,97 @@
+package chess.tablebase;
+
+import chess.ChessGame;
+import chess.FastBoard;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Exact results for positions with two kings and one other piece, read from
+ * memory-mapped table files.
+ * <p>
+ * The tables are built once with {@link #generate(Path)}; {@link #open(Path)}
+ * then maps whichever of them are in the directory. A table only stores
+ * positions where white has the extra piece, so positions where black has it
+ * are looked up with the board flipped.
+ */
+public final class Tablebases {
+
+    private final Map<Endgame, Tablebase> tables;
+
+    private Tablebases(Map<Endgame, Tablebase> tables) {
+        this.tables = tables;
+    }
+
+    /**
+     * Solves every {@link Endgame} and writes one table file per endgame into a directory
+     */
+    public static void generate(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        TablebaseGenerator generator = new TablebaseGenerator();
+        for (Endgame endgame : Endgame.values()) {
+            generator.generate(endgame).write(dir.resolve(endgame.fileName()));
+        }
+    }
+
+    /**
+     * Maps the table files found in a directory
+     */
+    public static Tablebases open(Path dir) throws IOException {
+        Map<Endgame, Tablebase> tables = new EnumMap<>(Endgame.class);
+        for (Endgame endgame : Endgame.values()) {
+            Path file = dir.resolve(endgame.fileName());
+            if (Files.exists(file)) {
+                tables.put(endgame, Tablebase.open(endgame, file));
+            }
+        }
+        return new Tablebases(tables);
+    }
+
+    /**
+     * @return true if the table for an endgame was found
+     */
+    public boolean covers(Endgame endgame) {
+        return tables.containsKey(endgame);
+    }
+
+    /**
+     * @return the result for the side to move, or null if the position isn't
+     * covered by a loaded table or can't occur in a game
+     */
+    public TablebaseResult probe(FastBoard board) {
+        long occupied = board.colorBits(FastBoard.WHITE) | board.colorBits(FastBoard.BLACK);
+        long kings = board.kindBits(FastBoard.KING);
+        if (Long.bitCount(occupied) != 3 || (kings & board.colorBits(FastBoard.WHITE)) == 0
+                || (kings & board.colorBits(FastBoard.BLACK)) == 0) {
+            return null;
+        }
+        int piece = Long.numberOfTrailingZeros(occupied & ~kings);
+        int code = board.pieceAt(piece);
+        Tablebase table = tables.get(Endgame.of(code & 7));
+        if (table == null) {
+            return null;
+        }
+        int strong = code >>> 3;
+        int flip = strong == FastBoard.WHITE ? 0 : 56;
+        int index = Tablebase.index(board.sideToMove() ^ strong, board.kingSquare(strong) ^ flip,
+                board.kingSquare(strong ^ 1) ^ flip, piece ^ flip);
+        int distance = table.distance(index);
+        return switch (table.result(index)) {
+            case Tablebase.WIN -> new TablebaseResult(Wdl.WIN, distance, false);
+            case Tablebase.LOSS -> new TablebaseResult(Wdl.LOSS, distance, distance == 0);
+            case Tablebase.DRAW -> new TablebaseResult(Wdl.DRAW, 0, distance == 0);
+            default -> null;
+        };
+    }
+
+    /**
+     * @return the result for the team whose turn it is, or null if the position isn't covered
+     */
+    public TablebaseResult probe(ChessGame game) {
+        return probe(FastBoard.of(game));
+    }
+}
@@ -0,0 +1,10 @@
+package chess.tablebase;
+
+/**
+ * A game-theoretic result from the point of view of the side to move
+ */
+public enum Wdl {
+    WIN,
+    DRAW,
+    LOSS
+}
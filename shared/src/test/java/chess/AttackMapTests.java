@@ -0,0 +1,83 @@
+package chess;
+
+import chess.notation.Fen;
+import chess.notation.Uci;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static passoffTests.TestFactory.*;
+
+public class AttackMapTests {
+
+    @Test
+    @DisplayName("Attacked Squares Match Every Piece's Captures")
+    public void matchesPieceMoves() {
+        var game = Fen.parseGame("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        ChessBoard board = game.getBoard();
+        AttackMap map = game.getAttackMap();
+        for (int sq = 0; sq < 64; sq++) {
+            ChessPosition target = FastBoard.position(sq);
+            for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+                int attackers = 0;
+                for (ChessBoard.PlacedPiece placed : board.pieces(team)) {
+                    if (attacks(board, placed, target)) {
+                        attackers++;
+                    }
+                }
+                Assertions.assertEquals(attackers, map.attackerCount(target, team), team + " on " + target);
+                Assertions.assertEquals(attackers > 0, map.isAttacked(target, team));
+            }
+        }
+        List<ChessPosition> threatened = new ArrayList<>();
+        for (ChessBoard.PlacedPiece placed : board.pieces(ChessGame.TeamColor.BLACK)) {
+            if (map.isAttacked(placed.position(), ChessGame.TeamColor.WHITE)) {
+                threatened.add(placed.position());
+            }
+        }
+        Assertions.assertEquals(threatened, map.threatenedPieces(ChessGame.TeamColor.BLACK));
+        Assertions.assertTrue(threatened.contains(getNewPosition(6, 5)), "the knight on e5 attacks e6");
+    }
+
+    @Test
+    @DisplayName("The Map Is Kept Until The Board Changes")
+    public void cached() throws InvalidMoveException {
+        var game = Fen.parseGame("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+        AttackMap map = game.getAttackMap();
+        Assertions.assertSame(map, game.getAttackMap());
+        Assertions.assertFalse(game.isInCheck(ChessGame.TeamColor.BLACK));
+
+        game.makeMove(Uci.parseMove("a1a8"));
+        Assertions.assertNotSame(map, game.getAttackMap());
+        Assertions.assertTrue(game.isInCheck(ChessGame.TeamColor.BLACK));
+        Assertions.assertTrue(game.getAttackMap().isAttacked(getNewPosition(8, 4), ChessGame.TeamColor.WHITE));
+
+        map = game.getAttackMap();
+        game.getBoard().addPiece(getNewPosition(8, 4), getNewPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT));
+        Assertions.assertNotSame(map, game.getAttackMap());
+        Assertions.assertFalse(game.isInCheck(ChessGame.TeamColor.BLACK), "the knight blocks the rook");
+    }
+
+    /**
+     * Whether a piece could capture on a square, found by putting an enemy
+     * piece there and asking the piece for its moves
+     */
+    private static boolean attacks(ChessBoard board, ChessBoard.PlacedPiece placed, ChessPosition target) {
+        if (placed.position().equals(target)) {
+            return false;
+        }
+        ChessBoard copy = new ChessBoard(board);
+        ChessGame.TeamColor enemy = placed.piece().getTeamColor() == ChessGame.TeamColor.WHITE
+                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        copy.addPiece(target, getNewPiece(enemy, ChessPiece.PieceType.KNIGHT));
+        for (ChessMove move : placed.piece().pieceMoves(copy, placed.position())) {
+            if (move.getEndPosition().equals(target)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
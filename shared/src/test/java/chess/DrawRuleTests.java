@@ -0,0 +1,120 @@
+package chess;
+
+import chess.notation.Fen;
+import chess.notation.Uci;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class DrawRuleTests {
+
+    private static final String[] SHUFFLE = {"g1f3", "g8f6", "f3g1", "f6g8"};
+
+    @Test
+    @DisplayName("Threefold Repetition")
+    public void threefold() throws InvalidMoveException {
+        var game = Fen.parseGame("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        for (int i = 0; i < 7; i++) {
+            game.makeMove(Uci.parseMove(SHUFFLE[i % 4]));
+            Assertions.assertFalse(game.isDrawByRepetition(), "after " + (i + 1) + " moves");
+        }
+        Assertions.assertEquals(2, game.repetitions(), "g8 knight back once with white to move");
+        game.makeMove(Uci.parseMove(SHUFFLE[3]));
+        Assertions.assertEquals(3, game.repetitions());
+        Assertions.assertTrue(game.isDrawByRepetition());
+
+        game.makeMove(Uci.parseMove("e2e4"));
+        Assertions.assertEquals(1, game.repetitions(), "a pawn move starts a new history");
+        Assertions.assertEquals(0, game.getHalfmoveClock());
+    }
+
+    @Test
+    @DisplayName("Fivefold Repetition")
+    public void fivefold() throws InvalidMoveException {
+        var game = Fen.parseGame("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        for (int i = 0; i < 15; i++) {
+            game.makeMove(Uci.parseMove(SHUFFLE[i % 4]));
+            Assertions.assertFalse(game.isDrawByFivefoldRepetition(), "after " + (i + 1) + " moves");
+        }
+        game.makeMove(Uci.parseMove(SHUFFLE[3]));
+        Assertions.assertEquals(5, game.repetitions());
+        Assertions.assertTrue(game.isDrawByFivefoldRepetition());
+    }
+
+    @Test
+    @DisplayName("Lost Castling Rights Make A Different Position")
+    public void castlingRightsCount() throws InvalidMoveException {
+        var game = Fen.parseGame("r3k2r/8/8/8/8/8/8/R3K2R w KQkq - 0 1");
+        for (String move : new String[]{"e1f1", "e8f8", "f1e1", "f8e8", "e1f1", "e8f8", "f1e1", "f8e8"}) {
+            game.makeMove(Uci.parseMove(move));
+        }
+        Assertions.assertEquals(2, game.repetitions(), "the start, with its rights, never comes back");
+    }
+
+    @Test
+    @DisplayName("Fifty Move Rule")
+    public void fiftyMoves() throws InvalidMoveException {
+        var game = Fen.parseGame("8/8/4k3/8/8/4K3/8/R7 w - - 98 1");
+        game.makeMove(Uci.parseMove("a1a2"));
+        Assertions.assertFalse(game.isDrawByFiftyMoveRule());
+        game.makeMove(Uci.parseMove("e6e5"));
+        Assertions.assertTrue(game.isDrawByFiftyMoveRule());
+        Assertions.assertEquals("8/8/8/4k3/8/4K3/R7/8 w - - 100 1", Fen.toFen(game));
+    }
+
+    @Test
+    @DisplayName("Seventy-Five Move Rule")
+    public void seventyFiveMoves() throws InvalidMoveException {
+        var game = Fen.parseGame("8/8/4k3/8/8/4K3/8/R7 w - - 148 1");
+        Assertions.assertTrue(game.isDrawByFiftyMoveRule());
+        game.makeMove(Uci.parseMove("a1a2"));
+        Assertions.assertFalse(game.isDrawBySeventyFiveMoveRule());
+        game.makeMove(Uci.parseMove("e6e5"));
+        Assertions.assertTrue(game.isDrawBySeventyFiveMoveRule());
+    }
+
+    @Test
+    @DisplayName("Fast Board Keeps The Same History")
+    public void fastBoardHistory() {
+        FastBoard board = FastBoard.startingPosition();
+        for (int i = 0; i < 8; i++) {
+            board.make(FastBoard.pack(Uci.parseMove(SHUFFLE[i % 4])));
+        }
+        Assertions.assertEquals(3, board.repetitions());
+        Assertions.assertEquals(8, board.halfmoveClock());
+
+        ChessGame game = board.toChessGame();
+        Assertions.assertEquals(3, game.repetitions());
+        Assertions.assertTrue(game.isDrawByRepetition());
+
+        board.unmake(FastBoard.pack(Uci.parseMove(SHUFFLE[3])));
+        Assertions.assertEquals(2, board.repetitions());
+        Assertions.assertEquals(7, board.halfmoveClock());
+        board.make(FastBoard.pack(Uci.parseMove("e7e5")));
+        Assertions.assertEquals(1, board.repetitions());
+        Assertions.assertEquals(0, board.halfmoveClock());
+    }
+
+    @Test
+    @DisplayName("Earlier Positions Carry Over To A Copy")
+    public void earlierPositions() throws InvalidMoveException {
+        var game = Fen.parseGame("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+        for (int i = 0; i < 4; i++) {
+            game.makeMove(Uci.parseMove(SHUFFLE[i]));
+        }
+        long[] earlier = game.getEarlierPositions();
+        Assertions.assertEquals(4, earlier.length);
+
+        ChessGame copy = Fen.parseGame(Fen.toFen(game));
+        Assertions.assertEquals(1, copy.repetitions());
+        copy.setEarlierPositions(earlier);
+        Assertions.assertEquals(2, copy.repetitions());
+
+        FastBoard board = FastBoard.of(copy);
+        board.setEarlierPositions(earlier);
+        board.make(FastBoard.pack(Uci.parseMove(SHUFFLE[0])));
+        Assertions.assertEquals(2, board.repetitions(), "the knight is back on f3 for the second time");
+        Assertions.assertEquals(5, board.earlierPositions().length);
+        Assertions.assertEquals(2, board.toChessGame().repetitions());
+    }
+}
@@ -0,0 +1,122 @@
+package chess;
+
+import chess.notation.Fen;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static passoffTests.TestFactory.*;
+
+public class LegalMoveIteratorTests {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Iterating A Team Gives The Same Moves As Every Piece's Valid Moves")
+    public void matchesValidMoves() {
+        for (String fen : new String[]{KIWIPETE, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b KQkq - 0 1"}) {
+            var game = Fen.parseGame(fen);
+            Set<ChessMove> expected = new HashSet<>();
+            for (int row = 1; row <= 8; row++) {
+                for (int col = 1; col <= 8; col++) {
+                    ChessPiece piece = game.getBoard().getPiece(row, col);
+                    if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                        expected.addAll(game.validMoves(getNewPosition(row, col)));
+                    }
+                }
+            }
+            Set<ChessMove> iterated = new HashSet<>();
+            game.legalMoves(game.getTeamTurn()).forEachRemaining(iterated::add);
+            Assertions.assertEquals(expected, iterated, fen);
+            Assertions.assertEquals(expected, game.legalMoveStream(game.getTeamTurn()).collect(Collectors.toSet()));
+        }
+    }
+
+    @Test
+    @DisplayName("Moves Are Generated Only As They Are Asked For")
+    public void lazy() throws InvalidMoveException {
+        var game = Fen.parseGame(KIWIPETE);
+        String before = Fen.toFen(game);
+        Iterator<ChessMove> moves = game.legalMoves(game.getTeamTurn());
+        ChessMove first = moves.next();
+        Assertions.assertEquals(before, Fen.toFen(game), "checking moves must not touch the game's board");
+        Assertions.assertEquals(first, game.legalMoveStream(game.getTeamTurn()).findFirst().orElseThrow());
+
+        game.makeMove(first);
+        Assertions.assertNotEquals(before, Fen.toFen(game));
+        Assertions.assertFalse(game.legalMoves(getNewPosition(4, 4)).hasNext(), "empty square");
+        Assertions.assertNull(game.validMoves(getNewPosition(4, 4)));
+    }
+
+    @Test
+    @DisplayName("Pinned Pieces Only Yield Moves Along The Pin")
+    public void pinned() {
+        var game = getNewGame();
+        game.setBoard(loadBoard("""
+                | | | | |k| | | |
+                | | | | |r| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |R| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """));
+        Set<ChessMove> moves = new HashSet<>();
+        game.legalMoves(getNewPosition(4, 5)).forEachRemaining(moves::add);
+        Assertions.assertEquals(5, moves.size(), moves.toString());
+        for (ChessMove move : moves) {
+            Assertions.assertEquals(5, move.getEndPosition().getColumn());
+        }
+    }
+
+    @Test
+    @DisplayName("Mate And Stalemate Stop At The First Legal Move")
+    public void mateAndStalemate() {
+        var mate = Fen.parseGame("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR w KQkq - 1 3");
+        Assertions.assertTrue(mate.isInCheckmate(ChessGame.TeamColor.WHITE));
+        Assertions.assertFalse(mate.legalMoves(ChessGame.TeamColor.WHITE).hasNext());
+        Assertions.assertTrue(mate.legalMoves(ChessGame.TeamColor.BLACK).hasNext());
+
+        var stalemate = Fen.parseGame("k7/8/1Q6/8/8/8/8/7K b - - 0 1");
+        Assertions.assertTrue(stalemate.isInStalemate(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(stalemate.isInCheckmate(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(stalemate.isInStalemate(ChessGame.TeamColor.WHITE));
+    }
+
+    @Test
+    @DisplayName("Checking One Move Agrees With Generating Them All")
+    public void isLegal() {
+        ChessPiece.PieceType[] promotions = {null, ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+                ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.KING};
+        for (String fen : new String[]{KIWIPETE, "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+                "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+                "4k3/8/8/3pP3/8/8/8/4K3 w - d6 0 1"}) {
+            var game = Fen.parseGame(fen);
+            Set<ChessMove> legal = new HashSet<>();
+            game.legalMoves(ChessGame.TeamColor.WHITE).forEachRemaining(legal::add);
+            game.legalMoves(ChessGame.TeamColor.BLACK).forEachRemaining(legal::add);
+            for (int from = 0; from < 64; from++) {
+                for (int to = 0; to < 64; to++) {
+                    for (ChessPiece.PieceType promotion : promotions) {
+                        ChessMove move = getNewMove(FastBoard.position(from), FastBoard.position(to), promotion);
+                        Assertions.assertEquals(legal.contains(move), game.isLegal(move), fen + " " + move);
+                    }
+                }
+            }
+        }
+        var game = Fen.parseGame(KIWIPETE);
+        Assertions.assertFalse(game.isLegal(getNewMove(getNewPosition(0, 1), getNewPosition(1, 1), null)));
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(getNewMove(getNewPosition(0, 1), getNewPosition(1, 1), null)));
+        Assertions.assertThrows(InvalidMoveException.class,
+                () -> game.makeMove(getNewMove(getNewPosition(4, 4), getNewPosition(5, 4), null)));
+        Assertions.assertEquals(KIWIPETE, Fen.toFen(game));
+    }
+}
@@ -0,0 +1,76 @@
+package chess;
+
+import chess.notation.Fen;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static passoffTests.TestFactory.*;
+
+public class MoveCountTests {
+
+    private static final String[] POSITIONS = {
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+    };
+
+    @Test
+    @DisplayName("Counts Match The Generated Moves Throughout The Tree")
+    public void countsMatchGeneration() {
+        for (String fen : POSITIONS) {
+            FastBoard board = FastBoard.of(Fen.parseGame(fen));
+            compare(board, 3, fen);
+        }
+    }
+
+    @Test
+    @DisplayName("Perft Counts The Last Ply Without Making It")
+    public void perft() {
+        Assertions.assertEquals(197281, FastBoard.startingPosition().perft(4));
+        Assertions.assertEquals(4085603, FastBoard.of(Fen.parseGame(POSITIONS[0])).perft(4));
+        Assertions.assertEquals(674624, FastBoard.of(Fen.parseGame(POSITIONS[1])).perft(5));
+        Assertions.assertEquals(422333, FastBoard.of(Fen.parseGame(POSITIONS[2])).perft(4));
+        Assertions.assertEquals(62379, FastBoard.of(Fen.parseGame(POSITIONS[3])).perft(3));
+    }
+
+    @Test
+    @DisplayName("Counts Per Piece And Per Team Match Valid Moves")
+    public void gameCounts() {
+        var game = Fen.parseGame(POSITIONS[2]);
+        int total = 0;
+        for (ChessBoard.PlacedPiece placed : game.getBoard().pieces(ChessGame.TeamColor.WHITE)) {
+            int count = game.countLegalMoves(placed.position());
+            Assertions.assertEquals(game.validMoves(placed.position()).size(), count, placed.toString());
+            total += count;
+        }
+        Assertions.assertEquals(total, game.countLegalMoves(ChessGame.TeamColor.WHITE));
+        Assertions.assertEquals(0, game.countLegalMoves(getNewPosition(4, 4)));
+    }
+
+    /**
+     * Checks the count of every piece, and of the whole side, against the
+     * generator at each position down to the given depth
+     */
+    private static void compare(FastBoard board, int depth, String fen) {
+        int[] moves = new int[256];
+        int count = board.generateLegal(moves);
+        Assertions.assertEquals(count, board.countLegal(-1L), fen);
+        for (long own = board.colorBits(board.sideToMove()); own != 0; own &= own - 1) {
+            int from = Long.numberOfTrailingZeros(own);
+            int expected = 0;
+            for (int i = 0; i < count; i++) {
+                expected += FastBoard.from(moves[i]) == from ? 1 : 0;
+            }
+            Assertions.assertEquals(expected, board.countLegal(1L << from), fen + " from " + from);
+        }
+        if (depth > 1) {
+            for (int i = 0; i < count; i++) {
+                board.make(moves[i]);
+                compare(board, depth - 1, fen);
+                board.unmake(moves[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package chess;
+
+import chess.notation.Fen;
+import chess.notation.Uci;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class MoveHistoryTests {
+
+    /**
+     * Covers a double push taken en passant, both castles, captures and an
+     * underpromotion with capture
+     */
+    private static final String[] MOVES = {"e2e4", "d7d5", "e4e5", "f7f5", "e5f6", "g8f6", "g1f3", "c8g4", "f1e2",
+            "b8c6", "e1g1", "d8d6", "d2d4", "e8c8", "f3e5", "c6e5", "d4e5", "d6e5", "e2g4", "f6g4", "h2h3", "d5d4",
+            "h3g4", "d4d3", "g4g5", "d3c2", "g5g6", "c2b1n"};
+
+    @Test
+    @DisplayName("Undo Restores Every Earlier Position")
+    public void undoAll() throws InvalidMoveException {
+        ChessGame game = startingGame();
+        List<String> fens = new ArrayList<>();
+        for (String move : MOVES) {
+            fens.add(Fen.toFen(game));
+            game.makeMove(Uci.parseMove(move));
+        }
+        String end = Fen.toFen(game);
+        Assertions.assertEquals(MOVES.length, game.getPly());
+
+        for (int i = MOVES.length - 1; i >= 0; i--) {
+            Assertions.assertEquals(Uci.parseMove(MOVES[i]), game.undoMove());
+            Assertions.assertEquals(fens.get(i), Fen.toFen(game), "after taking back " + MOVES[i]);
+        }
+        Assertions.assertNull(game.undoMove());
+        Assertions.assertEquals(startingGame().getBoard(), game.getBoard());
+
+        game.goToPly(MOVES.length);
+        Assertions.assertEquals(end, Fen.toFen(game));
+        Assertions.assertNull(game.redoMove());
+        game.goToPly(11);
+        Assertions.assertEquals(fens.get(11), Fen.toFen(game));
+        Assertions.assertEquals(MOVES.length, game.getMoveHistory().size());
+    }
+
+    @Test
+    @DisplayName("A New Move Replaces The Moves Taken Back")
+    public void branch() throws InvalidMoveException {
+        ChessGame game = startingGame();
+        for (int i = 0; i < 6; i++) {
+            game.makeMove(Uci.parseMove(MOVES[i]));
+        }
+        game.goToPly(2);
+        game.makeMove(Uci.parseMove("b1c3"));
+        Assertions.assertEquals(3, game.getPly());
+        Assertions.assertEquals(List.of(Uci.parseMove("e2e4"), Uci.parseMove("d7d5"), Uci.parseMove("b1c3")),
+                game.getMoveHistory());
+        Assertions.assertNull(game.redoMove());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> game.goToPly(4));
+    }
+
+    @Test
+    @DisplayName("Repetitions Survive Scrubbing Past The Ring Buffer")
+    public void repetitionsAfterUndo() throws InvalidMoveException {
+        String[] shuffle = {"g1f3", "g8f6", "f3g1", "f6g8"};
+        ChessGame game = startingGame();
+        int[] expected = new int[301];
+        expected[0] = game.repetitions();
+        for (int i = 0; i < 300; i++) {
+            game.makeMove(Uci.parseMove(shuffle[i % 4]));
+            expected[i + 1] = game.repetitions();
+        }
+        for (int target : new int[]{120, 8, 299, 0, 300, 6}) {
+            game.goToPly(target);
+            Assertions.assertEquals(expected[target], game.repetitions(), "at ply " + target);
+            Assertions.assertEquals(target, game.getHalfmoveClock());
+        }
+    }
+
+    @Test
+    @DisplayName("A Batch Of Moves Stops At The First Illegal One")
+    public void batch() throws InvalidMoveException {
+        ChessMove[] moves = new ChessMove[MOVES.length];
+        for (int i = 0; i < MOVES.length; i++) {
+            moves[i] = Uci.parseMove(MOVES[i]);
+        }
+        ChessGame oneByOne = startingGame();
+        for (ChessMove move : moves) {
+            oneByOne.makeMove(move);
+        }
+        ChessGame batched = startingGame();
+        Assertions.assertEquals(-1, batched.findIllegalMove(moves));
+        Assertions.assertEquals(0, batched.getPly(), "checking makes no moves");
+        Assertions.assertEquals(-1, batched.makeMoves(moves));
+        Assertions.assertEquals(Fen.toFen(oneByOne), Fen.toFen(batched));
+        Assertions.assertEquals(oneByOne.getMoveHistory(), batched.getMoveHistory());
+        Assertions.assertEquals(oneByOne.repetitions(), batched.repetitions());
+        batched.goToPly(4);
+        Assertions.assertEquals(4, batched.getPly());
+
+        ChessMove[] broken = moves.clone();
+        broken[9] = Uci.parseMove("e2e4");
+        ChessGame partial = startingGame();
+        Assertions.assertEquals(9, partial.findIllegalMove(broken));
+        Assertions.assertEquals(9, partial.makeMoves(broken));
+        Assertions.assertEquals(9, partial.getPly());
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, partial.getTeamTurn());
+        Assertions.assertEquals(0, startingGame().makeMoves(new ChessMove[]{Uci.parseMove("e7e5")}), "out of turn");
+    }
+
+    private static ChessGame startingGame() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        ChessGame game = new ChessGame();
+        game.setBoard(board);
+        return game;
+    }
+}
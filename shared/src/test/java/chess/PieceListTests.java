@@ -0,0 +1,69 @@
+package chess;
+
+import chess.notation.Fen;
+import chess.notation.Uci;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static passoffTests.TestFactory.*;
+
+public class PieceListTests {
+
+    @Test
+    @DisplayName("Each Twin Piece Is Visited On Its Own Square")
+    public void twins() {
+        ChessBoard board = getNewBoard();
+        board.resetBoard();
+        List<ChessPosition> pawns = new ArrayList<>();
+        for (ChessBoard.PlacedPiece placed : board.pieces(ChessGame.TeamColor.WHITE)) {
+            Assertions.assertEquals(board.getPiece(placed.position()), placed.piece());
+            if (placed.piece().getPieceType() == ChessPiece.PieceType.PAWN) {
+                pawns.add(placed.position());
+            }
+        }
+        Assertions.assertEquals(8, pawns.size());
+        for (int col = 1; col <= 8; col++) {
+            Assertions.assertEquals(getNewPosition(2, col), pawns.get(col - 1));
+        }
+        Assertions.assertEquals(16, board.pieceCount(ChessGame.TeamColor.BLACK));
+        int count = 0;
+        for (ChessBoard.PlacedPiece ignored : board.pieces()) {
+            count++;
+        }
+        Assertions.assertEquals(32, count);
+    }
+
+    @Test
+    @DisplayName("Piece Lists Follow Moves, Captures And Take-Backs")
+    public void followsMoves() throws InvalidMoveException {
+        var game = Fen.parseGame("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        for (String move : new String[]{"e1c1", "b4c3", "d2c3", "h3g2", "f3f6", "g2h1q", "a2a4", "b6c4"}) {
+            game.makeMove(Uci.parseMove(move));
+            assertListsMatch(game.getBoard());
+        }
+        while (game.undoMove() != null) {
+            assertListsMatch(game.getBoard());
+        }
+        assertListsMatch(new ChessBoard(game.getBoard()));
+
+        game.getBoard().addPiece(getNewPosition(1, 5), getNewPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN));
+        assertListsMatch(game.getBoard());
+    }
+
+    private static void assertListsMatch(ChessBoard board) {
+        for (ChessGame.TeamColor team : ChessGame.TeamColor.values()) {
+            long expected = 0;
+            for (int sq = 0; sq < 64; sq++) {
+                ChessPiece piece = board.getPiece(FastBoard.row(sq), FastBoard.column(sq));
+                if (piece != null && piece.getTeamColor() == team) {
+                    expected |= 1L << sq;
+                }
+            }
+            Assertions.assertEquals(expected, board.occupiedSquares(team), team.toString());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package chess;
+
+import chess.notation.Fen;
+import chess.serialization.ChessGson;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static passoffTests.TestFactory.*;
+
+public class SpecialMoveTests {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Castling Moves The Rook And Uses Up Rights")
+    public void castling() throws InvalidMoveException {
+        var game = gameWith("""
+                |r| | | |k| | |r|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R| | | |K| | |R|
+                """, ChessGame.TeamColor.WHITE);
+        Assertions.assertTrue(game.validMoves(getNewPosition(1, 5)).contains(move(1, 5, 1, 7)));
+        Assertions.assertTrue(game.validMoves(getNewPosition(1, 5)).contains(move(1, 5, 1, 3)));
+
+        game.makeMove(move(1, 5, 1, 7));
+        Assertions.assertEquals(getNewPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK),
+                game.getBoard().getPiece(getNewPosition(1, 6)));
+        Assertions.assertNull(game.getBoard().getPiece(getNewPosition(1, 8)));
+        Assertions.assertEquals(ChessBoard.BLACK_KINGSIDE | ChessBoard.BLACK_QUEENSIDE,
+                game.getBoard().getCastlingRights());
+
+        game.makeMove(move(8, 8, 7, 8));
+        game.makeMove(move(1, 6, 2, 6));
+        game.makeMove(move(7, 8, 8, 8));
+        Assertions.assertEquals(ChessBoard.BLACK_QUEENSIDE, game.getBoard().getCastlingRights(),
+                "a rook that left home and came back must not restore the right");
+        Assertions.assertFalse(game.validMoves(getNewPosition(8, 5)).contains(move(8, 5, 8, 7)));
+    }
+
+    @Test
+    @DisplayName("No Castling Out Of, Through Or Into Check")
+    public void castlingThroughCheck() {
+        var game = gameWith("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | |r| | |
+                | | | | | | | | |
+                |R| | | |K| | |R|
+                """, ChessGame.TeamColor.WHITE);
+        var moves = game.validMoves(getNewPosition(1, 5));
+        Assertions.assertFalse(moves.contains(move(1, 5, 1, 7)), "passes over f1, which the rook attacks");
+        Assertions.assertTrue(moves.contains(move(1, 5, 1, 3)));
+
+        game.getBoard().addPiece(getNewPosition(3, 6), null);
+        game.getBoard().addPiece(getNewPosition(3, 5), getNewPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK));
+        moves = game.validMoves(getNewPosition(1, 5));
+        Assertions.assertFalse(moves.contains(move(1, 5, 1, 7)), "the king is in check");
+        Assertions.assertFalse(moves.contains(move(1, 5, 1, 3)), "the king is in check");
+    }
+
+    @Test
+    @DisplayName("En Passant Only Right After The Double Push")
+    public void enPassant() throws InvalidMoveException {
+        var game = gameWith("""
+                | | | | |k| | | |
+                | | | |p| | | |p|
+                | | | | | | | | |
+                | | | | |P| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """, ChessGame.TeamColor.BLACK);
+        game.makeMove(move(7, 4, 5, 4));
+        Assertions.assertEquals(getNewPosition(6, 4), game.getBoard().getEnPassant());
+        Assertions.assertEquals("4k3/7p/8/3pP3/8/8/8/4K3 w - d6 0 1", Fen.toFen(game));
+
+        var copy = Fen.parseGame(Fen.toFen(game));
+        copy.makeMove(move(5, 5, 6, 4));
+        Assertions.assertNull(copy.getBoard().getPiece(getNewPosition(5, 4)), "the pushed pawn is taken");
+
+        game.makeMove(move(1, 5, 1, 4));
+        game.makeMove(move(7, 8, 6, 8));
+        Assertions.assertNull(game.getBoard().getEnPassant());
+        Assertions.assertFalse(game.validMoves(getNewPosition(5, 5)).contains(move(5, 5, 6, 4)));
+    }
+
+    @Test
+    @DisplayName("Rights Survive FEN And JSON")
+    public void roundTrip() throws InvalidMoveException {
+        var game = Fen.parseGame(KIWIPETE);
+        game.makeMove(move(1, 1, 1, 2));
+        Assertions.assertEquals("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/1R2K2R b Kkq - 1 1",
+                Fen.toFen(game));
+
+        game.getBoard().setCastlingRights(ChessBoard.WHITE_KINGSIDE | ChessBoard.BLACK_QUEENSIDE);
+        String json = ChessGson.gson().toJson(game);
+        Assertions.assertTrue(json.contains("\"castling\":\"Kq\""), json);
+        var read = ChessGson.gson().fromJson(json, ChessGame.class);
+        Assertions.assertEquals(FastBoard.of(game), FastBoard.of(read));
+        Assertions.assertEquals(FastBoard.of(game).hash(), FastBoard.of(read).hash());
+    }
+
+    @Test
+    @DisplayName("Fast Board Move Counts Match Known Perft Values")
+    public void perft() {
+        Assertions.assertEquals(8902, perft(FastBoard.startingPosition(), 3));
+        Assertions.assertEquals(2039, perft(FastBoard.of(Fen.parseGame(KIWIPETE)), 2));
+        Assertions.assertEquals(97862, perft(FastBoard.of(Fen.parseGame(KIWIPETE)), 3));
+        Assertions.assertEquals(43238, perft(FastBoard.of(Fen.parseGame("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1")), 4));
+    }
+
+    @Test
+    @DisplayName("Fast Board Agrees With The Game")
+    public void fastBoardAgrees() {
+        var game = Fen.parseGame(KIWIPETE);
+        FastBoard fast = FastBoard.of(game);
+        int[] moves = new int[256];
+        int count = fast.generateLegal(moves);
+        int expected = 0;
+        for (int row = 1; row <= 8; row++) {
+            for (int col = 1; col <= 8; col++) {
+                ChessPiece piece = game.getBoard().getPiece(row, col);
+                if (piece != null && piece.getTeamColor() == game.getTeamTurn()) {
+                    expected += game.validMoves(getNewPosition(row, col)).size();
+                }
+            }
+        }
+        Assertions.assertEquals(expected, count);
+
+        for (int i = 0; i < count; i++) {
+            ChessGame next = Fen.parseGame(KIWIPETE);
+            next.getBoard().applyMove(FastBoard.unpack(moves[i]));
+            next.setTeamTurn(ChessGame.TeamColor.BLACK);
+            fast.make(moves[i]);
+            Assertions.assertEquals(FastBoard.of(next), fast, FastBoard.unpack(moves[i]).toString());
+            Assertions.assertEquals(FastBoard.of(next).hash(), fast.hash());
+            fast.unmake(moves[i]);
+        }
+        Assertions.assertEquals(FastBoard.of(game).hash(), fast.hash());
+    }
+
+    private static long perft(FastBoard board, int depth) {
+        int[] moves = new int[256];
+        int count = board.generateLegal(moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        long hash = board.hash();
+        for (int i = 0; i < count; i++) {
+            board.make(moves[i]);
+            nodes += perft(board, depth - 1);
+            board.unmake(moves[i]);
+            Assertions.assertEquals(hash, board.hash(), "unmake did not restore the hash");
+        }
+        return nodes;
+    }
+
+    private static ChessMove move(int fromRow, int fromCol, int toRow, int toCol) {
+        return getNewMove(getNewPosition(fromRow, fromCol), getNewPosition(toRow, toCol), null);
+    }
+
+    private static ChessGame gameWith(String board, ChessGame.TeamColor turn) {
+        var game = getNewGame();
+        game.setBoard(loadBoard(board));
+        game.setTeamTurn(turn);
+        return game;
+    }
+}
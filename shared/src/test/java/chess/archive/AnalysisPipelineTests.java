@@ -0,0 +1,145 @@
+package chess.archive;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.notation.PgnGame;
+import chess.notation.PgnReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AnalysisPipelineTests {
+
+    private static final String GAMES = """
+            [Result "1-0"]
+            1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6 4. Qxf7# 1-0
+
+            [Result "*"]
+            1. e4 e5 2. Ke3 *
+
+            [Result "1/2-1/2"]
+            1. d4 d5 2. c4 dxc4 3. e3 b5 4. a4 c6 5. axb5 cxb5 6. Qf3 1/2-1/2
+
+            """;
+
+    @Test
+    @DisplayName("Games Flow Through Every Stage And Illegal Ones Are Dropped")
+    public void games() throws IOException, InterruptedException {
+        List<Integer> written = Collections.synchronizedList(new ArrayList<>());
+        try (var reader = new PgnReader(Channels.newChannel(
+                new ByteArrayInputStream(GAMES.repeat(50).getBytes(StandardCharsets.UTF_8))))) {
+            reader.setResolveMoves(false);
+            var pipeline = AnalysisPipeline.from("read", reader.iterator())
+                    .stage("parse", 2, 8, (PgnGame game) -> {
+                        game.resolve();
+                        return game.getError() == null ? game : null;
+                    })
+                    .stage("validate", 3, 8, game -> {
+                        ChessGame replay = game.createStartingGame();
+                        return replay.makeMoves(game.getMoves().toArray(new ChessMove[0])) < 0 ? replay : null;
+                    })
+                    .stage("analyse", 2, 8, replay -> replay.countLegalMoves(replay.getTeamTurn()))
+                    .to("write", 1, 8, written::add);
+            pipeline.run();
+
+            Assertions.assertEquals(100, written.size());
+            Assertions.assertEquals(50, Collections.frequency(written, 0), "the mates leave no moves");
+            var stats = pipeline.stats();
+            Assertions.assertEquals(List.of("read", "parse", "validate", "analyse", "write"),
+                    stats.stream().map(AnalysisPipeline.StageStats::name).toList());
+            Assertions.assertEquals(150, stats.get(0).processed());
+            Assertions.assertEquals(50, stats.get(1).dropped());
+            Assertions.assertEquals(100, stats.get(4).processed());
+            Assertions.assertEquals(0, stats.get(4).queued());
+            Assertions.assertTrue(stats.get(2).busyNanos() > 0);
+        }
+    }
+
+    @Test
+    @DisplayName("A Stalled Stage Holds Back The Reader")
+    public void backPressure() throws Exception {
+        AtomicInteger read = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Iterator<Integer> source = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return read.get() < 1000;
+            }
+
+            @Override
+            public Integer next() {
+                return read.incrementAndGet();
+            }
+        };
+        var pipeline = AnalysisPipeline.from("read", source)
+                .stage("double", 2, 4, (Integer i) -> i * 2)
+                .to("write", 1, 4, i -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IOException(e);
+                    }
+                });
+        Thread runner = Thread.ofPlatform().start(() -> {
+            try {
+                pipeline.run();
+            } catch (IOException | InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pipeline.stats().get(2).queued() < 4) {
+            Assertions.assertTrue(System.nanoTime() < deadline, "the writer's queue never filled");
+            Thread.sleep(10);
+        }
+        //two queues of four, one item per double worker, one held by the writer and one by the reader
+        Assertions.assertTrue(read.get() <= 4 + 4 + 2 + 1 + 1, "read " + read.get());
+        Assertions.assertEquals(4, pipeline.stats().get(2).queued());
+
+        release.countDown();
+        runner.join(TimeUnit.SECONDS.toMillis(10));
+        Assertions.assertFalse(runner.isAlive());
+        Assertions.assertEquals(1000, pipeline.stats().get(2).processed());
+    }
+
+    @Test
+    @DisplayName("A Failing Stage Stops The Pipeline")
+    public void failure() {
+        Iterator<Integer> endless = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                return 1;
+            }
+        };
+        AtomicInteger seen = new AtomicInteger();
+        var pipeline = AnalysisPipeline.from("read", endless)
+                .stage("check", 2, 4, (Integer i) -> {
+                    if (seen.incrementAndGet() == 100) {
+                        throw new IOException("corrupt record");
+                    }
+                    return i;
+                })
+                .to("write", 1, 4, i -> {
+                });
+        var thrown = Assertions.assertThrows(IOException.class, pipeline::run);
+        Assertions.assertEquals("corrupt record", thrown.getMessage());
+        Assertions.assertThrows(IllegalStateException.class, pipeline::run);
+    }
+}
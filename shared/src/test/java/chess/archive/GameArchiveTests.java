@@ -0,0 +1,107 @@
+package chess.archive;
+
+import chess.*;
+import chess.notation.Fen;
+import chess.notation.PgnReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static passoffTests.TestFactory.*;
+
+public class GameArchiveTests {
+
+    private static final String GAMES = """
+            [Result "1-0"]
+            1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6 4. Qxf7# 1-0
+
+            [Result "1/2-1/2"]
+            1. d4 d5 2. c4 dxc4 3. e3 b5 4. a4 c6 5. axb5 cxb5 6. Qf3 1/2-1/2
+            """;
+
+    @Test
+    @DisplayName("Append, Reopen And Replay By Id")
+    public void appendAndReplay(@TempDir Path dir) throws IOException, InvalidMoveException {
+        var promotionGame = getNewGame();
+        promotionGame.setBoard(loadBoard("""
+                | | | | | | | |k|
+                |P| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |K| | | | | | | |
+                """));
+        promotionGame.setTeamTurn(ChessGame.TeamColor.WHITE);
+        var promotion = getNewMove(getNewPosition(7, 1), getNewPosition(8, 1), ChessPiece.PieceType.QUEEN);
+
+        try (var archive = GameArchive.open(dir); var reader = pgn(GAMES)) {
+            for (var game : reader) {
+                archive.append(game);
+            }
+            Assertions.assertEquals(2, archive.append(promotionGame, List.of(promotion), GameResult.WHITE_WINS));
+        }
+
+        try (var archive = GameArchive.open(dir)) {
+            Assertions.assertEquals(3, archive.size());
+
+            var mate = archive.read(0);
+            Assertions.assertEquals(GameResult.WHITE_WINS, mate.getResult());
+            Assertions.assertEquals(7, mate.getPlyCount());
+            Assertions.assertTrue(archive.replay(0).isInCheckmate(ChessGame.TeamColor.BLACK));
+
+            var draw = archive.read(1);
+            Assertions.assertEquals(GameResult.DRAW, draw.getResult());
+            var expected = draw.replay(0).toChessGame();
+            for (var move : draw.getMoves()) {
+                expected.makeMove(move);
+            }
+            Assertions.assertEquals(expected, archive.replay(1));
+
+            var promoted = archive.replay(2);
+            Assertions.assertEquals(ChessPiece.PieceType.QUEEN,
+                    promoted.getBoard().getPiece(getNewPosition(8, 1)).getPieceType());
+            Assertions.assertEquals(ChessGame.TeamColor.BLACK, promoted.getTeamTurn());
+
+            Assertions.assertEquals(4, archive.append(null, List.of(), GameResult.UNKNOWN) + 1);
+            Assertions.assertEquals(0, archive.read(3).getPlyCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Custom Starts Keep Castling Rights, En Passant And Clock")
+    public void startState(@TempDir Path dir) throws IOException {
+        String[] starts = {
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w Kq - 0 1",
+                "rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3",
+                "r3k2r/8/8/8/8/8/8/R3K2R b KQ - 12 40",
+        };
+        try (var archive = GameArchive.open(dir)) {
+            for (String fen : starts) {
+                archive.append(Fen.parseGame(fen), List.of(), GameResult.UNKNOWN);
+            }
+        }
+        try (var archive = GameArchive.open(dir)) {
+            for (int id = 0; id < starts.length; id++) {
+                FastBoard expected = FastBoard.of(Fen.parseGame(starts[id]));
+                FastBoard start = archive.read(id).replay(0);
+                Assertions.assertEquals(expected, start, starts[id]);
+                Assertions.assertEquals(expected.hash(), start.hash(), starts[id]);
+                Assertions.assertEquals(expected.halfmoveClock(), start.halfmoveClock(), starts[id]);
+            }
+        }
+    }
+
+    private static PgnReader pgn(String text) {
+        return new PgnReader(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+    }
+}
@@ -0,0 +1,142 @@
+package chess.archive;
+
+import chess.*;
+import chess.notation.PgnReader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.FutureTask;
+
+import static passoffTests.TestFactory.*;
+
+public class PositionIndexTests {
+
+    private static final String GAMES = """
+            1. e4 e5 2. Nf3 Nc6 3. Bc4 Nf6 *
+            1. e4 c5 2. Nf3 d6 *
+            1. Nf3 Nf6 2. e4 e5 3. Nc3 Nc6 *
+            """;
+
+    @Test
+    @DisplayName("Find Games Through Transpositions")
+    public void findPositions(@TempDir Path dir) throws IOException, InvalidMoveException {
+        try (var archive = GameArchive.open(dir.resolve("archive")); var reader = pgn(GAMES)) {
+            for (var game : reader) {
+                archive.append(game);
+            }
+            try (var builder = PositionIndex.builder(dir.resolve("index"), 4)) {
+                for (long id = 0; id < archive.size(); id++) {
+                    builder.add(archive.read(id));
+                }
+                builder.finish();
+            }
+        }
+
+        try (var index = PositionIndex.open(dir.resolve("index"))) {
+            Assertions.assertEquals(6 + 1 + 4 + 1 + 6 + 1, index.size());
+
+            var start = getNewBoard();
+            start.resetBoard();
+            var game = getNewGame();
+            game.setBoard(start);
+            Assertions.assertEquals(List.of(new PositionHit(0, 0), new PositionHit(1, 0), new PositionHit(2, 0)),
+                    index.find(game));
+
+            game.makeMove(getNewMove(getNewPosition(2, 5), getNewPosition(4, 5), null));
+            Assertions.assertEquals(List.of(new PositionHit(0, 1), new PositionHit(1, 1)), index.find(game));
+
+            game.makeMove(getNewMove(getNewPosition(7, 5), getNewPosition(5, 5), null));
+            game.makeMove(getNewMove(getNewPosition(1, 7), getNewPosition(3, 6), null));
+            game.makeMove(getNewMove(getNewPosition(8, 2), getNewPosition(6, 3), null));
+            Assertions.assertEquals(List.of(new PositionHit(0, 4)), index.find(game));
+
+            game.makeMove(getNewMove(getNewPosition(1, 2), getNewPosition(3, 3), null));
+            game.makeMove(getNewMove(getNewPosition(8, 7), getNewPosition(6, 6), null));
+            Assertions.assertEquals(List.of(new PositionHit(2, 6)), index.find(game));
+        }
+    }
+
+    @Test
+    @DisplayName("Segments Merge On Compaction")
+    public void compaction(@TempDir Path dir) throws IOException {
+        for (int segment = 0; segment < 3; segment++) {
+            try (var builder = PositionIndex.builder(dir, 100)) {
+                for (int i = 0; i < 1000; i++) {
+                    builder.add(i % 7, segment * 1000L + i, i % 50);
+                }
+                builder.finish();
+            }
+        }
+        try (var index = PositionIndex.open(dir)) {
+            Assertions.assertEquals(3000, index.size());
+            var before = index.find(3);
+            index.compact();
+            Assertions.assertEquals(3000, index.size());
+            Assertions.assertEquals(before, index.find(3));
+            Assertions.assertEquals(3 * 143, before.size());
+            Assertions.assertTrue(index.find(7).isEmpty());
+        }
+    }
+
+    @Test
+    @DisplayName("Compaction Merges Only The Open Segments")
+    public void compactionLeavesNewSegments(@TempDir Path dir) throws IOException {
+        writeSegments(dir, 0, 2);
+        try (var index = PositionIndex.open(dir)) {
+            writeSegments(dir, 2, 1);
+            index.compact();
+            Assertions.assertEquals(2000, index.size(), "a segment built later isn't picked up");
+        }
+        try (var index = PositionIndex.open(dir)) {
+            Assertions.assertEquals(3000, index.size(), "nor is it deleted");
+            Assertions.assertEquals(3 * 143, index.find(3).size());
+        }
+    }
+
+    @Test
+    @DisplayName("Lookups Carry On While The Index Compacts")
+    public void findDuringCompaction(@TempDir Path dir) throws Exception {
+        writeSegments(dir, 0, 4);
+        try (var index = PositionIndex.open(dir)) {
+            FutureTask<Void> compaction = new FutureTask<>(() -> {
+                index.compact();
+                return null;
+            });
+            Thread.ofPlatform().start(compaction);
+            int lookups = 0;
+            while (!compaction.isDone() || lookups < 100) {
+                Assertions.assertEquals(4 * 143, index.find(3).size());
+                Assertions.assertEquals(4000, index.size());
+                lookups++;
+            }
+            compaction.get();
+            Assertions.assertEquals(4 * 143, index.find(3).size());
+        }
+    }
+
+    /**
+     * Writes segments of 1000 entries each, whose hashes run from 0 to 6
+     */
+    private static void writeSegments(Path dir, int first, int count) throws IOException {
+        for (int segment = first; segment < first + count; segment++) {
+            try (var builder = PositionIndex.builder(dir, 100)) {
+                for (int i = 0; i < 1000; i++) {
+                    builder.add(i % 7, segment * 1000L + i, i % 50);
+                }
+                builder.finish();
+            }
+        }
+    }
+
+    private static PgnReader pgn(String text) {
+        return new PgnReader(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+    }
+}
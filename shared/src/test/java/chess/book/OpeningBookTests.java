@@ -0,0 +1,76 @@
+package chess.book;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static passoffTests.TestFactory.*;
+
+public class OpeningBookTests {
+
+    private static final ChessMove E4 = getNewMove(getNewPosition(2, 5), getNewPosition(4, 5), null);
+    private static final ChessMove D4 = getNewMove(getNewPosition(2, 4), getNewPosition(4, 4), null);
+    private static final ChessMove E5 = getNewMove(getNewPosition(7, 5), getNewPosition(5, 5), null);
+    private static final ChessMove C5 = getNewMove(getNewPosition(7, 3), getNewPosition(5, 3), null);
+
+    @Test
+    @DisplayName("Weighted Lookup From Mapped Book")
+    public void lookup(@TempDir Path dir) throws IOException, InvalidMoveException {
+        var builder = new OpeningBookBuilder(2);
+        builder.add(startingGame(), List.of(E4, E5));
+        builder.add(startingGame(), List.of(E4, C5));
+        builder.add(startingGame(), List.of(E4, E5, D4));
+        builder.add(startingGame(), List.of(D4));
+        Path file = dir.resolve("book.bin");
+        builder.write(file);
+
+        try (var book = OpeningBook.open(file)) {
+            Assertions.assertEquals(4, book.size());
+
+            var game = startingGame();
+            Assertions.assertEquals(List.of(new BookMove(E4, 3), new BookMove(D4, 1)), book.lookup(game));
+
+            game.makeMove(E4);
+            Assertions.assertEquals(List.of(new BookMove(E5, 2), new BookMove(C5, 1)), book.lookup(game));
+            Assertions.assertTrue(List.of(E5, C5).contains(book.pick(game, new Random(7))));
+
+            game.makeMove(E5);
+            Assertions.assertTrue(book.lookup(game).isEmpty());
+            Assertions.assertNull(book.pick(game, new Random(7)));
+        }
+    }
+
+    @Test
+    @DisplayName("Castling Uses Polyglot Encoding")
+    public void castlingEncoding() {
+        var board = FastBoard.of(loadBoard("""
+                |r| | | |k| | |r|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R| | | |K| | |R|
+                """), ChessGame.TeamColor.WHITE);
+        int castle = FastBoard.move(4, 6, 0);
+        int polyglot = OpeningBook.encode(board, castle);
+        Assertions.assertEquals(7, polyglot & 0x3F);
+        Assertions.assertEquals(castle, OpeningBook.decode(board, polyglot));
+    }
+
+    private static ChessGame startingGame() {
+        var board = getNewBoard();
+        board.resetBoard();
+        var game = getNewGame();
+        game.setBoard(board);
+        return game;
+    }
+}
@@ -0,0 +1,109 @@
+package chess.notation;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static passoffTests.TestFactory.*;
+
+public class PgnTests {
+
+    private static final String TWO_GAMES = """
+            [Event "Casual Game"]
+            [Site "Provo \\"UT\\""]
+            [White "Alice"]
+            [Black "Bob"]
+            [Result "1-0"]
+
+            1. e4 {best by test} e5 2. Qh5 (2. Nf3 Nc6 (2... d6) 3. Bb5) Nc6 $1
+            3. Bc4 Nf6?? 4. Qxf7# 1-0
+
+            % escaped line that is not movetext
+            [Event "Knights"]
+            [Result "*"]
+
+            1.Nc3 Nc6 2.Nf3 Nf6 3.Nb5 Nb4 4.Nbd4 Nbd5 *
+            """;
+
+    @Test
+    @DisplayName("Read Games From Channel")
+    public void readGames() throws IOException {
+        List<PgnGame> games = read(TWO_GAMES).stream().toList();
+        Assertions.assertEquals(2, games.size());
+
+        PgnGame mate = games.get(0);
+        Assertions.assertNull(mate.getError());
+        Assertions.assertEquals("Provo \"UT\"", mate.getTag("Site"));
+        Assertions.assertEquals("1-0", mate.getResult());
+        Assertions.assertEquals(List.of("e4", "e5", "Qh5", "Nc6", "Bc4", "Nf6??", "Qxf7#"), mate.getSanMoves());
+        Assertions.assertEquals(getNewMove(getNewPosition(5, 8), getNewPosition(7, 6), null),
+                mate.getMoves().get(6));
+        Assertions.assertTrue(mate.resolve().isInCheckmate(ChessGame.TeamColor.BLACK));
+
+        PgnGame knights = games.get(1);
+        Assertions.assertNull(knights.getError());
+        Assertions.assertEquals(8, knights.getMoves().size());
+        Assertions.assertEquals(getNewMove(getNewPosition(5, 2), getNewPosition(4, 4), null),
+                knights.getMoves().get(6));
+    }
+
+    @Test
+    @DisplayName("Unresolvable Move Recorded")
+    public void unresolvableMove() throws IOException {
+        PgnGame game = read("1. e4 e5 2. Ke3 *").readGame();
+        Assertions.assertEquals(2, game.getMoves().size());
+        Assertions.assertEquals(3, game.getSanMoves().size());
+        Assertions.assertNotNull(game.getError());
+    }
+
+    @Test
+    @DisplayName("Write Then Read Memory Mapped")
+    public void writeAndMap(@TempDir Path dir) throws IOException {
+        Path file = dir.resolve("games.pgn");
+        try (PgnReader reader = read(TWO_GAMES); PgnWriter writer = PgnWriter.create(file)) {
+            for (PgnGame game : reader) {
+                writer.write(game);
+            }
+        }
+        String text = Files.readString(file);
+        Assertions.assertTrue(text.contains("1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6 4. Qxf7# 1-0"), text);
+        Assertions.assertTrue(text.contains("4. Nbd4 Nbd5 *"), text);
+
+        try (PgnReader reader = PgnReader.open(file)) {
+            List<PgnGame> games = reader.stream().toList();
+            Assertions.assertEquals(2, games.size());
+            Assertions.assertEquals(7, games.get(0).getMoves().size());
+            Assertions.assertEquals("?", games.get(1).getTag("Site"));
+        }
+    }
+
+    @Test
+    @DisplayName("Writer Wraps Long Movetext")
+    public void wrapsLines() throws IOException {
+        PgnGame game = new PgnGame();
+        for (int i = 0; i < 20; i++) {
+            game.getSanMoves().add(i % 2 == 0 ? "Nf3" : "Nf6");
+            game.getSanMoves().add(i % 2 == 0 ? "Ng1" : "Ng8");
+        }
+        StringWriter out = new StringWriter();
+        new PgnWriter(out).write(game);
+        for (String line : out.toString().split("\n")) {
+            Assertions.assertTrue(line.length() <= 80, line);
+        }
+    }
+
+    private static PgnReader read(String text) {
+        return new PgnReader(Channels.newChannel(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+    }
+}
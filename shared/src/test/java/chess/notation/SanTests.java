@@ -0,0 +1,103 @@
+package chess.notation;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static passoffTests.TestFactory.*;
+
+public class SanTests {
+
+    @Test
+    @DisplayName("Disambiguation By File, Rank And Square")
+    public void disambiguation() throws InvalidMoveException {
+        var game = gameWith("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R| | | | | | |R|
+                | | | | | | | | |
+                |Q| | | | | | |Q|
+                | | | | | | | | |
+                |R| |K| | |Q| |Q|
+                """, ChessGame.TeamColor.WHITE);
+
+        assertSan(game, "Rad5", 5, 1, 5, 4);
+        assertSan(game, "Ra4", 5, 1, 4, 1);
+        assertSan(game, "Q3g2", 3, 8, 2, 7);
+        assertSan(game, "Qh1g2", 1, 8, 2, 7);
+        assertSan(game, "Qb2", 3, 1, 2, 2);
+        assertSan(game, "Ra2", 1, 1, 2, 1);
+    }
+
+    @Test
+    @DisplayName("Pinned Piece Does Not Need Disambiguation")
+    public void pinnedPiece() throws InvalidMoveException {
+        var game = gameWith("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | |r| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |N| | | |
+                | | | | | | | | |
+                | |N| | |K| | | |
+                """, ChessGame.TeamColor.WHITE);
+
+        assertSan(game, "Nd2", 1, 2, 2, 4);
+    }
+
+    @Test
+    @DisplayName("Captures, Promotion, Check And Mate")
+    public void suffixes() throws InvalidMoveException {
+        var game = gameWith("""
+                | | | | | | |k| |
+                |P| | | | |p|p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R| | | |K| | | |
+                """, ChessGame.TeamColor.WHITE);
+
+        var before = new ChessBoard(game.getBoard());
+        Assertions.assertEquals("a8=Q#", San.encode(game, getNewMove(getNewPosition(7, 1),
+                getNewPosition(8, 1), ChessPiece.PieceType.QUEEN)));
+        Assertions.assertEquals("a8=N", San.encode(game, getNewMove(getNewPosition(7, 1),
+                getNewPosition(8, 1), ChessPiece.PieceType.KNIGHT)));
+        Assertions.assertEquals("Rd1", San.encode(game, getNewMove(getNewPosition(1, 1),
+                getNewPosition(1, 4), null)));
+        Assertions.assertEquals(before, game.getBoard(), "encoding changed the board");
+
+        game.setTeamTurn(ChessGame.TeamColor.BLACK);
+        game.getBoard().addPiece(getNewPosition(6, 7), getNewPiece(ChessGame.TeamColor.WHITE,
+                ChessPiece.PieceType.BISHOP));
+        assertSan(game, "fxg6", 7, 6, 6, 7);
+    }
+
+    @Test
+    @DisplayName("UCI Round Trip")
+    public void uci() {
+        var move = getNewMove(getNewPosition(2, 7), getNewPosition(1, 8), ChessPiece.PieceType.ROOK);
+        Assertions.assertEquals("g2h1r", Uci.move(move));
+        Assertions.assertEquals("g2h1r", move.toString());
+        Assertions.assertEquals(move, Uci.parseMove("g2h1r"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Uci.parseMove("g2h9"));
+    }
+
+    private static void assertSan(ChessGame game, String expected, int startRow, int startCol, int endRow,
+                                  int endCol) throws InvalidMoveException {
+        var move = getNewMove(getNewPosition(startRow, startCol), getNewPosition(endRow, endCol), null);
+        Assertions.assertEquals(expected, San.encode(game, move));
+        Assertions.assertEquals(move, San.parse(game, expected));
+    }
+
+    private static ChessGame gameWith(String board, ChessGame.TeamColor turn) {
+        var game = getNewGame();
+        game.setBoard(loadBoard(board));
+        game.setTeamTurn(turn);
+        return game;
+    }
+}
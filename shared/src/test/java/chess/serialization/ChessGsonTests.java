@@ -0,0 +1,69 @@
+package chess.serialization;
+
+import chess.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static passoffTests.TestFactory.*;
+
+public class ChessGsonTests {
+
+    private final Gson gson = ChessGson.gson();
+
+    @Test
+    @DisplayName("Game Round Trip")
+    public void gameRoundTrip() throws InvalidMoveException {
+        var board = getNewBoard();
+        board.resetBoard();
+        var game = getNewGame();
+        game.setBoard(board);
+        game.makeMove(getNewMove(getNewPosition(2, 5), getNewPosition(4, 5), null));
+
+        String json = gson.toJson(game);
+        Assertions.assertEquals(
+                "{\"board\":\"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR\",\"turn\":\"BLACK\"}", json);
+        Assertions.assertEquals(game, gson.fromJson(json, ChessGame.class));
+    }
+
+    @Test
+    @DisplayName("Sparse Board Round Trip")
+    public void sparseBoardRoundTrip() {
+        var board = loadBoard("""
+                | | | | | | | | |
+                | | | | | | | |q|
+                | | |n| | | |p| |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | |B| | | | | |
+                | |K| | | | | |R|
+                """);
+
+        String json = gson.toJson(board);
+        Assertions.assertEquals("\"8/7q/2n3p1/8/8/8/2B5/1K5R\"", json);
+        Assertions.assertEquals(board, gson.fromJson(json, ChessBoard.class));
+    }
+
+    @Test
+    @DisplayName("Move And Position Round Trip")
+    public void moveRoundTrip() {
+        var promotion = getNewMove(getNewPosition(7, 1), getNewPosition(8, 2), ChessPiece.PieceType.KNIGHT);
+        Assertions.assertEquals("\"a7b8n\"", gson.toJson(promotion));
+        Assertions.assertEquals(promotion, gson.fromJson(gson.toJson(promotion), ChessMove.class));
+
+        var position = getNewPosition(3, 8);
+        Assertions.assertEquals("\"h3\"", gson.toJson(position));
+        Assertions.assertEquals(position, gson.fromJson("\"h3\"", ChessPosition.class));
+    }
+
+    @Test
+    @DisplayName("Malformed Input Rejected")
+    public void malformedInput() {
+        Assertions.assertThrows(JsonSyntaxException.class, () -> gson.fromJson("\"i9\"", ChessPosition.class));
+        Assertions.assertThrows(JsonSyntaxException.class, () -> gson.fromJson("\"e2e4k\"", ChessMove.class));
+        Assertions.assertThrows(JsonSyntaxException.class, () -> gson.fromJson("\"8/8/8\"", ChessBoard.class));
+    }
+}
@@ -0,0 +1,156 @@
+package chess.tablebase;
+
+import chess.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static passoffTests.TestFactory.*;
+
+public class TablebaseTests {
+
+    @TempDir
+    static Path dir;
+    private static Tablebases tablebases;
+
+    @BeforeAll
+    public static void generate() throws IOException {
+        Tablebases.generate(dir);
+        tablebases = Tablebases.open(dir);
+    }
+
+    @Test
+    @DisplayName("Longest Mates Match Known Values")
+    public void longestMates() throws IOException {
+        Assertions.assertEquals(19, longestWin(Tablebase.open(Endgame.KQK, dir.resolve("KQK.tb"))));
+        Assertions.assertEquals(31, longestWin(Tablebase.open(Endgame.KRK, dir.resolve("KRK.tb"))));
+        Assertions.assertEquals(-1, longestWin(Tablebase.open(Endgame.KNK, dir.resolve("KNK.tb"))));
+    }
+
+    @Test
+    @DisplayName("Checkmate And Stalemate Answered By Lookup")
+    public void gameStatus() {
+        var game = game("""
+                | | | | | | |k| |
+                | | | | | | |Q| |
+                | | | | | | |K| |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(new TablebaseResult(Wdl.LOSS, 0, true), game.probeTablebase());
+        Assertions.assertTrue(game.isInCheckmate(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(game.isInStalemate(ChessGame.TeamColor.BLACK));
+
+        var stalemate = game("""
+                | | | | | | | |k|
+                | | | | | | | | |
+                | | | | | | |Q| |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |K| | | | | | | |
+                """, ChessGame.TeamColor.BLACK);
+        Assertions.assertTrue(stalemate.isInStalemate(ChessGame.TeamColor.BLACK));
+        Assertions.assertFalse(stalemate.isInCheckmate(ChessGame.TeamColor.BLACK));
+        Assertions.assertEquals(Wdl.WIN, tablebases.probe(FastBoard.of(stalemate.getBoard(), ChessGame.TeamColor.WHITE)).wdl());
+    }
+
+    @Test
+    @DisplayName("Pawn Endings For Either Colour")
+    public void pawnEndings() {
+        var win = game("""
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                | | | | |P| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.WHITE);
+        Assertions.assertEquals(Wdl.WIN, win.probeTablebase().wdl());
+
+        var flipped = game("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |p| | | |
+                | | | | |k| | | |
+                | | | | | | | | |
+                | | | | |K| | | |
+                """, ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(win.probeTablebase(), flipped.probeTablebase());
+
+        var capture = game("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |k| | | |
+                | | | | |P| | | |
+                |K| | | | | | | |
+                """, ChessGame.TeamColor.BLACK);
+        Assertions.assertEquals(new TablebaseResult(Wdl.DRAW, 0, false), capture.probeTablebase());
+
+        var rookPawnBlocked = game("""
+                |k| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |P| | | | | | | |
+                |K| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                """, ChessGame.TeamColor.WHITE);
+        Assertions.assertEquals(Wdl.DRAW, rookPawnBlocked.probeTablebase().wdl());
+    }
+
+    @Test
+    @DisplayName("Positions Outside The Tables")
+    public void uncovered() {
+        var start = getNewBoard();
+        start.resetBoard();
+        Assertions.assertNull(tablebases.probe(FastBoard.of(start, ChessGame.TeamColor.WHITE)));
+
+        var illegal = game("""
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | |k|K| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | |R| |
+                """, ChessGame.TeamColor.WHITE);
+        Assertions.assertNull(illegal.probeTablebase());
+    }
+
+    private static int longestWin(Tablebase table) {
+        int longest = -1;
+        for (int index = 0; index < Tablebase.SIZE; index++) {
+            if (table.result(index) == Tablebase.WIN) {
+                longest = Math.max(longest, table.distance(index));
+            }
+        }
+        return longest;
+    }
+
+    private static ChessGame game(String board, ChessGame.TeamColor turn) {
+        var game = getNewGame();
+        game.setBoard(loadBoard(board));
+        game.setTeamTurn(turn);
+        game.setTablebases(tablebases);
+        return game;
+    }
+}